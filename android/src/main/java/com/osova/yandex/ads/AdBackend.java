@@ -0,0 +1,76 @@
+package com.osova.yandex.ads;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.yandex.mobile.ads.banner.BannerAdEventListener;
+import com.yandex.mobile.ads.common.AdRequest;
+import com.yandex.mobile.ads.interstitial.InterstitialAdLoadListener;
+import com.yandex.mobile.ads.rewarded.RewardedAdLoadListener;
+
+/**
+ * Всё, что плагин берёт у SDK напрямую: инициализация, флаги приватности,
+ * загрузчики полноэкранных объявлений и вью баннера.
+ *
+ * Загрузчики и BannerAdView - конкретные классы SDK, которые без сети и
+ * устройства не поднять, поэтому конечный автомат плагина (сторожа, гонки
+ * колбэков, Waterfall, кеш) раньше проверялся только на телефоне. За этим
+ * интерфейсом в приложении стоит YandexBackend, а в тестах и бенчмарках -
+ * подделка с заданными задержкой, долей отказов и потерянными колбэками.
+ *
+ * Объявления, слушатели и ошибки остаются типами SDK: это интерфейсы и
+ * простые значения, подделка создаёт их сама. Все методы - UI-поток, как и
+ * у SDK; колбэки приходят туда же.
+ */
+interface AdBackend {
+
+    /** Загрузчик полноэкранного объявления; держит один запрос за раз. */
+    interface Loader<L> {
+        /** Блок передаётся отдельно от запроса: подделке незачем разбирать AdRequest. */
+        void load(@NonNull AdRequest request, @NonNull String adUnitId, @NonNull L listener);
+
+        void cancel();
+    }
+
+    /** Баннер: вью для контейнера и её загрузка. */
+    interface Banner {
+        @NonNull
+        View view();
+
+        void setListener(@Nullable BannerAdEventListener listener);
+
+        void load(@NonNull AdRequest request, @NonNull String adUnitId);
+
+        void destroy();
+    }
+
+    /** onInitialized - когда SDK поднят; на UI-потоке. */
+    void initialize(@NonNull Context context, @NonNull Runnable onInitialized);
+
+    @Nullable
+    String libraryVersion();
+
+    void setUserConsent(boolean value);
+
+    void setAgeRestricted(boolean value);
+
+    void setLocationTracking(boolean value);
+
+    void enableLogging(boolean value);
+
+    @NonNull
+    Loader<InterstitialAdLoadListener> interstitialLoader(@NonNull Context context);
+
+    @NonNull
+    Loader<RewardedAdLoadListener> rewardedLoader(@NonNull Context context);
+
+    /**
+     * Баннер размера из loadBanner: width и height - inline до этих
+     * размеров, только width - sticky, ничего - стандартный 320x50.
+     */
+    @NonNull
+    Banner banner(@NonNull Context context, int width, @Nullable Integer height);
+}
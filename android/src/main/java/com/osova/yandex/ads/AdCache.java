@@ -0,0 +1,211 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Готовые к показу объявления, разложенные по идентификаторам блоков.
+ *
+ * На каждый блок - очередь до maxPerUnit объявлений (показываем самое старое:
+ * оно раньше других протухнет), на весь кеш - не больше maxTotal. При
+ * переполнении вытесняется самое старое объявление того блока, к которому
+ * дольше всех не обращались: LinkedHashMap в порядке доступа и есть LRU.
+ *
+ * Каждое объявление помнит, когда загружено: возраст отдаётся вместе с
+ * готовностью, а по сроку жизни плагин убирает объявление через remove().
+ *
+ * Пишут в кеш колбэки загрузки на UI-потоке, а читают и методы плагина на
+ * потоке моста, поэтому все операции под монитором кеша. Вытесненные
+ * объявления освобождаются уже после выхода из него: releaser - код SDK, и
+ * держать под ним наш замок незачем.
+ */
+final class AdCache<T> {
+
+    /** Освобождает объявление, которое уже никто не покажет. */
+    interface Releaser<T> {
+        void release(@NonNull T ad);
+    }
+
+    /** Объявление вместе с блоком, из которого оно пришло, и временем загрузки. */
+    static final class Entry<T> {
+        final String adUnitId;
+        final T ad;
+        final long loadedAt;
+
+        Entry(String adUnitId, T ad, long loadedAt) {
+            this.adUnitId = adUnitId;
+            this.ad = ad;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final LinkedHashMap<String, ArrayDeque<Entry<T>>> units = new LinkedHashMap<>(8, 0.75f, true);
+    private final Releaser<T> releaser;
+    private final int maxTotal;
+    private int size = 0;
+
+    AdCache(int maxTotal, @NonNull Releaser<T> releaser) {
+        this.maxTotal = maxTotal;
+        this.releaser = releaser;
+    }
+
+    /**
+     * Кладёт объявление в очередь блока. Лишние - сначала свои самые старые,
+     * затем чужие из наименее востребованного блока - освобождаются.
+     */
+    void put(@NonNull String adUnitId, @NonNull T ad, int maxPerUnit, long loadedAt) {
+        List<T> evicted = new ArrayList<>();
+        synchronized (this) {
+            ArrayDeque<Entry<T>> queue = units.get(adUnitId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                units.put(adUnitId, queue);
+            }
+            queue.addLast(new Entry<>(adUnitId, ad, loadedAt));
+            size++;
+            while (queue.size() > Math.max(1, maxPerUnit)) {
+                evicted.add(queue.pollFirst().ad);
+                size--;
+            }
+            // Первый в порядке доступа - наименее востребованный блок. Свой
+            // блок только что тронут и стоит последним, так что его последнее
+            // объявление вытеснено не будет.
+            Iterator<Map.Entry<String, ArrayDeque<Entry<T>>>> it = units.entrySet().iterator();
+            while (size > maxTotal && it.hasNext()) {
+                ArrayDeque<Entry<T>> lru = it.next().getValue();
+                while (size > maxTotal && !lru.isEmpty()) {
+                    evicted.add(lru.pollFirst().ad);
+                    size--;
+                }
+                if (lru.isEmpty()) it.remove();
+            }
+        }
+        releaseAll(evicted);
+    }
+
+    /**
+     * Забирает самое старое объявление блока. adUnitId == null - любого блока,
+     * начиная с последнего востребованного.
+     */
+    @Nullable
+    synchronized Entry<T> take(@Nullable String adUnitId) {
+        String unit = adUnitId != null ? adUnitId : mostRecentUnit();
+        if (unit == null) return null;
+        ArrayDeque<Entry<T>> queue = units.get(unit);
+        if (queue == null) return null;
+        Entry<T> entry = queue.pollFirst();
+        if (queue.isEmpty()) units.remove(unit);
+        if (entry == null) return null;
+        size--;
+        return entry;
+    }
+
+    /**
+     * То, что отдал бы take(), но без изъятия и без касания порядка LRU:
+     * опрос готовности не должен спасать блок от вытеснения.
+     */
+    @Nullable
+    synchronized Entry<T> peek(@Nullable String adUnitId) {
+        String unit = adUnitId != null ? adUnitId : mostRecentUnit();
+        if (unit == null) return null;
+        ArrayDeque<Entry<T>> queue = find(unit);
+        return queue != null ? queue.peekFirst() : null;
+    }
+
+    /** Убирает и освобождает конкретное объявление; false - его уже нет в кеше. */
+    boolean remove(@NonNull String adUnitId, @NonNull T ad) {
+        synchronized (this) {
+            ArrayDeque<Entry<T>> queue = find(adUnitId);
+            if (queue == null) return false;
+            Entry<T> found = null;
+            for (Entry<T> entry : queue) {
+                if (entry.ad == ad) {
+                    found = entry;
+                    break;
+                }
+            }
+            if (found == null) return false;
+            queue.remove(found);
+            if (queue.isEmpty()) units.remove(adUnitId);
+            size--;
+        }
+        releaser.release(ad);
+        return true;
+    }
+
+    /** Есть ли что показать; adUnitId == null - в любом блоке. */
+    synchronized boolean has(@Nullable String adUnitId) {
+        if (adUnitId == null) return size > 0;
+        return count(adUnitId) > 0;
+    }
+
+    /**
+     * Сколько готовых объявлений у блока. get() в порядке доступа трогал бы
+     * блок - опрос готовности не должен спасать его от вытеснения.
+     */
+    synchronized int count(@NonNull String adUnitId) {
+        ArrayDeque<Entry<T>> queue = find(adUnitId);
+        return queue != null ? queue.size() : 0;
+    }
+
+    /** Освобождает объявления блока; adUnitId == null - все. */
+    void clear(@Nullable String adUnitId) {
+        List<T> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (adUnitId == null) {
+                for (ArrayDeque<Entry<T>> queue : units.values()) {
+                    for (Entry<T> entry : queue) evicted.add(entry.ad);
+                }
+                units.clear();
+            } else {
+                ArrayDeque<Entry<T>> queue = units.remove(adUnitId);
+                if (queue != null) {
+                    for (Entry<T> entry : queue) evicted.add(entry.ad);
+                }
+            }
+            size -= evicted.size();
+        }
+        releaseAll(evicted);
+    }
+
+    /**
+     * Забирает все объявления, не освобождая их, - от наименее
+     * востребованного блока к последнему: положенные обратно в том же
+     * порядке, они восстановят и порядок вытеснения.
+     */
+    @NonNull
+    synchronized List<Entry<T>> drain() {
+        List<Entry<T>> drained = new ArrayList<>(size);
+        for (ArrayDeque<Entry<T>> queue : units.values()) drained.addAll(queue);
+        units.clear();
+        size = 0;
+        return drained;
+    }
+
+    /** Очередь блока без касания порядка доступа (get() в LinkedHashMap его трогает). */
+    @Nullable
+    private ArrayDeque<Entry<T>> find(@NonNull String adUnitId) {
+        for (Map.Entry<String, ArrayDeque<Entry<T>>> e : units.entrySet()) {
+            if (e.getKey().equals(adUnitId)) return e.getValue();
+        }
+        return null;
+    }
+
+    @Nullable
+    private String mostRecentUnit() {
+        String last = null;
+        for (String unit : units.keySet()) last = unit;
+        return last;
+    }
+
+    private void releaseAll(List<T> ads) {
+        for (T ad : ads) releaser.release(ad);
+    }
+}
@@ -0,0 +1,74 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Одна загрузка объявления - одного блока или группы (Waterfall).
+ *
+ * Ждущее поле загрузки держит этот объект, а не сам PluginCall: загрузку
+ * может начать и сам плагин (дозаправка после показа), и тогда вызова JS-стороны
+ * нет вовсе. Колбэки SDK сверяют поле с захваченной загрузкой по ссылке -
+ * так же, как раньше сверяли вызов.
+ */
+final class AdLoad {
+
+    /** Кому ещё, кроме вызова, нужен итог загрузки - например, preloadAll(). */
+    interface Listener {
+        void onSettled(@NonNull AdLoad load, boolean success, @Nullable String message, @Nullable String adUnitId);
+    }
+
+    final String adType;
+    /** Главный блок группы; у одиночной загрузки - единственный. */
+    final String adUnitId;
+    final Waterfall.Plan plan;
+    /** null - загрузку начал сам плагин, отвечать некому. */
+    @Nullable
+    final PluginCall call;
+    @Nullable
+    final Listener listener;
+    /**
+     * Загрузку вытеснили или уничтожили. Отличается от "поле уже не держит
+     * её": поле пустеет и при обычном завершении, а проигравшие заполнения
+     * группы interstitial паркуются в кеш и после ответа JS-стороне.
+     */
+    volatile boolean isCancelled = false;
+    /** Начало загрузки по часам AdStats - от него меряется задержка. */
+    final long startedAt = AdStats.now();
+    /** Срок, с которым встал сторож, - для события timeout. */
+    volatile long timeoutMs = 0;
+    // Какие ступени уже ответили: по ним сторож считает таймауты, а запоздалый
+    // колбэк после сторожа не засчитывается второй раз.
+    private final AtomicIntegerArray answered;
+
+    AdLoad(@NonNull String adType, @NonNull Waterfall.Plan plan, @Nullable PluginCall call,
+           @Nullable Listener listener) {
+        this.adType = adType;
+        this.adUnitId = plan.primary();
+        this.plan = plan;
+        this.call = call;
+        this.listener = listener;
+        this.answered = new AtomicIntegerArray(plan.adUnitIds.size());
+    }
+
+    /** Загрузка одного блока - баннер. */
+    AdLoad(@NonNull String adType, @NonNull String adUnitId, @Nullable PluginCall call,
+           @Nullable Listener listener) {
+        this(adType, new Waterfall.Plan(Collections.singletonList(adUnitId), Waterfall.Strategy.FIRST),
+            call, listener);
+    }
+
+    /** true - ответ ступени index первый. */
+    boolean markAnswered(int index) {
+        return answered.compareAndSet(index, 0, 1);
+    }
+
+    boolean isAnswered(int index) {
+        return answered.get(index) != 0;
+    }
+}
@@ -0,0 +1,240 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Состояние слота рекламы - баннера, rewarded или показа interstitial -
+ * одним неизменяемым снимком.
+ *
+ * Раньше состояние слота было разложено по нескольким volatile-полям
+ * (готовое объявление, показываемое, его блок, время загрузки) и паре
+ * AtomicReference с ждущими загрузкой и показом. Переход "загрузка
+ * пришла" менял поля по очереди, и поток моста мог увидеть объявление без
+ * его блока, а владельца обещания искали CAS'ом по нескольким полям.
+ * Здесь каждый переход - один CAS всего снимка:
+ *
+ *   idle → loading (startLoad) → ready (fill) → showing (show) → idle (dismiss)
+ *
+ * Из соперничающих ответов - колбэк SDK, сторож, destroy с потока моста -
+ * итог достаётся ровно одному: тому, чей CAS прошёл. Он и закрывает обещание.
+ *
+ * Загрузка и показ независимы: следующее объявление грузится, пока текущее
+ * на экране, поэтому у снимка нет одного поля фазы - каждая часть живёт
+ * своей жизнью. Загрузки, вызовы и объявления сравниваются по ссылке.
+ */
+final class AdSlot<T> {
+
+    /** Снимок слота. Не меняется: переход строит новый и ставит его CAS'ом. */
+    static final class State<T> {
+        /** Идущая загрузка; null - слот ничего не грузит. */
+        @Nullable
+        final AdLoad load;
+        /** Готовое объявление; null - показывать нечего. */
+        @Nullable
+        final T ad;
+        /** Блок готового объявления. */
+        @Nullable
+        final String adUnitId;
+        /** Когда пришло готовое объявление, по часам AdStats. */
+        final long loadedAt;
+        /** Объявление на экране: до dismiss его слушатель ещё нужен. */
+        @Nullable
+        final T showing;
+        /** Ждущий вызов показа. */
+        @Nullable
+        final PluginCall showCall;
+
+        State(@Nullable AdLoad load, @Nullable T ad, @Nullable String adUnitId, long loadedAt,
+              @Nullable T showing, @Nullable PluginCall showCall) {
+            this.load = load;
+            this.ad = ad;
+            this.adUnitId = adUnitId;
+            this.loadedAt = loadedAt;
+            this.showing = showing;
+            this.showCall = showCall;
+        }
+
+        State<T> withLoad(@Nullable AdLoad load) {
+            return new State<>(load, ad, adUnitId, loadedAt, showing, showCall);
+        }
+
+        State<T> withReady(@Nullable T ad, @Nullable String adUnitId, long loadedAt) {
+            return new State<>(load, ad, adUnitId, loadedAt, showing, showCall);
+        }
+
+        State<T> withShowing(@Nullable T showing) {
+            return new State<>(load, ad, adUnitId, loadedAt, showing, showCall);
+        }
+
+        State<T> withShowCall(@Nullable PluginCall showCall) {
+            return new State<>(load, ad, adUnitId, loadedAt, showing, showCall);
+        }
+    }
+
+    private final AtomicReference<State<T>> state =
+        new AtomicReference<>(new State<>(null, null, null, 0, null, null));
+
+    @NonNull
+    State<T> get() {
+        return state.get();
+    }
+
+    // MARK: - Загрузка
+
+    /** → loading. Возвращает вытесненную загрузку: закрыть её - дело вызывающего. */
+    @Nullable
+    AdLoad startLoad(@NonNull AdLoad load) {
+        while (true) {
+            State<T> s = state.get();
+            if (state.compareAndSet(s, s.withLoad(load))) return s.load;
+        }
+    }
+
+    boolean isLoading(@NonNull AdLoad load) {
+        return state.get().load == load;
+    }
+
+    /**
+     * Загрузка кончилась без объявления в слоте: неудача, таймаут или
+     * объявление ушло мимо слота (кеш interstitial). true - итог наш.
+     */
+    boolean finishLoad(@NonNull AdLoad load) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.load != load) return false;
+            if (state.compareAndSet(s, s.withLoad(null))) return true;
+        }
+    }
+
+    /**
+     * loading → ready: объявление встаёт в слот вместе со снятием загрузки.
+     * Возвращает снимок до перехода - его готовое объявление вытеснено и
+     * освобождается вызывающим; null - загрузка уже не наша, слот не тронут.
+     */
+    @Nullable
+    State<T> fill(@NonNull AdLoad load, @NonNull String adUnitId, @NonNull T ad, long loadedAt) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.load != load) return null;
+            if (state.compareAndSet(s, s.withLoad(null).withReady(ad, adUnitId, loadedAt))) return s;
+        }
+    }
+
+    /** Снимает загрузку, чья бы она ни была; её закрывает вызывающий. */
+    @Nullable
+    AdLoad cancelLoad() {
+        while (true) {
+            State<T> s = state.get();
+            if (s.load == null) return null;
+            if (state.compareAndSet(s, s.withLoad(null))) return s.load;
+        }
+    }
+
+    // MARK: - Готовое объявление
+
+    /** Объявление не из загрузки - перенятое у прошлого экземпляра плагина. Возвращает вытесненное. */
+    @Nullable
+    T put(@NonNull String adUnitId, @NonNull T ad, long loadedAt) {
+        while (true) {
+            State<T> s = state.get();
+            if (state.compareAndSet(s, s.withReady(ad, adUnitId, loadedAt))) return s.ad;
+        }
+    }
+
+    /** ready → idle. Возвращает снимок с выброшенным объявлением; null - готового не было. */
+    @Nullable
+    State<T> clear() {
+        while (true) {
+            State<T> s = state.get();
+            if (s.ad == null) return null;
+            if (state.compareAndSet(s, s.withReady(null, null, 0))) return s;
+        }
+    }
+
+    /** То же, но только если готово всё ещё именно ad - для срока жизни. */
+    @Nullable
+    State<T> clear(@NonNull T ad) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.ad != ad) return null;
+            if (state.compareAndSet(s, s.withReady(null, null, 0))) return s;
+        }
+    }
+
+    // MARK: - Показ
+
+    /** Занимает показ вызовом call. Возвращает вытесненный вызов: его закрывает вызывающий. */
+    @Nullable
+    PluginCall startShow(@NonNull PluginCall call) {
+        while (true) {
+            State<T> s = state.get();
+            if (state.compareAndSet(s, s.withShowCall(call))) return s.showCall;
+        }
+    }
+
+    boolean isShowCall(@NonNull PluginCall call) {
+        return state.get().showCall == call;
+    }
+
+    /**
+     * ready → showing для вызова call. Возвращает снимок до перехода - из
+     * него берутся объявление и блок; null - вызов уже не наш или готового нет.
+     */
+    @Nullable
+    State<T> show(@NonNull PluginCall call) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.showCall != call || s.ad == null) return null;
+            if (state.compareAndSet(s, s.withReady(null, null, 0).withShowing(s.ad))) return s;
+        }
+    }
+
+    /**
+     * → showing с объявлением не из слота (interstitial берёт его из кеша).
+     * false - вызов уже не наш: показывать нельзя, объявление остаётся у
+     * вызывающего.
+     */
+    boolean show(@NonNull PluginCall call, @NonNull T ad) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.showCall != call) return false;
+            if (state.compareAndSet(s, s.withShowing(ad))) return true;
+        }
+    }
+
+    /** Снимает вызов показа, если он всё ещё call. true - отвечать нам. */
+    boolean settleShow(@NonNull PluginCall call) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.showCall != call) return false;
+            if (state.compareAndSet(s, s.withShowCall(null))) return true;
+        }
+    }
+
+    /** Снимает вызов показа, чей бы он ни был; его закрывает вызывающий. */
+    @Nullable
+    PluginCall cancelShow() {
+        while (true) {
+            State<T> s = state.get();
+            if (s.showCall == null) return null;
+            if (state.compareAndSet(s, s.withShowCall(null))) return s.showCall;
+        }
+    }
+
+    /**
+     * showing → idle: объявление закрыто или потеряно. true - на экране было
+     * именно оно; запоздалый колбэк прошлого показа следующий не трогает.
+     */
+    boolean dismiss(@NonNull T ad) {
+        while (true) {
+            State<T> s = state.get();
+            if (s.showing != ad) return false;
+            if (state.compareAndSet(s, s.withShowing(null))) return true;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.osova.yandex.ads;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики загрузок и показов по блокам: сколько запросили, сколько пришло,
+ * сколько не дождались, и за какое время.
+ *
+ * Пишут сюда колбэки SDK, сторожа и методы плагина с разных потоков, а
+ * читают редко - по getStats(). Поэтому счётчики - LongAdder, а задержки -
+ * гистограммы с фиксированными корзинами: запись события ничего не выделяет
+ * и не берёт замков. Блок заводится один раз, при первом событии.
+ */
+final class AdStats {
+    // Верхние границы корзин, мс. Последняя корзина - всё, что дольше.
+    private static final long[] BUCKET_BOUNDS_MS = {
+        50, 100, 250, 500, 1000, 2000, 5000, 10000, 30000, 60000
+    };
+
+    /** Время для замеров: идёт и во сне устройства, в отличие от uptimeMillis. */
+    static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    private final Map<String, Unit> banner = new ConcurrentHashMap<>();
+    private final Map<String, Unit> interstitial = new ConcurrentHashMap<>();
+    private final Map<String, Unit> rewarded = new ConcurrentHashMap<>();
+    private volatile long resetAt = now();
+    // Проходы плагина по главному потоку: сколько их было и сколько они его
+    // заняли. В наносекундах - проход обычно короче миллисекунды.
+    private final LongAdder mainThreadPasses = new LongAdder();
+    private final LongAdder mainThreadNanos = new LongAdder();
+    private final LongAccumulator mainThreadMaxNanos = new LongAccumulator(Math::max, 0);
+
+    // MARK: - Загрузка
+
+    void loadStarted(String adType, String adUnitId) {
+        unit(adType, adUnitId).loads.increment();
+    }
+
+    /** Ответ ступени index загрузки load: заполнение. */
+    /** false - ступень уже ответила или её засчитал таймаут: замер не пишем. */
+    boolean loadFilled(AdLoad load, int index) {
+        if (!load.markAnswered(index)) return false;
+        Unit unit = unit(load.adType, load.plan.adUnitIds.get(index));
+        unit.fills.increment();
+        unit.loadLatency.record(now() - load.startedAt);
+        return true;
+    }
+
+    void loadFailed(AdLoad load, int index) {
+        if (!load.markAnswered(index)) return;
+        unit(load.adType, load.plan.adUnitIds.get(index)).failures.increment();
+    }
+
+    /** Срок загрузки вышел: таймаут у каждой ступени, что так и не ответила. */
+    void loadTimedOut(AdLoad load) {
+        for (int i = 0; i < load.plan.adUnitIds.size(); i++) {
+            if (load.markAnswered(i)) unit(load.adType, load.plan.adUnitIds.get(i)).timeouts.increment();
+        }
+    }
+
+    // MARK: - Показ
+
+    void showStarted(String adType, String adUnitId) {
+        unit(adType, adUnitId).shows.increment();
+    }
+
+    void showFailed(String adType, String adUnitId) {
+        unit(adType, adUnitId).showFailures.increment();
+    }
+
+    void shown(String adType, String adUnitId, long showStartedAt) {
+        unit(adType, adUnitId).showLatency.record(now() - showStartedAt);
+    }
+
+    /** showStartedAt <= 0 - показ не наш (баннер), считаем только событие. */
+    void impression(String adType, String adUnitId, long showStartedAt) {
+        Unit unit = unit(adType, adUnitId);
+        unit.impressions.increment();
+        if (showStartedAt > 0) unit.impressionLatency.record(now() - showStartedAt);
+    }
+
+    void dismissed(String adType, String adUnitId, long shownAt) {
+        if (shownAt <= 0) return;
+        unit(adType, adUnitId).displayDuration.record(now() - shownAt);
+    }
+
+    /** Готовое объявление выброшено под давлением памяти. */
+    void evicted(String adType, String adUnitId) {
+        unit(adType, adUnitId).evictions.increment();
+    }
+
+    // MARK: - Главный поток
+
+    /** Проход плагина по главному потоку длиной nanos. */
+    void mainThreadPass(long nanos) {
+        mainThreadPasses.increment();
+        mainThreadNanos.add(nanos);
+        mainThreadMaxNanos.accumulate(nanos);
+    }
+
+    // MARK: - Снимок
+
+    /**
+     * Снимок не атомарен: события, пришедшие во время обхода, попадут в него
+     * частично. Для статистики это неважно, а замок на каждое событие - важно.
+     */
+    @NonNull
+    JSObject snapshot() {
+        JSObject ret = new JSObject();
+        ret.put("periodMs", now() - resetAt);
+        ret.put("banner", snapshot(banner));
+        ret.put("interstitial", snapshot(interstitial));
+        ret.put("rewarded", snapshot(rewarded));
+        JSObject mainThread = new JSObject();
+        mainThread.put("passes", mainThreadPasses.sum());
+        mainThread.put("totalMs", mainThreadNanos.sum() / 1e6);
+        mainThread.put("maxMs", mainThreadMaxNanos.get() / 1e6);
+        ret.put("mainThread", mainThread);
+        return ret;
+    }
+
+    /**
+     * Блоки выбрасываются целиком: событие, которое пишет в старый блок
+     * прямо сейчас, просто потеряется.
+     */
+    void reset() {
+        banner.clear();
+        interstitial.clear();
+        rewarded.clear();
+        mainThreadPasses.reset();
+        mainThreadNanos.reset();
+        mainThreadMaxNanos.reset();
+        resetAt = now();
+    }
+
+    private static JSObject snapshot(Map<String, Unit> units) {
+        JSObject ret = new JSObject();
+        for (Map.Entry<String, Unit> e : units.entrySet()) ret.put(e.getKey(), e.getValue().snapshot());
+        return ret;
+    }
+
+    private Unit unit(String adType, String adUnitId) {
+        Map<String, Unit> units;
+        switch (adType) {
+            case "interstitial":
+                units = interstitial;
+                break;
+            case "rewarded":
+                units = rewarded;
+                break;
+            default:
+                units = banner;
+                break;
+        }
+        // get до computeIfAbsent: у ConcurrentHashMap тот блокирует корзину
+        // даже для существующего ключа.
+        Unit unit = units.get(adUnitId);
+        return unit != null ? unit : units.computeIfAbsent(adUnitId, k -> new Unit());
+    }
+
+    private static final class Unit {
+        final LongAdder loads = new LongAdder();
+        final LongAdder fills = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder shows = new LongAdder();
+        final LongAdder showFailures = new LongAdder();
+        final LongAdder impressions = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        // Запрос -> onAdLoaded.
+        final Histogram loadLatency = new Histogram();
+        // show() -> onAdShown.
+        final Histogram showLatency = new Histogram();
+        // show() -> onAdImpression.
+        final Histogram impressionLatency = new Histogram();
+        // onAdShown -> onAdDismissed: сколько игрок провёл в рекламе.
+        final Histogram displayDuration = new Histogram();
+
+        JSObject snapshot() {
+            long loadCount = loads.sum();
+            long fillCount = fills.sum();
+            long timeoutCount = timeouts.sum();
+            JSObject ret = new JSObject();
+            ret.put("loads", loadCount);
+            ret.put("fills", fillCount);
+            ret.put("failures", failures.sum());
+            ret.put("timeouts", timeoutCount);
+            ret.put("fillRate", loadCount > 0 ? (double) fillCount / loadCount : 0);
+            ret.put("timeoutRate", loadCount > 0 ? (double) timeoutCount / loadCount : 0);
+            ret.put("shows", shows.sum());
+            ret.put("showFailures", showFailures.sum());
+            ret.put("impressions", impressions.sum());
+            ret.put("evictions", evictions.sum());
+            ret.put("loadMs", loadLatency.snapshot());
+            ret.put("showMs", showLatency.snapshot());
+            ret.put("impressionMs", impressionLatency.snapshot());
+            ret.put("displayMs", displayDuration.snapshot());
+            return ret;
+        }
+    }
+
+    /**
+     * Гистограмма с корзинами BUCKET_BOUNDS_MS. Перцентили - верхняя граница
+     * корзины, в которую попал, то есть оценка сверху; для последней корзины -
+     * максимум.
+     */
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void record(long valueMs) {
+            long value = Math.max(0, valueMs);
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MS.length && value > BUCKET_BOUNDS_MS[i]) i++;
+            buckets[i].increment();
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        JSObject snapshot() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long maxValue = max.get();
+            JSObject ret = new JSObject();
+            ret.put("count", total);
+            if (total == 0) return ret;
+            ret.put("avg", sum.sum() / Math.max(1, count.sum()));
+            ret.put("p50", percentile(counts, total, 0.5, maxValue));
+            ret.put("p90", percentile(counts, total, 0.9, maxValue));
+            ret.put("max", maxValue);
+            return ret;
+        }
+
+        private static long percentile(long[] counts, long total, double q, long maxValue) {
+            long rank = (long) Math.ceil(total * q);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxValue) : maxValue;
+            }
+            return maxValue;
+        }
+    }
+}
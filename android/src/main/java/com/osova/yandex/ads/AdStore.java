@@ -0,0 +1,161 @@
+package com.osova.yandex.ads;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.yandex.mobile.ads.interstitial.InterstitialAd;
+import com.yandex.mobile.ads.rewarded.RewardedAd;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Загруженные объявления, пережившие свой экземпляр плагина.
+ *
+ * Пересоздание activity (смена конфигурации, возврат из фона после убийства
+ * activity системой) пересоздаёт мост, а с ним и плагин. Раньше
+ * releaseAll() выбрасывал весь готовый инвентарь, и первый показ после
+ * этого ждал новой загрузки. Теперь уходящий плагин паркует объявления
+ * здесь, а следующий забирает их при load(): InterstitialAd и RewardedAd к
+ * activity не привязаны - она передаётся только в show(). Баннер не
+ * паркуется: BannerAdView - вью, созданная на контексте старой activity.
+ *
+ * Хранилище живёт, пока жив процесс. Пока объявления никто не забрал, их
+ * срок жизни отслеживает оно само - одним сообщением главного looper'а на
+ * ближайший срок, без ссылок на плагин и activity.
+ *
+ * Срок считается по elapsedRealtime, а looper ждёт по uptimeMillis, который
+ * в глубоком сне стоит: одна задержка "до срока" после сна сработала бы
+ * позже срока на всё время сна. Поэтому сообщение ставится не дальше
+ * SWEEP_STEP_MS и каждый раз заново сверяется со временем, а возврат
+ * activity (sweepNow) проверяет сроки сразу. Надёжная точка всё равно
+ * одна - take*: просроченное оттуда не уходит.
+ */
+final class AdStore {
+
+    /** Объявление на парковке: с чем оно было в кеше плагина. */
+    static final class Parked<T> {
+        final String adUnitId;
+        final T ad;
+        final long loadedAt;
+        final long ttlMs;
+        // Сколько объявлений блока держал кеш: иначе новый плагин со своим
+        // значением по умолчанию вытеснил бы лишние сразу при возврате.
+        final int maxPerUnit;
+
+        Parked(String adUnitId, T ad, long loadedAt, long ttlMs, int maxPerUnit) {
+            this.adUnitId = adUnitId;
+            this.ad = ad;
+            this.loadedAt = loadedAt;
+            this.ttlMs = ttlMs;
+            this.maxPerUnit = maxPerUnit;
+        }
+
+        long expiresAt() {
+            return loadedAt + ttlMs;
+        }
+    }
+
+    // Шаг проверки сроков по часам looper'а: дольше этого просроченное после
+    // сна не лежит.
+    private static final long SWEEP_STEP_MS = 60 * 1000;
+
+    private static final AdStore INSTANCE = new AdStore();
+
+    static AdStore get() {
+        return INSTANCE;
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable sweep = this::sweep;
+    // В порядке от наименее востребованного блока: так кеш нового плагина
+    // восстановит и порядок вытеснения.
+    private final List<Parked<InterstitialAd>> interstitials = new ArrayList<>();
+    @Nullable
+    private Parked<RewardedAd> rewarded;
+    // Блок последней загрузки - его показывает showInterstitial() без adUnitId.
+    @Nullable
+    private String lastInterstitialAdUnitId;
+
+    private AdStore() {
+    }
+
+    /** Паркует interstitial в порядке от наименее востребованного блока. */
+    synchronized void parkInterstitials(@NonNull List<Parked<InterstitialAd>> parked,
+                                        @Nullable String lastAdUnitId) {
+        interstitials.addAll(parked);
+        if (lastAdUnitId != null) lastInterstitialAdUnitId = lastAdUnitId;
+        scheduleSweep();
+    }
+
+    synchronized void parkRewarded(@NonNull Parked<RewardedAd> parked) {
+        // Слот один: прежний паркованный ролик старше - освобождаем его.
+        if (rewarded != null) rewarded.ad.setAdEventListener(null);
+        rewarded = parked;
+        scheduleSweep();
+    }
+
+    /** Забирает паркованные interstitial; просроченные уже освобождены. */
+    @NonNull
+    synchronized List<Parked<InterstitialAd>> takeInterstitials() {
+        dropExpired(AdStats.now());
+        List<Parked<InterstitialAd>> taken = new ArrayList<>(interstitials);
+        interstitials.clear();
+        scheduleSweep();
+        return taken;
+    }
+
+    @Nullable
+    synchronized String takeLastInterstitialAdUnitId() {
+        String adUnitId = lastInterstitialAdUnitId;
+        lastInterstitialAdUnitId = null;
+        return adUnitId;
+    }
+
+    @Nullable
+    synchronized Parked<RewardedAd> takeRewarded() {
+        dropExpired(AdStats.now());
+        Parked<RewardedAd> taken = rewarded;
+        rewarded = null;
+        scheduleSweep();
+        return taken;
+    }
+
+    /** Activity вернулась - возможно, после сна: сроки проверяются сразу. */
+    void sweepNow() {
+        sweep();
+    }
+
+    private synchronized void sweep() {
+        dropExpired(AdStats.now());
+        scheduleSweep();
+    }
+
+    private void dropExpired(long now) {
+        Iterator<Parked<InterstitialAd>> it = interstitials.iterator();
+        while (it.hasNext()) {
+            Parked<InterstitialAd> parked = it.next();
+            if (parked.expiresAt() > now) continue;
+            parked.ad.setAdEventListener(null);
+            it.remove();
+        }
+        if (rewarded != null && rewarded.expiresAt() <= now) {
+            rewarded.ad.setAdEventListener(null);
+            rewarded = null;
+        }
+    }
+
+    /** Одно сообщение на ближайший срок; пусто - сообщения нет. */
+    private void scheduleSweep() {
+        handler.removeCallbacks(sweep);
+        long earliest = Long.MAX_VALUE;
+        for (Parked<InterstitialAd> parked : interstitials) earliest = Math.min(earliest, parked.expiresAt());
+        if (rewarded != null) earliest = Math.min(earliest, rewarded.expiresAt());
+        if (earliest == Long.MAX_VALUE) return;
+        handler.postDelayed(sweep, Math.max(0, Math.min(SWEEP_STEP_MS, earliest - AdStats.now())));
+    }
+}
@@ -0,0 +1,92 @@
+package com.osova.yandex.ads;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Таймер автообновления баннера, который знает, видит ли баннер кто-нибудь.
+ *
+ * Причины паузы складываются битами: скрыт игрой, activity на паузе, поверх
+ * идёт полноэкранная реклама, нет сети. Пока есть хоть одна, таймер стоит; когда
+ * снята последняя, он дотикивает остаток интервала, а не начинает новый -
+ * иначе частые паузы (каждый rewarded) отодвигали бы обновление бесконечно.
+ *
+ * Только для главного потока: все вызовы идут из раннаблов UI-потока и
+ * колбэков жизненного цикла, поэтому замков здесь нет.
+ */
+final class BannerRefreshScheduler {
+    static final int PAUSE_HIDDEN = 1;
+    static final int PAUSE_ACTIVITY = 1 << 1;
+    static final int PAUSE_INTERSTITIAL = 1 << 2;
+    static final int PAUSE_REWARDED = 1 << 3;
+    static final int PAUSE_OFFLINE = 1 << 4;
+
+    private final Handler handler;
+    private final Runnable onRefresh;
+    private final Runnable tick = this::fire;
+
+    private long intervalMs = 0;
+    private long remainingMs = 0;
+    // Момент (uptimeMillis), когда тикнет поставленная задача; 0 - не стоит.
+    private long dueAt = 0;
+    // Баннер появляется скрытым и ждёт showBanner - значит, и таймер тоже.
+    private int pauseReasons = PAUSE_HIDDEN;
+
+    BannerRefreshScheduler(@NonNull Handler handler, @NonNull Runnable onRefresh) {
+        this.handler = handler;
+        this.onRefresh = onRefresh;
+    }
+
+    /** Запускает обновление с полным интервалом; 0 - выключает. */
+    void start(long intervalMs) {
+        cancelTick();
+        this.intervalMs = Math.max(0, intervalMs);
+        this.remainingMs = this.intervalMs;
+        scheduleIfRunning();
+    }
+
+    void stop() {
+        cancelTick();
+        intervalMs = 0;
+        remainingMs = 0;
+    }
+
+    boolean isEnabled() {
+        return intervalMs > 0;
+    }
+
+    void pause(int reason) {
+        boolean wasRunning = pauseReasons == 0;
+        pauseReasons |= reason;
+        if (!wasRunning || dueAt == 0) return;
+        remainingMs = Math.max(0, dueAt - SystemClock.uptimeMillis());
+        cancelTick();
+    }
+
+    void resume(int reason) {
+        if ((pauseReasons & reason) == 0) return;
+        pauseReasons &= ~reason;
+        scheduleIfRunning();
+    }
+
+    private void scheduleIfRunning() {
+        if (intervalMs <= 0 || pauseReasons != 0 || dueAt != 0) return;
+        dueAt = SystemClock.uptimeMillis() + remainingMs;
+        handler.postDelayed(tick, remainingMs);
+    }
+
+    private void fire() {
+        dueAt = 0;
+        remainingMs = intervalMs;
+        onRefresh.run();
+        scheduleIfRunning();
+    }
+
+    private void cancelTick() {
+        if (dueAt == 0) return;
+        handler.removeCallbacks(tick);
+        dueAt = 0;
+    }
+}
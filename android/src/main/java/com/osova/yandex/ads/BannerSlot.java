@@ -0,0 +1,78 @@
+package com.osova.yandex.ads;
+
+import android.os.Handler;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Один баннер из реестра плагина - со своим контейнером, позицией,
+ * видимостью, загрузкой и расписанием обновления.
+ *
+ * Раньше баннер был один на плагин, и второй loadBanner вытеснял первый, а
+ * экранам магазина и лобби нужны верхний и нижний баннер сразу плюс
+ * прогретый для следующего экрана. Теперь баннеры различаются bannerId,
+ * который задаёт игра; без него - DEFAULT_ID, и старый код работает как раньше.
+ *
+ * Здесь только состояние: логика загрузки и показа - в плагине, общая для
+ * всех баннеров. Загрузка и передний буфер с его блоком и временем - один
+ * снимок AdSlot. Остальные поля читают поток моста и UI-поток, поэтому
+ * volatile; пишет их только UI-поток, кроме spec и position - их ставят
+ * опции вызова.
+ */
+final class BannerSlot {
+
+    static final String DEFAULT_ID = "default";
+
+    /** Тик расписания обновления этого баннера. */
+    interface RefreshAction {
+        void refresh(@NonNull BannerSlot slot);
+    }
+
+    /** Что грузить в баннер: блок и размер из loadBanner. */
+    static final class Spec {
+        final String adUnitId;
+        final int width;
+        @Nullable
+        final Integer height;
+
+        Spec(String adUnitId, int width, @Nullable Integer height) {
+            this.adUnitId = adUnitId;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    final String id;
+    // Два буфера: передний - загруженный баннер на экране, готовое
+    // объявление слота state; backView - следующий, который грузится под ним
+    // невидимым. Перезагрузка не оставляет пустое место до onAdLoaded:
+    // буферы меняются местами за один проход UI-потока.
+    final AdSlot<AdBackend.Banner> state = new AdSlot<>();
+    volatile AdBackend.Banner backView;
+    // Свой контейнер у каждого баннера: у каждого своя позиция на экране.
+    // FrameLayout, а не LinearLayout: задний буфер лежит под передним и
+    // измеряется по-настоящему, но не сдвигает видимый баннер. Заводится
+    // при первой загрузке.
+    volatile FrameLayout layout;
+    // Что просила игра - показать или скрыть. Новый креатив при смене буферов
+    // наследует это состояние, а showBanner() во время первой загрузки
+    // срабатывает в момент её окончания.
+    volatile boolean isVisible = false;
+    volatile String position = "bottom";
+    // Параметры последнего loadBanner - по ним обновление по расписанию
+    // повторяет запрос без участия JS.
+    volatile Spec spec;
+    // Выброшен под давлением памяти и вернётся после отбоя - видимым, если был.
+    volatile boolean isEvicted = false;
+    volatile boolean wasEvictedVisible = false;
+
+    // Стартует на паузе "скрыт": до showBanner баннер никто не видит.
+    final BannerRefreshScheduler refresh;
+
+    BannerSlot(@NonNull String id, @NonNull Handler handler, @NonNull RefreshAction onRefresh) {
+        this.id = id;
+        this.refresh = new BannerRefreshScheduler(handler, () -> onRefresh.refresh(this));
+    }
+}
@@ -0,0 +1,102 @@
+package com.osova.yandex.ads;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Build;
+import android.os.Handler;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Сеть по умолчанию из ConnectivityManager. "Есть сеть" - у сети по
+ * умолчанию есть интернет и она прошла проверку системы: подключённый
+ * Wi-Fi без выхода наружу (метро, портал авторизации) для SDK та же
+ * пустота, что и авиарежим.
+ *
+ * registerDefaultNetworkCallback - с API 24; ниже источник всегда "в сети",
+ * и загрузки идут, как шли. Колбэки ConnectivityManager приходят на его
+ * поток - слушателю они передаются через главный.
+ */
+final class ConnectivitySource implements NetworkSource {
+    private static final String TAG = "YandexAds";
+
+    @Nullable
+    private final ConnectivityManager manager;
+    private final Handler handler;
+    private volatile boolean isOnline = true;
+    @Nullable
+    private volatile Listener listener;
+    private boolean isRegistered = false;
+
+    private final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+            post(isValidated(capabilities));
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            post(false);
+        }
+    };
+
+    ConnectivitySource(@NonNull Context context, @NonNull Handler handler) {
+        this.manager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.handler = handler;
+    }
+
+    @Override
+    public boolean isOnline() {
+        return isOnline;
+    }
+
+    @Override
+    public void start(@NonNull Listener listener) {
+        this.listener = listener;
+        if (manager == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) return;
+        try {
+            // Колбэк о текущей сети придёт не сразу - до него берём её сами,
+            // иначе первые загрузки после старта офлайн ушли бы в SDK.
+            Network active = manager.getActiveNetwork();
+            NetworkCapabilities capabilities = active != null ? manager.getNetworkCapabilities(active) : null;
+            isOnline = capabilities != null && isValidated(capabilities);
+            manager.registerDefaultNetworkCallback(callback);
+            isRegistered = true;
+        } catch (RuntimeException e) {
+            // SecurityException без ACCESS_NETWORK_STATE или лимит колбэков
+            // процесса: не знаем - значит, грузим.
+            Log.w(TAG, "Network state unavailable: " + e.getMessage());
+            isOnline = true;
+        }
+    }
+
+    @Override
+    public void stop() {
+        listener = null;
+        if (!isRegistered) return;
+        isRegistered = false;
+        try {
+            manager.unregisterNetworkCallback(callback);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Network callback already unregistered: " + e.getMessage());
+        }
+    }
+
+    private void post(boolean online) {
+        handler.post(() -> {
+            Listener current = listener;
+            if (current == null || isOnline == online) return;
+            isOnline = online;
+            current.onNetworkChanged(online);
+        });
+    }
+
+    private static boolean isValidated(@NonNull NetworkCapabilities capabilities) {
+        return capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+            && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+    }
+}
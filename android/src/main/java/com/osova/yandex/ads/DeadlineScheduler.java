@@ -0,0 +1,118 @@
+package com.osova.yandex.ads;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Сроки всех сторожей плагина на одном сообщении главного looper'а.
+ *
+ * Раньше каждый сторож был своим postDelayed с замыканием, и снять его при
+ * обычном ответе было нечем: за активную сессию в очереди копились мёртвые
+ * сообщения, а сторожа показа ещё пять минут держали плагин и через него
+ * activity. Здесь срок привязан к ключу - загрузке, вызову, объявлению - и
+ * снимается вместе с ответом, а в looper стоит одно сообщение на ближайший
+ * срок из оставшихся.
+ *
+ * Ключи сравниваются по ссылке, как и везде в плагине: два вызова с
+ * одинаковыми данными - разные вызовы. Ставят сроки и с потока моста, и с
+ * UI-потока, поэтому всё под монитором; сами действия выполняются уже после
+ * выхода из него.
+ */
+final class DeadlineScheduler {
+
+    private static final class Deadline {
+        final Object key;
+        final long dueAt;
+        // Порядок постановки: сроки на одну миллисекунду срабатывают по очереди.
+        final long seq;
+        final Runnable action;
+
+        Deadline(Object key, long dueAt, long seq, Runnable action) {
+            this.key = key;
+            this.dueAt = dueAt;
+            this.seq = seq;
+            this.action = action;
+        }
+    }
+
+    private final Handler handler;
+    private final Runnable fire = this::fire;
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>(16, (a, b) -> {
+        int byTime = Long.compare(a.dueAt, b.dueAt);
+        return byTime != 0 ? byTime : Long.compare(a.seq, b.seq);
+    });
+    private final Map<Object, Deadline> byKey = new IdentityHashMap<>();
+    private long nextSeq = 0;
+    // На какой момент (uptimeMillis) стоит сообщение в looper; 0 - не стоит.
+    private long postedFor = 0;
+
+    DeadlineScheduler(@NonNull Handler handler) {
+        this.handler = handler;
+    }
+
+    /** Ставит срок ключу; прежний срок того же ключа снимается. */
+    synchronized void schedule(@NonNull Object key, long delayMs, @NonNull Runnable action) {
+        Deadline previous = byKey.remove(key);
+        if (previous != null) queue.remove(previous);
+        Deadline deadline = new Deadline(key, SystemClock.uptimeMillis() + delayMs, nextSeq++, action);
+        byKey.put(key, deadline);
+        queue.add(deadline);
+        repost();
+    }
+
+    /** Снимает срок ключа, если он ещё стоит; null - ничего. */
+    synchronized void cancel(@Nullable Object key) {
+        if (key == null) return;
+        Deadline deadline = byKey.remove(key);
+        if (deadline == null) return;
+        queue.remove(deadline);
+        repost();
+    }
+
+    /** Снимает все сроки, не выполняя их: плагин разобран. */
+    synchronized void clear() {
+        queue.clear();
+        byKey.clear();
+        handler.removeCallbacks(fire);
+        postedFor = 0;
+    }
+
+    /** Переставляет сообщение looper'а на ближайший срок; без сроков - убирает. */
+    private void repost() {
+        Deadline first = queue.peek();
+        if (first == null) {
+            if (postedFor != 0) handler.removeCallbacks(fire);
+            postedFor = 0;
+            return;
+        }
+        if (postedFor == first.dueAt) return;
+        if (postedFor != 0) handler.removeCallbacks(fire);
+        handler.postAtTime(fire, first.dueAt);
+        postedFor = first.dueAt;
+    }
+
+    private void fire() {
+        List<Runnable> due = new ArrayList<>();
+        synchronized (this) {
+            postedFor = 0;
+            long now = SystemClock.uptimeMillis();
+            while (!queue.isEmpty() && queue.peek().dueAt <= now) {
+                Deadline deadline = queue.poll();
+                byKey.remove(deadline.key);
+                due.add(deadline.action);
+            }
+            repost();
+        }
+        // Действие само отвечает на вызов и может ставить или снимать сроки.
+        for (Runnable action : due) action.run();
+    }
+}
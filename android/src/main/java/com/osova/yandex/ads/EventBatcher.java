@@ -0,0 +1,121 @@
+package com.osova.yandex.ads;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Пакетная доставка событий adEvent в JS.
+ *
+ * Один показ rewarded - это shown, impression, rewarded, clicked, dismissed:
+ * пять сообщений через мост, каждое сериализуется в JSON и исполняется в
+ * WebView как раз тогда, когда игра возвращает себе кадр. В пакетном режиме
+ * события копятся и уходят одним массивом - раз в кадр (Choreographer) или
+ * раз в intervalMs. Срочное событие (награда) уходит сразу, вместе со всем,
+ * что накопилось до него, - порядок событий не нарушается.
+ *
+ * Разбирается буфер только через flusher - в плагине это поток outbound,
+ * тот же, что кладёт события и отвечает на вызовы. Кадр и таймер лишь
+ * ставят туда задачу: пакет, снятый на главном потоке, встал бы в очередь
+ * позади уже поставленного ответа на loadX и пришёл бы после него.
+ * Настройка приходит с потока моста, поэтому состояние под монитором;
+ * отдаёт пакет sink уже вне его.
+ */
+final class EventBatcher {
+
+    interface Sink {
+        void deliver(@NonNull JSArray events);
+    }
+
+    private final Handler handler;
+    private final Executor flusher;
+    private final Sink sink;
+    private final Runnable flushTask = this::requestFlush;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> requestFlush();
+    // Choreographer привязан к потоку: кадровый колбэк ставим только с главного.
+    private final Runnable postFrame = () -> Choreographer.getInstance().postFrameCallback(frameCallback);
+
+    private JSArray buffer = new JSArray();
+    private boolean isEnabled = false;
+    // 0 - раз в кадр.
+    private long intervalMs = 0;
+    private boolean isScheduled = false;
+
+    EventBatcher(@NonNull Handler handler, @NonNull Executor flusher, @NonNull Sink sink) {
+        this.handler = handler;
+        this.flusher = flusher;
+        this.sink = sink;
+    }
+
+    /** Включает или выключает пакетный режим; при выключении накопленное уходит сразу. */
+    void configure(boolean enabled, long intervalMs) {
+        synchronized (this) {
+            this.isEnabled = enabled;
+            this.intervalMs = Math.max(0, intervalMs);
+        }
+        if (!enabled) requestFlush();
+    }
+
+    /**
+     * Кладёт событие в пакет. false - пакетный режим выключен, и событие
+     * вызывающий отправляет сам, как раньше.
+     */
+    boolean offer(@NonNull JSObject event, boolean isUrgent) {
+        JSArray ready = null;
+        synchronized (this) {
+            if (!isEnabled) return false;
+            buffer.put(event);
+            if (isUrgent) {
+                ready = takeBuffer();
+            } else if (!isScheduled) {
+                isScheduled = true;
+                schedule();
+            }
+        }
+        if (ready != null) sink.deliver(ready);
+        return true;
+    }
+
+    /**
+     * Отдаёт накопленное сейчас: activity уходит на паузу, плагин
+     * разбирается, вызову пора ответить. Только на потоке flusher.
+     */
+    void flush() {
+        JSArray ready;
+        synchronized (this) {
+            isScheduled = false;
+            ready = takeBuffer();
+        }
+        if (ready != null) sink.deliver(ready);
+    }
+
+    private void requestFlush() {
+        flusher.execute(this::flush);
+    }
+
+    private void schedule() {
+        if (intervalMs > 0) {
+            handler.postDelayed(flushTask, intervalMs);
+        } else if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame.run();
+        } else {
+            handler.post(postFrame);
+        }
+    }
+
+    @Nullable
+    private JSArray takeBuffer() {
+        if (buffer.length() == 0) return null;
+        JSArray ready = buffer;
+        buffer = new JSArray();
+        return ready;
+    }
+}
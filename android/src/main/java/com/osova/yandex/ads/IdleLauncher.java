@@ -0,0 +1,57 @@
+package com.osova.yandex.ads;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Запуск действия в первый простой главного потока - для init() в режиме
+ * "idle".
+ *
+ * На холодном старте главный поток занят WebView и движком игры, и
+ * инициализация SDK с адаптерами медиации отнимала бы процессор у первых
+ * кадров. Очередь главного потока пустеет, когда первые кадры отрисованы и
+ * старт разобран, - тогда и срабатывает IdleHandler. Не раньше delayMs,
+ * чтобы пропустить и сцену загрузки игры, и не позже maxWaitMs: игра с
+ * непрерывным циклом кадров может не давать простоя вовсе.
+ *
+ * Всё - на главном потоке: IdleHandler ставится в очередь того потока,
+ * откуда его добавили.
+ */
+final class IdleLauncher {
+
+    private IdleLauncher() {
+    }
+
+    /** Звать с главного потока; action выполнится там же ровно один раз. */
+    static void schedule(@NonNull Handler handler, long delayMs, long maxWaitMs, @NonNull Runnable action) {
+        AtomicBoolean isFired = new AtomicBoolean(false);
+        MessageQueue queue = Looper.myQueue();
+        MessageQueue.IdleHandler[] idle = { null };
+        Runnable fire = new Runnable() {
+            @Override
+            public void run() {
+                if (!isFired.compareAndSet(false, true)) return;
+                handler.removeCallbacks(this);
+                if (idle[0] != null) queue.removeIdleHandler(idle[0]);
+                action.run();
+            }
+        };
+        idle[0] = () -> {
+            fire.run();
+            return false;
+        };
+        if (delayMs > 0) {
+            handler.postDelayed(() -> {
+                if (!isFired.get()) queue.addIdleHandler(idle[0]);
+            }, delayMs);
+        } else {
+            queue.addIdleHandler(idle[0]);
+        }
+        handler.postDelayed(fire, Math.max(delayMs, maxWaitMs));
+    }
+}
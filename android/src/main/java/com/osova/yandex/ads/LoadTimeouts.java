@@ -0,0 +1,122 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Срок загрузки по блоку - из его недавних задержек, а не одна минута на все.
+ *
+ * Блок, который обычно заполняется за секунду, при потерянном колбэке
+ * держал бы кнопку "смотреть рекламу" целую минуту. Поэтому на блок
+ * хранится окно последних WINDOW задержек, и срок - их p99 с запасом
+ * margin, зажатый в [minMs, maxMs]. Пока замеров меньше MIN_SAMPLES, срок -
+ * maxMs: по паре загрузок хвост не оценить.
+ *
+ * Таймаут тоже пишется в окно - прошедшим временем: иначе окно видело бы
+ * только то, что успело, и срок не рос бы, когда сеть стала медленнее.
+ * Пишут колбэки SDK и сторожа на UI-потоке, читает начало загрузки с потока
+ * моста - окно под своим монитором, запись редкая.
+ */
+final class LoadTimeouts {
+    static final long DEFAULT_MIN_MS = 5 * 1000;
+    static final double DEFAULT_MARGIN = 1.5;
+    // Ниже секунды не ответит и здоровый блок: это уже не срок, а отказ.
+    static final long FLOOR_MS = 1000;
+    private static final int WINDOW = 100;
+    private static final int MIN_SAMPLES = 20;
+    private static final double QUANTILE = 0.99;
+
+    private final long ceilingMs;
+    private final Map<String, Window> units = new ConcurrentHashMap<>();
+    private volatile boolean isAdaptive = true;
+    private volatile long minMs;
+    private volatile long maxMs;
+    private volatile double margin = DEFAULT_MARGIN;
+
+    /** ceilingMs - потолок срока, его же maxMs по умолчанию. */
+    LoadTimeouts(long ceilingMs) {
+        this.ceilingMs = ceilingMs;
+        this.minMs = Math.min(DEFAULT_MIN_MS, ceilingMs);
+        this.maxMs = ceilingMs;
+    }
+
+    /** Границы из init(); null - прежнее значение. Окна не сбрасываются. */
+    void configure(@Nullable Boolean adaptive, @Nullable Long min, @Nullable Long max, @Nullable Double marginValue) {
+        if (adaptive != null) isAdaptive = adaptive;
+        long newMax = max != null ? clamp(max, FLOOR_MS, ceilingMs) : maxMs;
+        long newMin = min != null ? clamp(min, FLOOR_MS, ceilingMs) : minMs;
+        maxMs = newMax;
+        minMs = Math.min(newMin, newMax);
+        if (marginValue != null && marginValue >= 1) margin = marginValue;
+    }
+
+    /** Срок загрузки группы: ступени идут параллельно, ждём самую медленную. */
+    long timeoutMs(@NonNull List<String> adUnitIds) {
+        long timeout = 0;
+        for (String adUnitId : adUnitIds) timeout = Math.max(timeout, timeoutMs(adUnitId));
+        return timeout;
+    }
+
+    long timeoutMs(@NonNull String adUnitId) {
+        long max = maxMs;
+        if (!isAdaptive) return max;
+        Window window = units.get(adUnitId);
+        long p = window != null ? window.quantile(QUANTILE) : -1;
+        if (p < 0) return max;
+        return clamp((long) Math.ceil(p * margin), Math.min(minMs, max), max);
+    }
+
+    /**
+     * Ступень index заполнилась до срока. Звать, только если AdStats.loadFilled
+     * засчитал ответ: после срока ступень уже записана timedOut, и второй
+     * замер того же ответа сдвинул бы p99.
+     */
+    void filled(@NonNull AdLoad load, int index) {
+        record(load.plan.adUnitIds.get(index), AdStats.now() - load.startedAt);
+    }
+
+    /** Срок вышел: ступени без ответа пишут прошедшее время. Вызывать до AdStats.loadTimedOut. */
+    void timedOut(@NonNull AdLoad load) {
+        long elapsed = AdStats.now() - load.startedAt;
+        for (int i = 0; i < load.plan.adUnitIds.size(); i++) {
+            if (!load.isAnswered(i)) record(load.plan.adUnitIds.get(i), elapsed);
+        }
+    }
+
+    private void record(String adUnitId, long latencyMs) {
+        Window window = units.get(adUnitId);
+        if (window == null) window = units.computeIfAbsent(adUnitId, k -> new Window());
+        window.add(Math.max(0, latencyMs));
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    /** Кольцо последних WINDOW задержек блока. */
+    private static final class Window {
+        private final long[] samples = new long[WINDOW];
+        private int count = 0;
+        private int next = 0;
+
+        synchronized void add(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % WINDOW;
+            if (count < WINDOW) count++;
+        }
+
+        /** -1 - замеров пока мало. */
+        synchronized long quantile(double q) {
+            if (count < MIN_SAMPLES) return -1;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(count * q);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.osova.yandex.ads;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Ступени давления памяти по сигналам onTrimMemory.
+ *
+ * Скрытый баннер и каждое готовое полноэкранное объявление держат свой
+ * креатив на WebView. Раньше плагин сигналы системы не слушал, и на слабых
+ * устройствах фоновый процесс игры убивался первым. Здесь уровень сигнала
+ * сводится к ступени, а плагин по ступени освобождает всё, что ниже неё по
+ * ценности:
+ *
+ * - TIER_HIDDEN: интерфейс скрыт - баннер, которого и так не видно;
+ * - TIER_CACHE: память кончается - ещё и готовые interstitial и загрузка
+ *   баннера в заднем буфере; rewarded остаётся: его ждёт кнопка награды;
+ * - TIER_ALL: процесс в фоне первый кандидат на убийство - всё.
+ *
+ * Отдельного сигнала "давление прошло" у системы нет. Считаем, что оно
+ * прошло, если RELIEF_DELAY_MS новых сигналов не было; тогда плагин грузит
+ * выброшенное заново. Сигналы и отбой - на главном потоке.
+ */
+final class MemoryPressure implements ComponentCallbacks2 {
+
+    static final int TIER_NONE = 0;
+    static final int TIER_HIDDEN = 1;
+    static final int TIER_CACHE = 2;
+    static final int TIER_ALL = 3;
+
+    // Сигналы идут пачками - на каждый процесс и каждую ступень; ждём, пока
+    // они утихнут, иначе выброшенное грузилось бы и тут же выбрасывалось.
+    private static final long RELIEF_DELAY_MS = 30 * 1000;
+
+    interface Listener {
+        /** Освободить всё до ступени tier включительно. */
+        void onEvict(int tier);
+
+        /** Давление прошло - можно грузить выброшенное. */
+        void onRelief();
+    }
+
+    /** Уровни onTrimMemory идут не по порядку строгости - сводим явно. */
+    static int tierFor(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) return TIER_ALL;
+        if (level >= TRIM_MEMORY_BACKGROUND) return TIER_CACHE;
+        if (level >= TRIM_MEMORY_UI_HIDDEN) return TIER_HIDDEN;
+        if (level >= TRIM_MEMORY_RUNNING_LOW) return TIER_CACHE;
+        return TIER_NONE;
+    }
+
+    private final Handler handler;
+    private final Listener listener;
+    private final Runnable relief = this::relieve;
+    private volatile int tier = TIER_NONE;
+
+    MemoryPressure(@NonNull Handler handler, @NonNull Listener listener) {
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    /** Текущая ступень: пока она держится, плагин сам ничего не грузит. */
+    int tier() {
+        return tier;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        int levelTier = tierFor(level);
+        if (levelTier == TIER_NONE) return;
+        tier = Math.max(tier, levelTier);
+        // Освобождаем и на повторном сигнале той же ступени: с прошлого
+        // могли догрузиться объявления, запрошенные из JS.
+        listener.onEvict(tier);
+        handler.removeCallbacks(relief);
+        handler.postDelayed(relief, RELIEF_DELAY_MS);
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    /** Плагин разобран: отбоя больше не будет. */
+    void stop() {
+        handler.removeCallbacks(relief);
+        tier = TIER_NONE;
+    }
+
+    private void relieve() {
+        tier = TIER_NONE;
+        listener.onRelief();
+    }
+}
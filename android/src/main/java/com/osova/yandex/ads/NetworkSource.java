@@ -0,0 +1,25 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Есть ли у устройства проверенная сеть - для планировщика загрузок.
+ *
+ * В приложении за ним стоит ConnectivitySource на ConnectivityManager, в
+ * тестах - подделка, которой сеть включают и выключают руками: политику
+ * "без сети не грузим" иначе не проверить без устройства в метро.
+ */
+interface NetworkSource {
+
+    interface Listener {
+        /** Сеть появилась или пропала; главный поток, только на смену. */
+        void onNetworkChanged(boolean isOnline);
+    }
+
+    /** Состояние неизвестно (старый API, сбой регистрации) - true: грузим, как раньше. */
+    boolean isOnline();
+
+    void start(@NonNull Listener listener);
+
+    void stop();
+}
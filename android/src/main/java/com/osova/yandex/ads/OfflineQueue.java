@@ -0,0 +1,95 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Загрузки, отложенные до возврата сети.
+ *
+ * Без сети loadX раньше всё равно уходил в SDK и минуту ждал сторожа, а
+ * игра тут же повторяла - в метро это крутило процессор и батарею впустую.
+ * Теперь вызов ждёт здесь и выполняется заново, как только сеть проверена.
+ *
+ * На слот - один вызов: загрузки одного слота и так вытесняют друг друга,
+ * и повторять каждую по очереди незачем - старый возвращается плагину,
+ * чтобы ответить ему отказом. Разбор - по приоритету слота (rewarded ждёт
+ * кнопка награды, баннер подождёт), внутри приоритета - по порядку прихода.
+ * Как и в PreInitQueue, забрать вызов можно ровно один раз.
+ */
+final class OfflineQueue {
+    static final int PRIORITY_REWARDED = 0;
+    static final int PRIORITY_INTERSTITIAL = 1;
+    static final int PRIORITY_PRELOAD = 2;
+    static final int PRIORITY_BANNER = 3;
+
+    static final class Entry {
+        final String slot;
+        final int priority;
+        final PluginCall call;
+        final PreInitQueue.Method method;
+
+        Entry(String slot, int priority, PluginCall call, PreInitQueue.Method method) {
+            this.slot = slot;
+            this.priority = priority;
+            this.call = call;
+            this.method = method;
+        }
+    }
+
+    // В порядке прихода; сортировка стабильна и его сохраняет.
+    private final List<Entry> entries = new ArrayList<>();
+    private final int capacity;
+
+    OfflineQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** Забирает вызов, ждущий слот slot; null - такого нет. */
+    @Nullable
+    synchronized PluginCall removeSlot(@NonNull String slot) {
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.slot.equals(slot)) {
+                it.remove();
+                return entry.call;
+            }
+        }
+        return null;
+    }
+
+    /** false - очередь полна, вызов не принят. */
+    synchronized boolean offer(@NonNull String slot, int priority, @NonNull PluginCall call,
+                               @NonNull PreInitQueue.Method method) {
+        if (entries.size() >= capacity) return false;
+        entries.add(new Entry(slot, priority, call, method));
+        return true;
+    }
+
+    /** false - вызов уже забрал drain() или remove(). */
+    synchronized boolean remove(@Nullable PluginCall call) {
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext()) {
+            if (it.next().call == call) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Забирает все вызовы по приоритету. */
+    synchronized List<Entry> drain() {
+        List<Entry> drained = new ArrayList<>(entries);
+        entries.clear();
+        Collections.sort(drained, (a, b) -> Integer.compare(a.priority, b.priority));
+        return drained;
+    }
+}
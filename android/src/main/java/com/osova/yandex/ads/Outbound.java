@@ -0,0 +1,63 @@
+package com.osova.yandex.ads;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Ответы на вызовы и события в JS - на своём фоновом потоке, а не на главном.
+ *
+ * Колбэки SDK приходят на UI-поток, и раньше там же собирались JSObject
+ * ответа и события и сериализовались в JSON для моста - на том же потоке,
+ * что рисует WebView игры. Мост Capacitor сам переправляет сообщение в
+ * WebView через её очередь, поэтому отвечать можно с любого потока. Поток
+ * здесь один: события и ответы уходят в JS в том порядке, в каком их отдали
+ * ("loaded" раньше ответа на loadX). Пакетный режим событий этот порядок
+ * не держит сам: событие ждёт в буфере, а не в очереди, - поэтому ответ
+ * удержанному вызову сначала отдаёт накопленный пакет.
+ *
+ * Задача, отданная с самого этого потока, выполняется сразу - иначе она
+ * встала бы в очередь позади тех, что пришли позже. После shutdown()
+ * поставленное доделывается, а новое выполняется на вызывающем потоке:
+ * ответ "Plugin destroyed" теряться не должен.
+ */
+final class Outbound {
+    private static final String TAG = "YandexAds";
+
+    private volatile Thread thread;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread created = new Thread(task, "YandexAds-outbound");
+        created.setDaemon(true);
+        thread = created;
+        return created;
+    });
+
+    void post(@NonNull Runnable task) {
+        if (Thread.currentThread() == thread) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                // Исключение на потоке исполнителя уронило бы процесс так же,
+                // как на главном, а ответ одного вызова того не стоит.
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Outbound task failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /** Плагин разобран: поставленное уходит, поток после этого завершается. */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,78 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Тела ответов и событий, которые уходят в JS.
+ *
+ * Собраны отдельно от плагина, чтобы их форма была в одном месте, а
+ * бенчмарки (benchmarks/) мерили ровно то, что строит плагин на каждом
+ * ответе, событии и опросе isXLoaded. Только JSObject и строки - ни SDK,
+ * ни Android.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    /** { success, message? } - ответ любого вызова. */
+    @NonNull
+    static JSObject result(boolean success, @Nullable String message) {
+        JSObject ret = new JSObject();
+        ret.put("success", success);
+        if (message != null) ret.put("message", message);
+        return ret;
+    }
+
+    /** Ответ isXLoaded: возраст - только у готового объявления. */
+    @NonNull
+    static JSObject loaded(boolean isLoaded, long ageMs) {
+        JSObject ret = new JSObject();
+        ret.put("loaded", isLoaded);
+        if (isLoaded) ret.put("ageMs", ageMs);
+        return ret;
+    }
+
+    @NonNull
+    static JSObject error(int code, @Nullable String message) {
+        JSObject errorObj = new JSObject();
+        errorObj.put("code", code);
+        errorObj.put("message", message == null ? "" : message);
+        return errorObj;
+    }
+
+    @NonNull
+    static JSObject reward(int amount, @Nullable String type) {
+        JSObject rewardObj = new JSObject();
+        rewardObj.put("amount", amount);
+        rewardObj.put("type", type);
+        return rewardObj;
+    }
+
+    /** Событие adEvent; bannerId - только у баннеров. */
+    @NonNull
+    static JSObject event(@NonNull String adType, @NonNull String event, @Nullable String adUnitId,
+                          @Nullable JSObject error, @Nullable JSObject reward, @Nullable String bannerId) {
+        JSObject eventData = new JSObject();
+        eventData.put("adType", adType);
+        eventData.put("event", event);
+
+        if (adUnitId != null) eventData.put("adUnitId", adUnitId);
+        if (bannerId != null) eventData.put("bannerId", bannerId);
+        if (error != null) eventData.put("error", error);
+        if (reward != null) eventData.put("reward", reward);
+        return eventData;
+    }
+
+    /** Событие timeout: загрузка не уложилась в срок своих блоков. */
+    @NonNull
+    static JSObject timeout(@NonNull String adType, @Nullable String adUnitId, long timeoutMs,
+                            @Nullable String bannerId) {
+        JSObject eventData = event(adType, "timeout", adUnitId, null, null, bannerId);
+        eventData.put("timeoutMs", timeoutMs);
+        return eventData;
+    }
+}
@@ -0,0 +1,76 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Вызовы методов, пришедшие до окончания инициализации SDK.
+ *
+ * Игра на холодном старте шлёт init() и предзагрузку разом. Раньше всё, что
+ * обгоняло колбэк инициализации, сразу получало отказ, и первые секунды
+ * инвентаря терялись на повторы из JS. Теперь такие вызовы ждут здесь и
+ * выполняются по порядку прихода, как только SDK готов. Сроком ожидания и
+ * ответом по нему ведает плагин; очередь лишь хранит порядок и не даёт
+ * вызову выполниться дважды: забрать его можно ровно один раз - либо
+ * drain(), либо remove().
+ *
+ * Кладёт поток моста, забирает UI-поток (колбэк инициализации и сторож),
+ * поэтому всё под монитором.
+ */
+final class PreInitQueue {
+
+    /** Метод плагина, которому вызов достанется повторно. */
+    interface Method {
+        void invoke(@NonNull PluginCall call);
+    }
+
+    static final class Entry {
+        final PluginCall call;
+        final Method method;
+
+        Entry(PluginCall call, Method method) {
+            this.call = call;
+            this.method = method;
+        }
+    }
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final int capacity;
+
+    PreInitQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** false - очередь полна, вызов не принят. */
+    synchronized boolean offer(@NonNull PluginCall call, @NonNull Method method) {
+        if (entries.size() >= capacity) return false;
+        entries.addLast(new Entry(call, method));
+        return true;
+    }
+
+    /** Забирает вызов из очереди; false - его уже забрал drain() или remove(). */
+    synchronized boolean remove(@Nullable PluginCall call) {
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext()) {
+            if (it.next().call == call) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Забирает все вызовы в порядке прихода. */
+    synchronized List<Entry> drain() {
+        List<Entry> drained = new ArrayList<>(entries);
+        entries.clear();
+        return drained;
+    }
+}
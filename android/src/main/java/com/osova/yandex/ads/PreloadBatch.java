@@ -0,0 +1,89 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.JSObject;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Общий итог preloadAll(): по секции на тип рекламы и один ответ на всех.
+ *
+ * Загрузки отвечают сюда через AdLoad.Listener с разных потоков, а срок
+ * пачки приходит со сторожа, поэтому всё под монитором. Ответ уходит ровно
+ * один раз - когда ответили все загрузки или вышел срок; загрузки, не
+ * успевшие к сроку, помечаются pending и продолжают идти - их итог придёт
+ * событием adEvent, как у любой загрузки.
+ */
+final class PreloadBatch implements AdLoad.Listener {
+
+    interface Callback {
+        void onDone(@NonNull JSObject result);
+    }
+
+    private final Callback callback;
+    private final JSObject results = new JSObject();
+    private final Set<String> pending = new LinkedHashSet<>();
+    private boolean isAllOk = true;
+    private boolean isDone = false;
+
+    PreloadBatch(@NonNull Callback callback) {
+        this.callback = callback;
+    }
+
+    /** Тип участвует в пачке; вызывать до запуска загрузок. */
+    synchronized void expect(@NonNull String adType) {
+        pending.add(adType);
+    }
+
+    @Override
+    public void onSettled(@NonNull AdLoad load, boolean success, @Nullable String message,
+                          @Nullable String adUnitId) {
+        settle(load.adType, success, message, adUnitId != null ? adUnitId : load.adUnitId);
+    }
+
+    /** Итог типа без загрузки - например, секция без adUnitId. */
+    void settle(@NonNull String adType, boolean success, @Nullable String message, @Nullable String adUnitId) {
+        JSObject result;
+        synchronized (this) {
+            if (isDone || !pending.remove(adType)) return;
+            JSObject entry = new JSObject();
+            entry.put("success", success);
+            if (message != null) entry.put("message", message);
+            if (adUnitId != null) entry.put("adUnitId", adUnitId);
+            results.put(adType, entry);
+            if (!success) isAllOk = false;
+            result = finishIfComplete();
+        }
+        if (result != null) callback.onDone(result);
+    }
+
+    /** Общий срок вышел: отвечаем тем, что есть. */
+    void expire() {
+        JSObject result;
+        synchronized (this) {
+            if (isDone) return;
+            for (String adType : pending) {
+                JSObject entry = new JSObject();
+                entry.put("success", false);
+                entry.put("pending", true);
+                entry.put("message", "Still loading");
+                results.put(adType, entry);
+            }
+            isAllOk &= pending.isEmpty();
+            pending.clear();
+            result = finishIfComplete();
+        }
+        if (result != null) callback.onDone(result);
+    }
+
+    @Nullable
+    private JSObject finishIfComplete() {
+        if (!pending.isEmpty()) return null;
+        isDone = true;
+        results.put("success", isAllOk);
+        return results;
+    }
+}
@@ -0,0 +1,89 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Вызовы awaitReady(), ждущие, пока слот заполнится.
+ *
+ * Раньше игра опрашивала isXLoaded() через мост каждые несколько сотен
+ * миллисекунд, чтобы включить кнопку рекламы: круг через мост и JSObject на
+ * каждый опрос. Теперь вызов удерживается здесь и закрывается в момент
+ * заполнения - все ждущие одного слота одним сигналом. Сроком ожидания
+ * ведает плагин; забрать вызов можно ровно один раз - сигналом take(),
+ * сроком remove() или уборкой drain().
+ *
+ * Ставит поток моста, сигналит UI-поток, поэтому всё под монитором.
+ */
+final class ReadyWaiters {
+
+    static final class Waiter {
+        final PluginCall call;
+        final String adType;
+        // null - годится любой блок этого типа.
+        @Nullable
+        final String adUnitId;
+
+        Waiter(PluginCall call, String adType, @Nullable String adUnitId) {
+            this.call = call;
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+        }
+    }
+
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final int capacity;
+
+    ReadyWaiters(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** false - ждущих уже слишком много, вызов не принят. */
+    synchronized boolean add(@NonNull PluginCall call, @NonNull String adType, @Nullable String adUnitId) {
+        if (waiters.size() >= capacity) return false;
+        waiters.add(new Waiter(call, adType, adUnitId));
+        return true;
+    }
+
+    /** Забирает вызов по сроку; false - его уже забрал сигнал или уборка. */
+    synchronized boolean remove(@Nullable PluginCall call) {
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext()) {
+            if (it.next().call == call) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Слот заполнился объявлением блока adUnitId (null - блок не важен):
+     * забирает всех, кого это устраивает.
+     */
+    @NonNull
+    synchronized List<Waiter> take(@NonNull String adType, @Nullable String adUnitId) {
+        List<Waiter> ready = new ArrayList<>();
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext()) {
+            Waiter waiter = it.next();
+            if (!waiter.adType.equals(adType)) continue;
+            if (waiter.adUnitId != null && !waiter.adUnitId.equals(adUnitId)) continue;
+            ready.add(waiter);
+            it.remove();
+        }
+        return ready;
+    }
+
+    synchronized List<Waiter> drain() {
+        List<Waiter> drained = new ArrayList<>(waiters);
+        waiters.clear();
+        return drained;
+    }
+}
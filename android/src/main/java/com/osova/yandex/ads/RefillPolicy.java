@@ -0,0 +1,43 @@
+package com.osova.yandex.ads;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Расписание повторов автоматической дозагрузки одного блока.
+ *
+ * Задержка растёт экспоненциально от baseDelayMs до maxDelayMs, а половина её
+ * случайна: иначе все блоки, упавшие разом (пропала сеть), и повторялись бы
+ * разом. Бюджет - число неудач подряд; успешная загрузка или показ его
+ * обнуляют.
+ */
+final class RefillPolicy {
+    static final int DEFAULT_MAX_RETRIES = 5;
+    static final long DEFAULT_BASE_DELAY_MS = 2000;
+    static final long DEFAULT_MAX_DELAY_MS = 60 * 1000;
+    // 2^20 * base - уже десятки дней; дальше сдвиг только переполнялся бы.
+    private static final int MAX_SHIFT = 20;
+
+    private final int maxRetries;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private int failures = 0;
+
+    RefillPolicy(int maxRetries, long baseDelayMs, long maxDelayMs) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelayMs = Math.max(1, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+    }
+
+    /** Задержка до следующей попытки или -1, если бюджет исчерпан. */
+    synchronized long nextRetryDelayMs() {
+        if (failures >= maxRetries) return -1;
+        long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(failures, MAX_SHIFT));
+        failures++;
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    synchronized void reset() {
+        failures = 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.osova.yandex.ads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Параллельная загрузка нескольких блоков одного места показа (ступени
+ * floor price) с одним победителем.
+ *
+ * Запросы ко всем блокам уходят сразу, а этот класс решает, чьё объявление
+ * взять: FIRST - первое пришедшее, PRIORITY - блока с наименьшим индексом
+ * (самая дорогая ступень), для чего более дешёвые заполнения придерживаются,
+ * пока не ответят все ступени выше. Остальные заполнения - проигравшие:
+ * вызывающий их паркует или освобождает.
+ *
+ * Колбэки SDK приходят на UI-поток, а сторож - туда же, но решение всё равно
+ * под монитором: сторож группы и последний колбэк не должны выбрать двух
+ * победителей.
+ */
+final class Waterfall<T> {
+
+    enum Strategy {
+        FIRST,
+        PRIORITY;
+
+        /** "priority" из опций; всё прочее, включая отсутствие, - FIRST. */
+        static Strategy parse(@Nullable String value) {
+            if (value != null && "priority".equals(value.toLowerCase(Locale.ROOT))) return PRIORITY;
+            return FIRST;
+        }
+    }
+
+    /** Что грузить: блоки в порядке приоритета и способ выбрать победителя. */
+    static final class Plan {
+        final List<String> adUnitIds;
+        final Strategy strategy;
+
+        Plan(@NonNull List<String> adUnitIds, @NonNull Strategy strategy) {
+            this.adUnitIds = Collections.unmodifiableList(new ArrayList<>(adUnitIds));
+            this.strategy = strategy;
+        }
+
+        /** Главный блок группы: по нему группа хранится и дозагружается. */
+        String primary() {
+            return adUnitIds.get(0);
+        }
+    }
+
+    /** Итог очередного события группы. */
+    static final class Outcome<T> {
+        /** Индекс победителя или -1, если победителя (пока) нет. */
+        final int winner;
+        @Nullable
+        final T ad;
+        /** Заполнения, которые уже не понадобятся. */
+        final List<T> losers;
+        /** Победителя не будет: все блоки ответили отказом или вышел срок. */
+        final boolean exhausted;
+
+        Outcome(int winner, @Nullable T ad, List<T> losers, boolean exhausted) {
+            this.winner = winner;
+            this.ad = ad;
+            this.losers = losers;
+            this.exhausted = exhausted;
+        }
+
+        boolean isDecided() {
+            return winner >= 0 || exhausted;
+        }
+    }
+
+    private final Strategy strategy;
+    private final Object[] fills;
+    private final boolean[] failed;
+    private boolean isDecided = false;
+
+    Waterfall(int size, @NonNull Strategy strategy) {
+        this.strategy = strategy;
+        this.fills = new Object[size];
+        this.failed = new boolean[size];
+    }
+
+    synchronized Outcome<T> onLoaded(int index, @NonNull T ad) {
+        if (isDecided) return pending(Collections.singletonList(ad));
+        if (strategy == Strategy.FIRST) {
+            isDecided = true;
+            return new Outcome<>(index, ad, Collections.emptyList(), false);
+        }
+        fills[index] = ad;
+        return resolvePriority();
+    }
+
+    synchronized Outcome<T> onFailed(int index) {
+        failed[index] = true;
+        if (isDecided) return pending(Collections.emptyList());
+        if (strategy == Strategy.PRIORITY) return resolvePriority();
+        for (boolean f : failed) {
+            if (!f) return pending(Collections.emptyList());
+        }
+        isDecided = true;
+        return new Outcome<>(-1, null, Collections.emptyList(), true);
+    }
+
+    /** Общий срок группы вышел: берём лучшее из уже пришедшего. */
+    synchronized Outcome<T> onDeadline() {
+        if (isDecided) return pending(Collections.emptyList());
+        isDecided = true;
+        for (int i = 0; i < fills.length; i++) {
+            if (fills[i] != null) return winner(i);
+        }
+        return new Outcome<>(-1, null, Collections.emptyList(), true);
+    }
+
+    /** Победитель - первая ступень, которая ещё не отказала, если она уже заполнена. */
+    private Outcome<T> resolvePriority() {
+        for (int i = 0; i < fills.length; i++) {
+            if (failed[i]) continue;
+            if (fills[i] == null) return pending(Collections.emptyList());
+            isDecided = true;
+            return winner(i);
+        }
+        isDecided = true;
+        return new Outcome<>(-1, null, Collections.emptyList(), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Outcome<T> winner(int index) {
+        T ad = (T) fills[index];
+        List<T> losers = new ArrayList<>();
+        for (int i = 0; i < fills.length; i++) {
+            if (i != index && fills[i] != null) losers.add((T) fills[i]);
+            fills[i] = null;
+        }
+        return new Outcome<>(index, ad, losers, false);
+    }
+
+    private Outcome<T> pending(List<T> losers) {
+        return new Outcome<>(-1, null, losers, false);
+    }
+}
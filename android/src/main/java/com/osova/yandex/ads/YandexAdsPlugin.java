@@ -1,19 +1,27 @@
 package com.osova.yandex.ads;
 
+import android.content.Context;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.FrameLayout;
-import android.widget.LinearLayout;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Trace;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -23,22 +31,20 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.yandex.mobile.ads.banner.BannerAdEventListener;
-import com.yandex.mobile.ads.banner.BannerAdSize;
-import com.yandex.mobile.ads.banner.BannerAdView;
 import com.yandex.mobile.ads.common.AdError;
 import com.yandex.mobile.ads.common.AdRequest;
 import com.yandex.mobile.ads.common.AdRequestError;
 import com.yandex.mobile.ads.common.ImpressionData;
-import com.yandex.mobile.ads.common.YandexAds;
 import com.yandex.mobile.ads.interstitial.InterstitialAd;
 import com.yandex.mobile.ads.interstitial.InterstitialAdEventListener;
 import com.yandex.mobile.ads.interstitial.InterstitialAdLoadListener;
-import com.yandex.mobile.ads.interstitial.InterstitialAdLoader;
 import com.yandex.mobile.ads.rewarded.Reward;
 import com.yandex.mobile.ads.rewarded.RewardedAd;
 import com.yandex.mobile.ads.rewarded.RewardedAdEventListener;
 import com.yandex.mobile.ads.rewarded.RewardedAdLoadListener;
-import com.yandex.mobile.ads.rewarded.RewardedAdLoader;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 /**
  * Yandex Mobile Ads SDK 8.x.
@@ -52,20 +58,72 @@ import com.yandex.mobile.ads.rewarded.RewardedAdLoader;
 @CapacitorPlugin(name = "YandexAds")
 public class YandexAdsPlugin extends Plugin {
     private static final String TAG = "YandexAds";
+    // Секции системной трассы (Perfetto, systrace): вклад плагина в старт
+    // приложения и в первый показ баннера.
+    private static final String TRACE_LOAD = "YandexAds.load";
+    private static final String TRACE_BANNER_CONTAINER = "YandexAds.bannerContainer";
 
     // Методы плагина Capacitor выполняет на своём потоке, поэтому отложенные
     // задачи ставим через явный Handler главного потока: View.postDelayed при
     // неудачном чтении состояния привязки молча не срабатывает.
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Сроки сторожей init, загрузок и показов: одно сообщение в looper на
+    // ближайший, и каждый снимается, как только на вызов ответили.
+    private final DeadlineScheduler deadlines = new DeadlineScheduler(mainHandler);
 
     // Инициализация не должна вешать вызов навсегда, если ответа нет.
     private static final long INIT_TIMEOUT_MS = 10000;
+    // Отложенная инициализация (initMode "idle") ждёт простоя не дольше
+    // половины этого срока: вторая половина остаётся самому SDK.
+    private static final long MAX_INIT_IDLE_WAIT_MS = INIT_TIMEOUT_MS / 2;
     // Показ тоже: если SDK потеряет колбэк, обещание показа висело бы вечно, а
     // вместе с ним - кнопка награды в игре.
     private static final long SHOW_TIMEOUT_MS = 5 * 60 * 1000;
     // Загрузка тоже: если SDK не позовёт ни onAdLoaded, ни onAdFailedToLoad,
     // обещание висело бы вечно, а вместе с ним - ожидающий его код игры.
+    // Это потолок: срок блока считает LoadTimeouts по его задержкам.
     private static final long LOAD_TIMEOUT_MS = 60 * 1000;
+    // Сколько вызов, пришедший до готовности SDK, ждёт её в очереди. Дольше
+    // INIT_TIMEOUT_MS: init() игра может позвать и чуть позже предзагрузки.
+    private static final long PRE_INIT_WAIT_MS = 15 * 1000;
+    // Больше вызовов до инициализации игре незачем: это предзагрузка всех
+    // мест показа плюс, может быть, showBanner.
+    private static final int MAX_PRE_INIT_CALLS = 16;
+    // Отложенных без сети загрузок - по одной на слот: rewarded, группы
+    // interstitial, баннеры и preloadAll.
+    private static final int MAX_OFFLINE_LOADS = 16;
+    // Реже пакет событий слать нельзя: dismissed и loaded игра ждёт, чтобы
+    // продолжить, и секунда задержки уже заметна.
+    private static final long MAX_EVENT_BATCH_INTERVAL_MS = 1000;
+    // Срок жизни загруженного объявления (ttlMs в опциях загрузки). Креатив,
+    // пролежавший дольше, показывается с ошибкой или устаревшим показом.
+    private static final long DEFAULT_AD_TTL_MS = 60 * 60 * 1000;
+    private static final long MIN_AD_TTL_MS = 60 * 1000;
+    // За сколько до конца срока тихо грузить замену - не больше четверти срока.
+    private static final long AD_REFRESH_LEAD_MS = 5 * 60 * 1000;
+    // awaitReady(): сколько ждать без timeoutMs и потолок - как сторож показа,
+    // дольше кнопка рекламы в игре ждать не станет.
+    private static final long DEFAULT_READY_WAIT_MS = LOAD_TIMEOUT_MS;
+    private static final long MAX_READY_WAIT_MS = SHOW_TIMEOUT_MS;
+    // По ждущему на кнопку и место показа - с запасом.
+    private static final int MAX_READY_WAITERS = 32;
+
+    // Готовых interstitial на блок по умолчанию - одно, как было до кеша:
+    // повторная загрузка того же блока заменяет объявление. Больше - только
+    // по cacheSize из loadInterstitial и не выше потолка: каждое объявление
+    // держит свой креатив в памяти.
+    private static final int DEFAULT_INTERSTITIALS_PER_UNIT = 1;
+    private static final int MAX_INTERSTITIALS_PER_UNIT = 3;
+    private static final int MAX_CACHED_INTERSTITIALS = 6;
+    // Ступеней в одной групповой загрузке: каждая - свой загрузчик и свой
+    // запрос в сеть одновременно с остальными.
+    private static final int MAX_WATERFALL_UNITS = 5;
+    // Чаще обновлять баннер нет смысла: показ не успевает засчитаться, а
+    // сеть SDK всё равно режет слишком частые запросы.
+    private static final long MIN_BANNER_REFRESH_MS = 15 * 1000;
+    // Живых баннеров одновременно: верхний, нижний и прогретый для
+    // следующего экрана. Каждый - WebView со своим креативом.
+    private static final int MAX_BANNERS = 3;
 
     // Методы плагина Capacitor выполняет на своём потоке, а колбэки SDK
     // приходят на UI-поток, поэтому всё разделяемое состояние - volatile.
@@ -79,53 +137,176 @@ public class YandexAdsPlugin extends Plugin {
     private final AtomicReference<PluginCall> pendingInitCall = new AtomicReference<>();
     // Событие об успешной инициализации шлём один раз за процесс.
     private final AtomicBoolean isInitEventSent = new AtomicBoolean(false);
+    private final PreInitQueue preInitQueue = new PreInitQueue(MAX_PRE_INIT_CALLS);
+    // Загрузки, ждущие сети (offlineLoads "park"), и политика из init().
+    private final OfflineQueue offlineQueue = new OfflineQueue(MAX_OFFLINE_LOADS);
+    private volatile boolean isOfflineFailFast = false;
+
+    // Точка входа в SDK. Тесты и бенчмарки подменяют её до load() подделкой
+    // и гоняют плагин на JVM без сети и устройства.
+    @VisibleForTesting
+    AdBackend backend = new YandexBackend();
+    // Состояние сети. Источник заводит load(), если тест не подставил свой.
+    @VisibleForTesting
+    NetworkSource network;
 
     // Banner
-    private volatile BannerAdView bannerAdView;
-    private volatile LinearLayout bannerLayout;
-    private volatile String bannerAdUnitId;
-    // Вью появляется в начале загрузки, а показывать баннер можно только после
-    // onAdLoaded - для isBannerLoaded() нужен отдельный флаг.
-    private volatile boolean isBannerAdLoaded = false;
-
-    // Отложенные вызовы - в AtomicReference: "прочитать и обнулить" должно быть
-    // одной операцией, иначе поток моста и UI-поток могут ответить дважды.
-    private final AtomicReference<PluginCall> pendingBannerLoadCall = new AtomicReference<>();
+    // Реестр баннеров по bannerId: у каждого свой контейнер, загрузка,
+    // видимость и расписание обновления. Создание - под монитором реестра,
+    // чтобы два loadBanner не обошли потолок MAX_BANNERS.
+    private final Map<String, BannerSlot> banners = new ConcurrentHashMap<>();
+    // Паузы обновления, общие для всех баннеров (activity в фоне, полноэкранная
+    // реклама поверх), - новый баннер заводится уже с ними. Только UI-поток.
+    private volatile int bannerRefreshPauses = 0;
 
     // Interstitial
-    private volatile InterstitialAdLoader interstitialLoader;
-    private volatile InterstitialAd interstitialAd;
-    // Показываемое сейчас объявление держим отдельно от предзагруженного: иначе
-    // предзагрузка во время показа снимала бы слушателя с того, что на экране,
-    // и события о его закрытии в JS уже не приходили бы.
-    private volatile InterstitialAd showingInterstitialAd;
+    // Загрузчик держит один запрос, а блоки игра греет параллельно (конец
+    // уровня, выход из магазина, повтор) - поэтому загрузчик и слот загрузки
+    // свои у каждого блока. Готовые объявления слоты блоков не держат: их
+    // бывает несколько на блок, и они лежат в interstitialCache.
+    // Загрузчики - по главному блоку группы, внутри - по ступеням: две группы
+    // с общим блоком иначе делили бы загрузчик, и вторая отменяла бы запрос
+    // первой, оставляя её ступень без ответа до срока.
+    private final Map<String, Map<String, AdBackend.Loader<InterstitialAdLoadListener>>> interstitialLoaders =
+        new ConcurrentHashMap<>();
+    private final Map<String, AdSlot<InterstitialAd>> interstitialSlots = new ConcurrentHashMap<>();
+    // Сколько готовых объявлений держать на блок - по последнему loadInterstitial:
+    // дозагрузка без участия JS должна помнить, сколько просили.
+    private final Map<String, Integer> interstitialCacheSizes = new ConcurrentHashMap<>();
+    // Группы блоков по главному блоку - по ним дозагрузка повторяет запрос.
+    private final Map<String, Waterfall.Plan> interstitialPlans = new ConcurrentHashMap<>();
+    // Готовые объявления всех блоков. Новая загрузка больше не выбрасывает
+    // уже загруженное: за него заплачено сетью, а показ берёт его мгновенно.
+    private final AdCache<InterstitialAd> interstitialCache =
+        new AdCache<>(MAX_CACHED_INTERSTITIALS, ad -> {
+            // Вытесненному объявлению его срок жизни больше не нужен.
+            deadlines.cancel(ad);
+            ad.setAdEventListener(null);
+        });
+    // Срок жизни объявлений блока - по последнему loadInterstitial.
+    private final Map<String, Long> interstitialTtls = new ConcurrentHashMap<>();
+    // Показ - общий на тип: вызов и объявление на экране. Показываемое
+    // держим отдельно от предзагруженных: иначе предзагрузка во время показа
+    // снимала бы слушателя с того, что на экране, и события о его закрытии в
+    // JS уже не приходили бы.
+    private final AdSlot<InterstitialAd> interstitialShow = new AdSlot<>();
+    // Блок последней загрузки - его показывает showInterstitial() без adUnitId.
     private volatile String interstitialAdUnitId;
-    private final AtomicReference<PluginCall> pendingInterstitialLoadCall = new AtomicReference<>();
-    private final AtomicReference<PluginCall> pendingInterstitialShowCall = new AtomicReference<>();
 
     // Rewarded
-    private volatile RewardedAdLoader rewardedLoader;
-    private volatile RewardedAd rewardedAd;
-    private volatile RewardedAd showingRewardedAd;
-    private volatile String rewardedAdUnitId;
-    private final AtomicReference<PluginCall> pendingRewardedLoadCall = new AtomicReference<>();
-    private final AtomicReference<PluginCall> pendingRewardedShowCall = new AtomicReference<>();
+    // Загрузчик на блок: группа грузит несколько блоков одновременно.
+    private final Map<String, AdBackend.Loader<RewardedAdLoadListener>> rewardedLoaders = new ConcurrentHashMap<>();
+    // Слот rewarded один: загрузка, готовый ролик с блоком и временем, показ.
+    private final AdSlot<RewardedAd> rewarded = new AdSlot<>();
+    // Группа последней загрузки и срок жизни ролика - по последнему loadRewarded.
+    private volatile Waterfall.Plan rewardedPlan;
+    private volatile long rewardedTtlMs = DEFAULT_AD_TTL_MS;
+
+    // Автодозагрузка (autoRefill в loadInterstitial/loadRewarded): блоки, для
+    // которых её включили, и отложенные повторы после неудач. Без неё игра
+    // узнавала бы о закрытии или сбое из события и слала бы новый load через
+    // мост - лишний круг, пока слот пуст.
+    private final Map<String, RefillPolicy> interstitialRefill = new ConcurrentHashMap<>();
+    private final Map<String, RefillPolicy> rewardedRefill = new ConcurrentHashMap<>();
+    private final Map<String, Runnable> pendingRefillRetries = new ConcurrentHashMap<>();
+
+    // Давление памяти (onTrimMemory): что выброшено и должно вернуться после
+    // отбоя. Всё трогает только главный поток.
+    private final MemoryPressure memoryPressure = new MemoryPressure(mainHandler, new MemoryPressure.Listener() {
+        @Override
+        public void onEvict(int tier) {
+            evictForMemory(tier);
+        }
 
+        @Override
+        public void onRelief() {
+            onMemoryRelief();
+        }
+    });
+    private final Set<String> evictedInterstitialUnits = ConcurrentHashMap.newKeySet();
+    private volatile boolean isRewardedEvicted = false;
+    // Отбой давления в фоне откладываем до возврата: грузить рекламу, которую
+    // никто не увидит, незачем, а фон - как раз то, что убивают первым.
+    private volatile boolean isActivityPaused = false;
+    private volatile boolean isReliefPending = false;
+
+    // Ждущие awaitReady(): закрываются в момент заполнения слота.
+    private final ReadyWaiters readyWaiters = new ReadyWaiters(MAX_READY_WAITERS);
+
+    // Задержки и доли заполнения по блокам - для getStats(). Переживает
+    // destroy*: статистика нужна как раз за всю сессию.
+    private final AdStats stats = new AdStats();
+    // Сроки загрузок по блокам из недавних задержек. resetStats() их не
+    // трогает: окно нужно сторожам, а не отчёту.
+    private final LoadTimeouts loadTimeouts = new LoadTimeouts(LOAD_TIMEOUT_MS);
+
+    // Ответы и события собираются и уходят в мост на своём потоке: главный
+    // остаётся вью, загрузчикам и показу - тому, что без него нельзя.
+    private final Outbound outbound = new Outbound();
+
+    // Главный поток занят проходом плагина - вложенный runOnUi выполняется
+    // сразу и в замер второй раз не попадает. Только главный поток.
+    private int mainThreadDepth = 0;
+
+    // Пакетная доставка adEvent (setEventBatching); по умолчанию выключена,
+    // и каждое событие уходит отдельно, как раньше.
+    private final EventBatcher eventBatcher = new EventBatcher(mainHandler, outbound::post, events -> {
+        JSObject batch = new JSObject();
+        batch.put("events", events);
+        notifyListeners("adEvents", batch);
+    });
+
+    /**
+     * Регистрация плагина - на пути холодного старта до первого кадра,
+     * поэтому здесь ничего, что можно отложить: ни вью (контейнер баннера
+     * заводится первым loadBanner), ни SDK (его поднимает init()). Секция
+     * TRACE_LOAD показывает в системной трассе старта, сколько это стоит.
+     */
     @Override
     public void load() {
-        AppCompatActivity activity = getActivity();
-        activity.runOnUiThread(() -> {
-            bannerLayout = new LinearLayout(activity);
-            bannerLayout.setOrientation(LinearLayout.HORIZONTAL);
+        Trace.beginSection(TRACE_LOAD);
+        try {
+            adoptParkedAds();
+            // На контексте приложения: сигналы памяти - процессные, а контекст
+            // activity регистрация держала бы до снятия в handleOnDestroy.
+            Context context = getContext();
+            if (context != null) context.getApplicationContext().registerComponentCallbacks(memoryPressure);
+            if (network == null && context != null) {
+                network = new ConnectivitySource(context.getApplicationContext(), mainHandler);
+            }
+            if (network != null) {
+                network.start(this::onNetworkChanged);
+                if (!network.isOnline()) pauseBannerRefresh(BannerRefreshScheduler.PAUSE_OFFLINE);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
 
-            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.WRAP_CONTENT,
-                FrameLayout.LayoutParams.WRAP_CONTENT
-            );
-            params.gravity = Gravity.CENTER_HORIZONTAL | Gravity.BOTTOM;
+    // Activity на паузе - баннер не на экране (сворачивание, системный диалог
+    // поверх). Оба колбэка приходят на главный поток.
+    @Override
+    protected void handleOnPause() {
+        isActivityPaused = true;
+        pauseBannerRefresh(BannerRefreshScheduler.PAUSE_ACTIVITY);
+        // Кадров в фоне может не быть - накопленное не должно ждать возврата.
+        // Через outbound: события, отданные до паузы, ещё могут быть в его
+        // очереди, а не в пакете.
+        outbound.post(eventBatcher::flush);
+        super.handleOnPause();
+    }
 
-            activity.addContentView(bannerLayout, params);
-        });
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        isActivityPaused = false;
+        resumeBannerRefresh(BannerRefreshScheduler.PAUSE_ACTIVITY);
+        // Паркованные чужим плагином объявления могли протухнуть во сне.
+        AdStore.get().sweepNow();
+        if (isReliefPending && memoryPressure.tier() == MemoryPressure.TIER_NONE) {
+            isReliefPending = false;
+            reloadEvicted();
+        }
     }
 
     @Override
@@ -133,12 +314,19 @@ public class YandexAdsPlugin extends Plugin {
         // Сторожа показа живут до пяти минут и держат ссылку на плагин, а через
         // него - на activity. Без снятия задач она пережила бы своё уничтожение.
         isPluginDestroyed = true;
+        Context context = getContext();
+        if (context != null) context.getApplicationContext().unregisterComponentCallbacks(memoryPressure);
+        memoryPressure.stop();
+        if (network != null) network.stop();
         runOnUi(() -> {
             releaseAll();
+            deadlines.clear();
             // Снимаем задачи уже после уборки: сторожа держат ссылку на плагин,
             // а через него на activity. Раньше нельзя - при отсутствующей
             // activity сама уборка идёт через этот же обработчик.
             mainHandler.removeCallbacksAndMessages(null);
+            // Ответы "Plugin destroyed" уже в очереди - они уйдут до остановки.
+            outbound.shutdown();
         });
         super.handleOnDestroy();
     }
@@ -153,6 +341,14 @@ public class YandexAdsPlugin extends Plugin {
         Boolean ageRestrictedUser = call.getBoolean("ageRestrictedUser");
         Boolean locationTracking = call.getBoolean("locationTracking");
         Boolean enableLogging = call.getBoolean("enableLogging");
+        boolean isIdleMode = "idle".equals(call.getString("initMode"));
+        Integer idleDelayValue = call.getInt("idleDelayMs");
+        long idleDelayMs = idleDelayValue != null ? Math.max(0, Math.min(idleDelayValue, MAX_INIT_IDLE_WAIT_MS)) : 0;
+        // Границы сроков загрузки - и при повторном init(): их, как флаги
+        // приватности, игра может поменять в любой момент.
+        configureLoadTimeouts(call.getObject("loadTimeout"));
+        String offlineLoads = call.getString("offlineLoads");
+        if (offlineLoads != null) isOfflineFailFast = "fail".equals(offlineLoads);
 
         if (isInitialized) {
             // SDK уже поднят, но флаги применяем: согласие GDPR игра может
@@ -170,58 +366,92 @@ public class YandexAdsPlugin extends Plugin {
         }
 
         final PluginCall initCall = hold(call);
-        settle(pendingInitCall.getAndSet(initCall), false, "Superseded by a new init() call");
+        PluginCall previousInit = pendingInitCall.getAndSet(initCall);
+        deadlines.cancel(previousInit);
+        settle(previousInit, false, "Superseded by a new init() call");
 
         runOnUi(() -> {
-            AppCompatActivity activity = getActivity();
             if (isActivityGone()) {
                 settleOwnInit(initCall, false, "Activity is gone");
                 return;
             }
 
             // Сторож ставим до обращения к SDK: если оно бросит исключение,
-            // вызов иначе остался бы незакрытым навсегда.
+            // вызов иначе остался бы незакрытым навсегда. В режиме "idle" срок
+            // идёт с вызова init(), ожидание простоя - его часть.
             armInitWatchdog(initCall);
 
-            try {
-                // Политики приватности выставляются до инициализации SDK.
-                applyPrivacySettings(userConsent, ageRestrictedUser, locationTracking, enableLogging);
-
-                // Начиная с SDK 8 библиотека поднимается сама при старте
-                // приложения; этот вызов лишь дожидается конца инициализации.
-                YandexAds.initialize(activity, () -> {
-                    // Флаг ставим до проверки владения: SDK готов независимо от
-                    // того, успели ли мы уже ответить по таймауту. Иначе поздний
-                    // колбэк оставлял бы плагин "неинициализированным" навсегда.
-                    isInitialized = true;
-                    Log.d(TAG, "SDK initialized, version " + YandexAds.getLibraryVersion());
-
-                    // Событие - ровно одно за процесс: слушателей SDK может быть
-                    // несколько (два параллельных init() регистрируют каждый
-                    // свой, и снять чужой нечем), а игра по этому событию
-                    // запускает предзагрузку.
-                    if (isInitEventSent.compareAndSet(false, true)) {
-                        notifyAdEvent("init", "loaded", null, null, null);
-                    }
-                    if (!pendingInitCall.compareAndSet(initCall, null)) return;
-                    settle(initCall, true, null);
-                });
-            } catch (Exception e) {
-                // Исключение с главного потока Capacitor не ловит - оно роняет
-                // процесс. Отвечаем отказом, как и на любой другой сбой.
-                Log.e(TAG, "Error initializing SDK: " + e.getMessage());
-                settleOwnInit(initCall, false, e.getMessage());
+            if (!isIdleMode) {
+                initializeSdk(initCall, userConsent, ageRestrictedUser, locationTracking, enableLogging);
+                return;
             }
+            IdleLauncher.schedule(mainHandler, idleDelayMs, MAX_INIT_IDLE_WAIT_MS, () -> {
+                // Пока ждали простоя, вызов могли закрыть сторож, новый init()
+                // или уборка плагина: ответ уже дан, а новый init() поднимет
+                // SDK сам.
+                if (pendingInitCall.get() != initCall) return;
+                initializeSdk(initCall, userConsent, ageRestrictedUser, locationTracking, enableLogging);
+            });
         });
     }
 
+    /** Подъём SDK для вызова initCall; только UI-поток. */
+    private void initializeSdk(PluginCall initCall, @Nullable Boolean userConsent,
+                               @Nullable Boolean ageRestrictedUser, @Nullable Boolean locationTracking,
+                               @Nullable Boolean enableLogging) {
+        AppCompatActivity activity = getActivity();
+        if (isActivityGone()) {
+            settleOwnInit(initCall, false, "Activity is gone");
+            return;
+        }
+        try {
+            // Политики приватности выставляются до инициализации SDK.
+            applyPrivacySettings(userConsent, ageRestrictedUser, locationTracking, enableLogging);
+
+            backend.initialize(activity, () -> {
+                // Флаг ставим до проверки владения: SDK готов независимо от
+                // того, успели ли мы уже ответить по таймауту. Иначе поздний
+                // колбэк оставлял бы плагин "неинициализированным" навсегда.
+                isInitialized = true;
+                Log.d(TAG, "SDK initialized, version " + backend.libraryVersion());
+                drainPreInitQueue();
+
+                // Событие - ровно одно за процесс: слушателей SDK может быть
+                // несколько (два параллельных init() регистрируют каждый
+                // свой, и снять чужой нечем), а игра по этому событию
+                // запускает предзагрузку.
+                if (isInitEventSent.compareAndSet(false, true)) {
+                    notifyAdEvent("init", "loaded", null, null, null);
+                }
+                settleOwnInit(initCall, true, null);
+            });
+        } catch (Exception e) {
+            // Исключение с главного потока Capacitor не ловит - оно роняет
+            // процесс. Отвечаем отказом, как и на любой другой сбой.
+            Log.e(TAG, "Error initializing SDK: " + e.getMessage());
+            settleOwnInit(initCall, false, e.getMessage());
+        }
+    }
+
+    /** loadTimeout из init(): { adaptive, minMs, maxMs, margin }, всё необязательно. */
+    private void configureLoadTimeouts(@Nullable JSObject options) {
+        if (options == null) return;
+        Integer minValue = options.getInteger("minMs");
+        Integer maxValue = options.getInteger("maxMs");
+        loadTimeouts.configure(
+            options.getBool("adaptive"),
+            minValue != null ? Long.valueOf(minValue) : null,
+            maxValue != null ? Long.valueOf(maxValue) : null,
+            options.has("margin") ? options.optDouble("margin") : null);
+    }
+
     /** Флаги приватности SDK принимает в любой момент, не только до init. */
     private void applyPrivacySettings(@Nullable Boolean userConsent, @Nullable Boolean ageRestrictedUser,
                                       @Nullable Boolean locationTracking, @Nullable Boolean enableLogging) {
-        if (userConsent != null) YandexAds.setUserConsent(userConsent);
-        if (ageRestrictedUser != null) YandexAds.setAgeRestricted(ageRestrictedUser);
-        if (locationTracking != null) YandexAds.setLocationTracking(locationTracking);
-        if (enableLogging != null) YandexAds.enableLogging(enableLogging);
+        if (userConsent != null) backend.setUserConsent(userConsent);
+        if (ageRestrictedUser != null) backend.setAgeRestricted(ageRestrictedUser);
+        if (locationTracking != null) backend.setLocationTracking(locationTracking);
+        if (enableLogging != null) backend.enableLogging(enableLogging);
     }
 
     // MARK: - Banner
@@ -229,141 +459,249 @@ public class YandexAdsPlugin extends Plugin {
     @PluginMethod
     public void loadBanner(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::loadBanner)) return;
+        if (isOffline(call, "banner", this::loadBanner)) return;
 
-        String adUnitId = call.getString("adUnitId");
-        if (adUnitId == null || adUnitId.isEmpty()) {
+        BannerSlot.Spec spec = parseBannerSpec(call.getData());
+        if (spec == null) {
             rejectMissingParameter(call, "adUnitId");
             return;
         }
+        BannerSlot slot = obtainBannerSlot(bannerIdOf(call.getData()));
+        if (slot == null) {
+            resolveFail(call, "Too many banners");
+            return;
+        }
+        applyBannerOptions(slot, spec, call.getData());
+        startBannerLoad(slot, spec, hold(call));
+    }
+
+    /** Блок и размер из опций loadBanner - и из вызова, и из секции preloadAll(); null - нет adUnitId. */
+    @Nullable
+    private BannerSlot.Spec parseBannerSpec(JSObject options) {
+        String adUnitId = options.getString("adUnitId");
+        if (adUnitId == null || adUnitId.isEmpty()) return null;
 
         // Размер необязателен, как у loadBanner в Defold-расширении: без него
         // грузится стандартный баннер 320x50.
-        JSObject sizeObj = call.getObject("size");
+        JSObject sizeObj = options.getJSObject("size");
         Integer widthValue = sizeObj != null ? sizeObj.getInteger("width") : null;
-        final int width = widthValue != null ? widthValue : 0;
+        int width = widthValue != null ? widthValue : 0;
         Integer height = sizeObj != null ? sizeObj.getInteger("height") : null;
-        String position = call.getString("position", "bottom");
+        return new BannerSlot.Spec(adUnitId, width, height);
+    }
+
+    private void applyBannerOptions(BannerSlot slot, BannerSlot.Spec spec, JSObject options) {
+        slot.position = options.getString("position", "bottom");
+        slot.spec = spec;
+        // Без опции расписание не трогаем, как и autoRefill: повторный
+        // loadBanner из игры не должен молча выключать обновление.
+        Integer refreshValue = options.getInteger("refreshIntervalMs");
+        if (refreshValue != null) {
+            long interval = refreshValue > 0 ? Math.max(MIN_BANNER_REFRESH_MS, refreshValue) : 0;
+            runOnUi(() -> slot.refresh.start(interval));
+        }
+    }
+
+    private static String bannerIdOf(JSObject options) {
+        String bannerId = options.getString("bannerId");
+        return bannerId == null || bannerId.isEmpty() ? BannerSlot.DEFAULT_ID : bannerId;
+    }
+
+    /** Баннер реестра; заводится при первой загрузке. null - живых баннеров уже MAX_BANNERS. */
+    @Nullable
+    private BannerSlot obtainBannerSlot(String bannerId) {
+        BannerSlot slot = banners.get(bannerId);
+        if (slot != null) return slot;
+        synchronized (banners) {
+            slot = banners.get(bannerId);
+            if (slot != null) return slot;
+            if (banners.size() >= MAX_BANNERS) return null;
+            BannerSlot created = new BannerSlot(bannerId, mainHandler, this::refreshBanner);
+            banners.put(bannerId, created);
+            // Новый баннер подхватывает паузы, уже действующие для всех:
+            // activity в фоне или полноэкранная реклама поверх.
+            int pauses = bannerRefreshPauses;
+            if (pauses != 0) runOnUi(() -> created.refresh.pause(pauses));
+            return created;
+        }
+    }
+
+    /** Существующий баннер по bannerId из опций вызова; null - такого нет. */
+    @Nullable
+    private BannerSlot findBannerSlot(PluginCall call) {
+        return banners.get(bannerIdOf(call.getData()));
+    }
 
-        bannerAdUnitId = adUnitId;
-        // Предыдущую незавершённую загрузку закрываем, иначе её обещание висит.
-        final PluginCall loadCall = hold(call);
-        settle(pendingBannerLoadCall.getAndSet(loadCall), false, "Superseded by a new loadBanner() call");
-        armLoadWatchdog(pendingBannerLoadCall, loadCall, "banner");
+    /**
+     * Грузит баннер в задний буфер. call == null - обновление по расписанию:
+     * отвечать некому, события уходят как обычно.
+     */
+    private void startBannerLoad(BannerSlot slot, BannerSlot.Spec spec, @Nullable PluginCall call) {
+        runLoads(prepareBannerLoad(slot, spec, call, null));
+    }
+
+    @Nullable
+    private Runnable prepareBannerLoad(BannerSlot slot, BannerSlot.Spec spec, @Nullable PluginCall call,
+                                       @Nullable AdLoad.Listener listener) {
+        final String adUnitId = spec.adUnitId;
+        final int width = spec.width;
+        final Integer height = spec.height;
+        final AdSlot<AdBackend.Banner> state = slot.state;
+        // Запрос собираем здесь, на потоке моста: UI-потоку остаётся сама вью.
+        final AdRequest request = new AdRequest.Builder(adUnitId).build();
+
+        // Предыдущую незавершённую загрузку баннера закрываем, иначе её
+        // обещание висит. Загрузки других баннеров не трогаем.
+        final AdLoad load = new AdLoad("banner", adUnitId, call, listener);
+        abortLoad(state.startLoad(load), "Superseded by a new loadBanner() call");
+        armLoadWatchdog(state, load, slot.id, null);
 
         AppCompatActivity activity = getActivity();
         if (isActivityGone()) {
-            settleAndClearBannerLoad(false, "Activity is gone");
-            return;
+            settleOwnLoad(state, load, false, "Activity is gone");
+            return null;
         }
-        activity.runOnUiThread(() -> {
+        return () -> {
             // Загрузку могли закрыть, пока раннабл ждал очереди UI-потока
             // (destroyBanner, releaseAll или следующий loadBanner). Тогда вешать
             // новую вью нельзя: убрать её потом будет некому.
-            if (pendingBannerLoadCall.get() != loadCall) return;
+            if (!state.isLoading(load)) return;
             if (isActivityGone()) {
-                settleLoadCall(loadCall, false, "Activity is gone");
+                settleOwnLoad(state, load, false, "Activity is gone");
+                return;
+            }
+            // Баннер уничтожили между выдачей из реестра и этим проходом -
+            // контейнер, заведённый здесь, из реестра уже никто не уберёт.
+            if (banners.get(slot.id) != slot) {
+                settleOwnLoad(state, load, false, "Banner destroyed");
                 return;
             }
             try {
-                destroyBannerView();
-
-                BannerAdView view = new BannerAdView(activity);
-
-                // Семантика размеров - как у Defold-расширения: width и height
-                // задают inline-баннер до этих размеров (не fixed - эталон
-                // использовал inlineSize, креатив может быть ниже), только
-                // width - sticky этой ширины, без размера - стандартный
-                // 320x50 (в SDK 8 методы переименованы и требуют контекст).
-                BannerAdSize adSize;
-                if (width > 0 && height != null && height > 0)
-                    adSize = BannerAdSize.inline(activity, width, height);
-                else if (width > 0)
-                    adSize = BannerAdSize.sticky(activity, width);
-                else
-                    adSize = BannerAdSize.inline(activity, 320, 50);
-                view.setAdSize(adSize);
-
-                applyBannerPosition(activity, position);
-
-                view.setBannerAdEventListener(new BannerAdEventListener() {
+                if (slot.layout == null) slot.layout = createBannerLayout(activity);
+                // Незаконченную прошлую загрузку выбрасываем, а баннер на
+                // экране не трогаем: он виден, пока новый не придёт.
+                destroyBannerBackView(slot);
+
+                AdBackend.Banner banner = backend.banner(activity, width, height);
+                banner.setListener(new BannerAdEventListener() {
                     @Override
                     public void onAdLoaded() {
-                        Log.d(TAG, "Banner loaded: " + adUnitId);
+                        Log.d(TAG, "Banner loaded: " + slot.id + ": " + adUnitId);
                         // Загрузку мог вытеснить новый loadBanner, чей раннабл
                         // ещё ждёт очереди main looper и слушателя не снял:
                         // без проверки ушло бы фантомное событие со старым
-                        // adUnitId, а isBannerAdLoaded взводился бы впустую.
-                        if (pendingBannerLoadCall.get() != loadCall) return;
+                        // adUnitId, а баннер вставал бы в слот впустую. В
+                        // замеры такое заполнение тоже не идёт.
+                        if (!state.isLoading(load)) return;
+                        if (stats.loadFilled(load, 0)) loadTimeouts.filled(load, 0);
                         // Колбэк мог прийти после гибели activity - иначе утечка.
                         if (activity.isDestroyed()) {
-                            destroyBannerView();
-                            settleLoadCall(loadCall, false, "Activity destroyed");
+                            destroyBannerView(slot);
+                            settleOwnLoad(state, load, false, "Activity destroyed");
                             return;
                         }
-                        isBannerAdLoaded = true;
-                        notifyAdEvent("banner", "loaded", adUnitId, null, null);
-                        settleLoadCall(loadCall, true, null);
+                        // Позицию меняем вместе с креативом: старый баннер не
+                        // должен прыгать по экрану, пока грузится новый. Берём
+                        // последнюю запрошенную - showBanner(position) во время
+                        // загрузки новее той, что пришла с loadBanner.
+                        applyBannerPosition(activity, slot, slot.position);
+                        // Смена буферов и закрытие загрузки - один переход
+                        // слота: не прошёл - загрузку уже закрыли с потока моста.
+                        if (!swapBannerBuffers(slot, load, banner, adUnitId)) return;
+                        notifyBannerEvent(slot, "loaded", adUnitId, null);
+                        signalReady("banner", adUnitId);
+                        completeLoad(load, true, null, null);
                     }
 
                     @Override
                     public void onAdFailedToLoad(@NonNull AdRequestError error) {
-                        Log.e(TAG, "Banner failed to load: " + error.getDescription());
+                        Log.e(TAG, "Banner failed to load: " + slot.id + ": " + error.getDescription());
+                        stats.loadFailed(load, 0);
                         // Тот же guard от вытесненной загрузки, что в onAdLoaded.
-                        if (pendingBannerLoadCall.get() != loadCall) return;
-                        notifyAdEvent("banner", "failed_to_load", adUnitId, errorObject(error), null);
-                        settleLoadCall(loadCall, false, error.getDescription());
+                        if (!state.isLoading(load)) return;
+                        // Баннер на экране остаётся - неудача обновления не
+                        // должна стоить уже идущих показов.
+                        destroyBannerBackView(slot);
+                        notifyBannerEvent(slot, "failed_to_load", adUnitId, errorObject(error));
+                        settleOwnLoad(state, load, false, error.getDescription());
                     }
 
                     @Override
                     public void onAdClicked() {
-                        notifyAdEvent("banner", "clicked", adUnitId, null, null);
+                        notifyBannerEvent(slot, "clicked", adUnitId, null);
                     }
 
                     @Override
                     public void onImpression(@Nullable ImpressionData impressionData) {
-                        notifyAdEvent("banner", "impression", adUnitId, null, null);
+                        stats.impression("banner", adUnitId, 0);
+                        notifyBannerEvent(slot, "impression", adUnitId, null);
                     }
                 });
 
-                bannerAdView = view;
-                bannerLayout.addView(view);
-                view.setVisibility(View.INVISIBLE);
+                slot.backView = banner;
+                // Под передним буфером и невидимым: верстается в свой размер,
+                // но до смены буферов не рисуется.
+                banner.view().setVisibility(View.INVISIBLE);
+                slot.layout.addView(banner.view(), new FrameLayout.LayoutParams(
+                    FrameLayout.LayoutParams.WRAP_CONTENT,
+                    FrameLayout.LayoutParams.WRAP_CONTENT,
+                    Gravity.CENTER
+                ));
 
                 // Идентификатор блока теперь часть запроса, а не свойство view.
-                view.loadAd(new AdRequest.Builder(adUnitId).build());
+                stats.loadStarted("banner", adUnitId);
+                banner.load(request, adUnitId);
             } catch (Exception e) {
                 Log.e(TAG, "Error loading banner: " + e.getMessage());
-                settleLoadCall(loadCall, false, e.getMessage());
+                stats.loadFailed(load, 0);
+                settleOwnLoad(state, load, false, e.getMessage());
             }
-        });
+        };
+    }
+
+    /**
+     * Тик расписания: тот же запрос, что в последнем loadBanner этого
+     * баннера. Пока идёт его загрузка (в том числе из JS) или баннер ещё ни
+     * разу не пришёл, тик пропускаем - следующий будет через полный интервал.
+     */
+    private void refreshBanner(BannerSlot slot) {
+        BannerSlot.Spec spec = slot.spec;
+        if (spec == null || isPluginDestroyed || isActivityGone()) return;
+        AdSlot.State<AdBackend.Banner> state = slot.state.get();
+        if (state.ad == null || state.load != null) return;
+        // Задний буфер под давлением памяти выбросили бы сразу.
+        if (memoryPressure.tier() >= MemoryPressure.TIER_CACHE) return;
+        Log.d(TAG, "Banner refresh: " + slot.id + ": " + spec.adUnitId);
+        startBannerLoad(slot, spec, null);
     }
 
     @PluginMethod
     public void showBanner(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::showBanner)) return;
         setBannerVisible(call, true, call.getString("position"));
     }
 
     @PluginMethod
     public void hideBanner(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::hideBanner)) return;
         setBannerVisible(call, false, null);
     }
 
     @PluginMethod
     public void isBannerLoaded(PluginCall call) {
         if (isGone(call)) return;
-        JSObject ret = new JSObject();
-        ret.put("loaded", isBannerAdLoaded);
-        call.resolve(ret);
+        BannerSlot slot = findBannerSlot(call);
+        AdSlot.State<AdBackend.Banner> state = slot != null ? slot.state.get() : null;
+        boolean isLoaded = state != null && state.ad != null;
+        answer(call, Payloads.loaded(isLoaded, isLoaded ? AdStats.now() - state.loadedAt : 0));
     }
 
     /**
-     * Проверять bannerAdView здесь, на потоке моста, бесполезно: параллельный
-     * destroyBanner()/loadBanner() успеет обнулить его до того, как выполнится
+     * Проверять вью баннера здесь, на потоке моста, бесполезно: параллельный
+     * destroyBanner()/loadBanner() успеет обнулить её до того, как выполнится
      * наш runnable. Поэтому берём ссылку уже на UI-потоке.
      */
     private void setBannerVisible(PluginCall call, boolean isVisible, @Nullable String position) {
@@ -373,27 +711,47 @@ public class YandexAdsPlugin extends Plugin {
             return;
         }
 
-        activity.runOnUiThread(() -> {
-            BannerAdView view = bannerAdView;
-            if (view == null) {
+        String bannerId = bannerIdOf(call.getData());
+        runOnUi(() -> {
+            BannerSlot slot = banners.get(bannerId);
+            AdSlot.State<AdBackend.Banner> state = slot != null ? slot.state.get() : null;
+            AdBackend.Banner view = state != null ? state.ad : null;
+            if (slot == null || (view == null && slot.backView == null)) {
                 resolveFail(call, "Banner not loaded");
                 return;
             }
             // Позицию можно менять прямо при показе, в том числе у видимого
             // баннера, - как show_banner(pos) в Defold-расширении.
-            if (isVisible && position != null) applyBannerPosition(activity, position);
-            view.setVisibility(isVisible ? View.VISIBLE : View.INVISIBLE);
-            notifyAdEvent("banner", isVisible ? "shown" : "dismissed", bannerAdUnitId, null, null);
+            if (isVisible && position != null) {
+                slot.position = position;
+                applyBannerPosition(activity, slot, position);
+            }
+            slot.isVisible = isVisible;
+            // Скрытый баннер не обновляем: показ никто не увидит, а сеть и
+            // батарея потрачены. После показа таймер дотикивает остаток.
+            if (isVisible) slot.refresh.resume(BannerRefreshScheduler.PAUSE_HIDDEN);
+            else slot.refresh.pause(BannerRefreshScheduler.PAUSE_HIDDEN);
+            if (view == null) {
+                // Первая загрузка ещё идёт: состояние применит смена буферов.
+                resolveOk(call, null);
+                return;
+            }
+            if (isVisible) attachBannerView(slot, view);
+            else suspendBannerView(slot, view);
+            notifyBannerEvent(slot, isVisible ? "shown" : "dismissed", state.adUnitId, null);
             resolveOk(call, null);
         });
     }
 
+    /** С bannerId уничтожает этот баннер, без него - все. */
     @PluginMethod
     public void destroyBanner(PluginCall call) {
         if (isGone(call)) return;
+        String bannerId = call.getString("bannerId");
         runOnUi(() -> {
-            settleAndClearBannerLoad(false, "Banner destroyed");
-            destroyBannerView();
+            for (BannerSlot slot : banners.values()) {
+                if (bannerId == null || bannerId.equals(slot.id)) destroyBannerSlot(slot, "Banner destroyed");
+            }
             resolveOk(call, null);
         });
     }
@@ -403,149 +761,258 @@ public class YandexAdsPlugin extends Plugin {
     @PluginMethod
     public void loadInterstitial(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::loadInterstitial)) return;
+        if (isOffline(call, "interstitial", this::loadInterstitial)) return;
 
-        String adUnitId = call.getString("adUnitId");
-        if (adUnitId == null || adUnitId.isEmpty()) {
+        Waterfall.Plan plan = applyInterstitialOptions(call.getData());
+        if (plan == null) {
             rejectMissingParameter(call, "adUnitId");
             return;
         }
+        startInterstitialLoad(plan, hold(call));
+    }
+
+    /** Опции loadInterstitial; null - нет ни adUnitId, ни adUnitIds. */
+    @Nullable
+    private Waterfall.Plan applyInterstitialOptions(JSObject options) {
+        Waterfall.Plan plan = parsePlan(options);
+        if (plan == null) return null;
+        String primary = plan.primary();
+
+        Integer cacheSizeValue = options.getInteger("cacheSize");
+        int cacheSize = cacheSizeValue == null ? DEFAULT_INTERSTITIALS_PER_UNIT
+            : Math.max(1, Math.min(cacheSizeValue, MAX_INTERSTITIALS_PER_UNIT));
+        long ttlMs = parseTtl(options, interstitialTtl(primary));
+        for (String adUnitId : plan.adUnitIds) {
+            interstitialCacheSizes.put(adUnitId, cacheSize);
+            interstitialTtls.put(adUnitId, ttlMs);
+        }
+        interstitialPlans.put(primary, plan);
+        configureRefill(interstitialRefill, "interstitial", primary, options);
+
+        interstitialAdUnitId = primary;
+        return plan;
+    }
+
+    /**
+     * Загрузка interstitial в кеш: одного блока или группы блоков сразу.
+     * call == null - загрузку начал сам плагин (автодозагрузка), и отвечать
+     * некому.
+     *
+     * Группа грузится в слоте своего главного блока. Каждое заполнение группы
+     * сразу паркуется в кеш своего блока - проигравшие ступени тоже готовая
+     * реклама, выбрасывать их незачем; Waterfall решает лишь, когда и каким
+     * блоком ответить JS-стороне.
+     */
+    private void startInterstitialLoad(Waterfall.Plan plan, @Nullable PluginCall call) {
+        runLoads(prepareInterstitialLoad(plan, call, null));
+    }
 
-        interstitialAdUnitId = adUnitId;
-        // Загрузчик держит один запрос: новый вызов отменяет предыдущий, и его
-        // слушатель уже не сработает - закрываем то обещание сами.
-        final PluginCall loadCall = hold(call);
-        settle(pendingInterstitialLoadCall.getAndSet(loadCall), false, "Superseded by a new loadInterstitial() call");
-        armLoadWatchdog(pendingInterstitialLoadCall, loadCall, "interstitial");
+    @Nullable
+    private Runnable prepareInterstitialLoad(Waterfall.Plan plan, @Nullable PluginCall call, @Nullable AdLoad.Listener listener) {
+        // Загрузчик блока держит один запрос: новая загрузка того же главного
+        // блока отменяет предыдущую, и её слушатели уже не сработают -
+        // закрываем то обещание сами. Загрузки других блоков не трогаем.
+        final String primary = plan.primary();
+        final AdSlot<InterstitialAd> slot = interstitialSlot(primary);
+        final AdLoad load = new AdLoad("interstitial", plan, call, listener);
+        final Waterfall<InterstitialAd> waterfall = new Waterfall<>(plan.adUnitIds.size(), plan.strategy);
+        final List<AdRequest> requests = buildRequests(plan);
+        cancelRefillRetry("interstitial", primary);
+        abortLoad(slot.startLoad(load), "Superseded by a new loadInterstitial() call");
+        // Срок один на всю группу: ступени грузятся параллельно, и ждать
+        // каждую по очереди значило бы умножить худшее время ответа.
+        armLoadWatchdog(slot, load, null, () -> onInterstitialOutcome(slot, load, waterfall.onDeadline(), null));
 
         AppCompatActivity activity = getActivity();
         if (isActivityGone()) {
-            settleAndClearInterstitialLoad(false, "Activity is gone");
-            return;
+            settleOwnLoad(slot, load, false, "Activity is gone");
+            return null;
         }
-        activity.runOnUiThread(() -> {
+        return () -> {
             // Загрузку могли закрыть, пока раннабл ждал очереди UI-потока
             // (destroy, releaseAll после handleOnDestroy или следующий load):
             // без guard'а здесь создавался бы лоадер на мёртвой activity,
             // убирать который уже некому. Баннерный раннабл устроен так же.
-            if (pendingInterstitialLoadCall.get() != loadCall) return;
+            if (!slot.isLoading(load)) return;
             if (isActivityGone()) {
-                settleLoadCall(loadCall, false, "Activity is gone");
+                settleOwnLoad(slot, load, false, "Activity is gone");
                 return;
             }
-            try {
-                if (interstitialLoader == null) {
-                    // Один загрузчик на всё время жизни плагина - так советует
-                    // документация, это быстрее повторного создания.
-                    interstitialLoader = new InterstitialAdLoader(activity);
-                } else {
-                    // Предыдущий запрос отменяем явно: иначе его поздний
-                    // onAdLoaded перезаписал бы объявление этой загрузки, и
-                    // показан был бы не тот креатив.
-                    interstitialLoader.cancelLoading();
-                }
-
-                destroyInterstitialAd();
-
-                // В SDK 8 слушатель передаётся прямо в loadAd, поэтому вызов
-                // JS-стороны захватывается замыканием и гонок между
-                // параллельными загрузками нет.
-                interstitialLoader.loadAd(
-                    new AdRequest.Builder(adUnitId).build(),
-                    new InterstitialAdLoadListener() {
-                        @Override
-                        public void onAdLoaded(@NonNull InterstitialAd ad) {
-                            Log.d(TAG, "Interstitial loaded: " + adUnitId);
-                            // Эта загрузка могла быть вытеснена следующей:
-                            // cancelLoading() не отзывает уже поставленный в
-                            // очередь колбэк, и объявление подменило бы текущее.
-                            if (pendingInterstitialLoadCall.get() != loadCall) return;
-                            interstitialAd = ad;
-                            notifyAdEvent("interstitial", "loaded", adUnitId, null, null);
-                            settleLoadCall(loadCall, true, null);
-                        }
+            Map<String, AdBackend.Loader<InterstitialAdLoadListener>> loaders =
+                interstitialLoaders.computeIfAbsent(primary, k -> new ConcurrentHashMap<>());
+            for (int i = 0; i < plan.adUnitIds.size(); i++) {
+                final int index = i;
+                final String adUnitId = plan.adUnitIds.get(i);
+                try {
+                    AdBackend.Loader<InterstitialAdLoadListener> loader = loaders.get(adUnitId);
+                    if (loader == null) {
+                        // Один загрузчик на ступень группы на всё время жизни
+                        // плагина - так советует документация, это быстрее
+                        // повторного создания.
+                        loader = backend.interstitialLoader(activity);
+                        loaders.put(adUnitId, loader);
+                    } else {
+                        // Предыдущий запрос этой же группы отменяем явно: иначе
+                        // его поздний onAdLoaded положил бы в кеш лишнее
+                        // объявление. Запросы других групп не трогаем.
+                        loader.cancel();
+                    }
 
-                        @Override
-                        public void onAdFailedToLoad(@NonNull AdRequestError error) {
-                            Log.e(TAG, "Interstitial failed to load: " + error.getDescription());
-                            if (pendingInterstitialLoadCall.get() != loadCall) return;
-                            interstitialAd = null;
-                            notifyAdEvent("interstitial", "failed_to_load", adUnitId, errorObject(error), null);
-                            settleLoadCall(loadCall, false, error.getDescription());
+                    // В SDK 8 слушатель передаётся прямо в loadAd, поэтому
+                    // загрузка захватывается замыканием и гонок между
+                    // параллельными загрузками нет.
+                    stats.loadStarted("interstitial", adUnitId);
+                    loader.load(
+                        requests.get(index),
+                        adUnitId,
+                        new InterstitialAdLoadListener() {
+                            @Override
+                            public void onAdLoaded(@NonNull InterstitialAd ad) {
+                                Log.d(TAG, "Interstitial loaded: " + adUnitId);
+                                // Эта загрузка могла быть вытеснена следующей:
+                                // cancelLoading() не отзывает уже поставленный
+                                // в очередь колбэк, и в кеш и замеры попало бы лишнее.
+                                if (load.isCancelled) return;
+                                if (stats.loadFilled(load, index)) loadTimeouts.filled(load, index);
+                                long loadedAt = AdStats.now();
+                                interstitialCache.put(adUnitId, ad, interstitialCacheSize(adUnitId), loadedAt);
+                                armInterstitialExpiry(adUnitId, ad, loadedAt);
+                                // Ждущим годится любое заполнение блока, даже
+                                // проигравшей ступени: оно уже в кеше.
+                                signalReady("interstitial", adUnitId);
+                                onInterstitialOutcome(slot, load, waterfall.onLoaded(index, ad), null);
+                            }
+
+                            @Override
+                            public void onAdFailedToLoad(@NonNull AdRequestError error) {
+                                Log.e(TAG, "Interstitial failed to load: " + adUnitId + ": " + error.getDescription());
+                                stats.loadFailed(load, index);
+                                // Готовые объявления блока остаются в кеше:
+                                // неудача новой загрузки их не портит.
+                                if (!slot.isLoading(load)) return;
+                                onInterstitialOutcome(slot, load, waterfall.onFailed(index), error);
+                            }
                         }
-                    }
-                );
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading interstitial: " + e.getMessage());
-                settleLoadCall(loadCall, false, e.getMessage());
+                    );
+                } catch (Exception e) {
+                    Log.e(TAG, "Error loading interstitial: " + e.getMessage());
+                    stats.loadFailed(load, index);
+                    onInterstitialOutcome(slot, load, waterfall.onFailed(index),
+                        new AdRequestError(0, e.getMessage() == null ? "" : e.getMessage()));
+                }
             }
-        });
+        };
+    }
+
+    /**
+     * Отвечает по решению Waterfall. Объявления уже в кеше своих блоков,
+     * поэтому проигравших не освобождаем - они так и остаются припаркованными.
+     */
+    private void onInterstitialOutcome(AdSlot<InterstitialAd> slot, AdLoad load,
+                                       Waterfall.Outcome<InterstitialAd> outcome,
+                                       @Nullable AdRequestError lastError) {
+        if (!outcome.isDecided() || !slot.isLoading(load)) return;
+        if (outcome.winner >= 0) {
+            String winnerAdUnitId = load.plan.adUnitIds.get(outcome.winner);
+            // showInterstitial() без adUnitId покажет именно победителя.
+            interstitialAdUnitId = winnerAdUnitId;
+            notifyAdEvent("interstitial", "loaded", winnerAdUnitId, null, null);
+            settleOwnLoad(slot, load, true, null, winnerAdUnitId);
+            return;
+        }
+        if (lastError == null) {
+            settleLoadTimeout(slot, load, null);
+            return;
+        }
+        notifyAdEvent("interstitial", "failed_to_load", load.adUnitId, errorObject(lastError), null);
+        settleOwnLoad(slot, load, false, lastError.getDescription());
     }
 
     @PluginMethod
     public void showInterstitial(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::showInterstitial)) return;
 
-        if (interstitialAd == null) {
+        // Без adUnitId показываем блок последней загрузки, а если он пуст -
+        // любой готовый, начиная с последнего востребованного.
+        String requestedAdUnitId = call.getString("adUnitId");
+        if (peekInterstitial(requestedAdUnitId) == null) {
             resolveFail(call, "Interstitial not loaded");
             return;
         }
 
         final PluginCall showCall = hold(call);
-        settle(pendingInterstitialShowCall.getAndSet(showCall), false, "Superseded by a new showInterstitial() call");
+        settle(interstitialShow.startShow(showCall), false, "Superseded by a new showInterstitial() call");
 
         AppCompatActivity activity = getActivity();
         if (isActivityGone()) {
             settleInterstitialShow(false, "Activity is gone");
             return;
         }
-        activity.runOnUiThread(() -> {
+        runOnUi(() -> {
             // Вызов могли закрыть, пока показ ждал очереди UI-потока
             // (destroyInterstitial или новый showInterstitial). Тогда показывать
             // нельзя: реклама появилась бы поверх игры, а JS уже считает показ
             // несостоявшимся и события о закрытии не ждёт.
-            if (pendingInterstitialShowCall.get() != showCall) return;
+            if (!interstitialShow.isShowCall(showCall)) return;
 
-            InterstitialAd ad = interstitialAd;
-            if (ad == null) {
-                settleOwnCall(pendingInterstitialShowCall, showCall, false, "Interstitial not loaded");
+            AdCache.Entry<InterstitialAd> entry = takeInterstitial(requestedAdUnitId);
+            if (entry == null) {
+                settleInterstitialShow(showCall, false, "Interstitial not loaded");
+                return;
+            }
+            // С этого момента объявление показывается и из кеша уже изъято:
+            // следующее можно грузить, не трогая то, что на экране.
+            final InterstitialAd ad = entry.ad;
+            if (!interstitialShow.show(showCall, ad)) {
+                // Вызов закрыли с потока моста, пока объявление доставали из
+                // кеша: показа не будет, готовое возвращается на место.
+                restoreInterstitial(entry);
                 return;
             }
-            // С этого момента объявление показывается, а поле предзагрузки
-            // свободно: следующее можно грузить, не трогая то, что на экране.
-            interstitialAd = null;
-            showingInterstitialAd = ad;
-            final String shownAdUnitId = interstitialAdUnitId;
+            // Баннер под полноэкранной рекламой не виден - не обновляем его.
+            pauseBannerRefresh(BannerRefreshScheduler.PAUSE_INTERSTITIAL);
+            final String shownAdUnitId = entry.adUnitId;
             armInterstitialShowWatchdog(showCall, ad);
 
+            final long showStartedAt = AdStats.now();
             ad.setAdEventListener(new InterstitialAdEventListener() {
+                // Для длительности показа: до onAdShown - 0.
+                private long shownAt = 0;
+
                 @Override
                 public void onAdShown() {
+                    shownAt = AdStats.now();
+                    stats.shown("interstitial", shownAdUnitId, showStartedAt);
                     notifyAdEvent("interstitial", "shown", shownAdUnitId, null, null);
                     // Отвечаем по факту показа, а не по факту вызова show(),
                     // и строго своему вызову: поле могло уже смениться.
-                    settleOwnCall(pendingInterstitialShowCall, showCall, true, null);
+                    settleInterstitialShow(showCall, true, null);
                 }
 
                 @Override
                 public void onAdFailedToShow(@NonNull AdError adError) {
                     Log.e(TAG, "Interstitial failed to show: " + adError.getDescription());
+                    stats.showFailed("interstitial", shownAdUnitId);
                     notifyAdEvent("interstitial", "failed_to_show", shownAdUnitId,
-                        errorObject(0, adError.getDescription()), null);
+                        Payloads.error(0, adError.getDescription()), null);
                     releaseShowingInterstitial(ad);
-                    settleOwnCall(pendingInterstitialShowCall, showCall, false, adError.getDescription());
+                    settleInterstitialShow(showCall, false, adError.getDescription());
+                    refillAfterShow("interstitial", shownAdUnitId);
                 }
 
                 @Override
                 public void onAdDismissed() {
+                    stats.dismissed("interstitial", shownAdUnitId, shownAt);
                     notifyAdEvent("interstitial", "dismissed", shownAdUnitId, null, null);
                     // Показанный объект переиспользовать нельзя - освобождаем.
                     releaseShowingInterstitial(ad);
                     // Обычно обещание показа уже закрыто в onAdShown; страховка
                     // на случай dismissed без shown (как у rewarded) - иначе
                     // вызов ждал бы пятиминутного сторожа.
-                    settleOwnCall(pendingInterstitialShowCall, showCall, true, null);
+                    settleInterstitialShow(showCall, true, null);
+                    refillAfterShow("interstitial", shownAdUnitId);
                 }
 
                 @Override
@@ -555,16 +1022,19 @@ public class YandexAdsPlugin extends Plugin {
 
                 @Override
                 public void onAdImpression(@Nullable ImpressionData impressionData) {
+                    stats.impression("interstitial", shownAdUnitId, showStartedAt);
                     notifyAdEvent("interstitial", "impression", shownAdUnitId, null, null);
                 }
             });
 
             try {
+                stats.showStarted("interstitial", shownAdUnitId);
                 ad.show(activity);
             } catch (Exception e) {
                 Log.e(TAG, "Error showing interstitial: " + e.getMessage());
+                stats.showFailed("interstitial", shownAdUnitId);
                 releaseShowingInterstitial(ad);
-                settleOwnCall(pendingInterstitialShowCall, showCall, false, e.getMessage());
+                settleInterstitialShow(showCall, false, e.getMessage());
             }
         });
     }
@@ -574,21 +1044,37 @@ public class YandexAdsPlugin extends Plugin {
         if (isGone(call)) return;
         // Без поднятого SDK объявления нет, но ответ обязан быть той же формы:
         // в типе плагина поле loaded объявлено обязательным.
-        JSObject ret = new JSObject();
-        ret.put("loaded", interstitialAd != null);
-        call.resolve(ret);
+        // Возраст - того объявления, которое взял бы showInterstitial().
+        AdCache.Entry<InterstitialAd> entry = peekInterstitial(call.getString("adUnitId"));
+        answer(call, Payloads.loaded(entry != null, entry != null ? AdStats.now() - entry.loadedAt : 0));
     }
 
+    /**
+     * С adUnitId освобождает только готовые объявления и загрузку этого блока;
+     * показ идёт своим чередом. Без него - всё, как раньше, включая показ.
+     */
     @PluginMethod
     public void destroyInterstitial(PluginCall call) {
         if (isGone(call)) return;
-        // Слушателя сейчас снимут - ждущий показ иначе висел бы до сторожа.
-        settleInterstitialShow(false, "Interstitial destroyed");
-        settleAndClearInterstitialLoad(false, "Interstitial destroyed");
+        String adUnitId = call.getString("adUnitId");
+        if (adUnitId == null) {
+            // Слушателя сейчас снимут - ждущий показ иначе висел бы до сторожа.
+            settleInterstitialShow(false, "Interstitial destroyed");
+        }
+        abortInterstitialLoads(adUnitId, "Interstitial destroyed");
+        // Уничтоженный блок не должен тут же загрузиться заново сам.
+        disableRefill(interstitialRefill, "interstitial", adUnitId);
         runOnUi(() -> {
-            if (interstitialLoader != null) interstitialLoader.cancelLoading();
-            destroyInterstitialAd();
-            releaseShowingInterstitial(showingInterstitialAd);
+            // Загрузку отменили группе с этим главным блоком - её запросы и снимаем.
+            for (Map.Entry<String, Map<String, AdBackend.Loader<InterstitialAdLoadListener>>> e
+                : interstitialLoaders.entrySet()) {
+                if (adUnitId != null && !adUnitId.equals(e.getKey())) continue;
+                for (AdBackend.Loader<InterstitialAdLoadListener> loader : e.getValue().values()) loader.cancel();
+            }
+            interstitialCache.clear(adUnitId);
+            if (adUnitId == null) evictedInterstitialUnits.clear();
+            else evictedInterstitialUnits.remove(adUnitId);
+            if (adUnitId == null) releaseShowingInterstitial(interstitialShow.get().showing);
             resolveOk(call, null);
         });
     }
@@ -598,119 +1084,211 @@ public class YandexAdsPlugin extends Plugin {
     @PluginMethod
     public void loadRewarded(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::loadRewarded)) return;
+        if (isOffline(call, "rewarded", this::loadRewarded)) return;
 
-        String adUnitId = call.getString("adUnitId");
-        if (adUnitId == null || adUnitId.isEmpty()) {
+        Waterfall.Plan plan = applyRewardedOptions(call.getData());
+        if (plan == null) {
             rejectMissingParameter(call, "adUnitId");
             return;
         }
+        startRewardedLoad(plan, hold(call));
+    }
+
+    /** Опции loadRewarded; null - нет ни adUnitId, ни adUnitIds. */
+    @Nullable
+    private Waterfall.Plan applyRewardedOptions(JSObject options) {
+        Waterfall.Plan plan = parsePlan(options);
+        if (plan == null) return null;
+        configureRefill(rewardedRefill, "rewarded", plan.primary(), options);
+        rewardedTtlMs = parseTtl(options, rewardedTtlMs);
+        rewardedPlan = plan;
+        return plan;
+    }
+
+    /**
+     * Загрузка rewarded: одного блока или группы сразу; call == null - её
+     * начал сам плагин. Слот rewarded один, поэтому победитель группы
+     * занимает его, а остальные запросы отменяются и поздние заполнения
+     * освобождаются.
+     */
+    private void startRewardedLoad(Waterfall.Plan plan, @Nullable PluginCall call) {
+        runLoads(prepareRewardedLoad(plan, call, null, false));
+    }
 
-        rewardedAdUnitId = adUnitId;
-        final PluginCall loadCall = hold(call);
-        settle(pendingRewardedLoadCall.getAndSet(loadCall), false, "Superseded by a new loadRewarded() call");
-        armLoadWatchdog(pendingRewardedLoadCall, loadCall, "rewarded");
+    @Nullable
+    private Runnable prepareRewardedLoad(Waterfall.Plan plan, @Nullable PluginCall call,
+                                         @Nullable AdLoad.Listener listener, boolean keepCurrentAd) {
+        final AdLoad load = new AdLoad("rewarded", plan, call, listener);
+        final Waterfall<RewardedAd> waterfall = new Waterfall<>(plan.adUnitIds.size(), plan.strategy);
+        final List<AdRequest> requests = buildRequests(plan);
+        cancelRefillRetry("rewarded", plan.primary());
+        abortLoad(rewarded.startLoad(load), "Superseded by a new loadRewarded() call");
+        armLoadWatchdog(rewarded, load, null, () -> onRewardedOutcome(load, waterfall.onDeadline(), null));
 
         AppCompatActivity activity = getActivity();
         if (isActivityGone()) {
-            settleAndClearRewardedLoad(false, "Activity is gone");
-            return;
+            settleOwnLoad(rewarded, load, false, "Activity is gone");
+            return null;
         }
-        activity.runOnUiThread(() -> {
+        return () -> {
             // Тот же guard от закрытой загрузки, что у interstitial и баннера.
-            if (pendingRewardedLoadCall.get() != loadCall) return;
+            if (!rewarded.isLoading(load)) return;
             if (isActivityGone()) {
-                settleLoadCall(loadCall, false, "Activity is gone");
+                settleOwnLoad(rewarded, load, false, "Activity is gone");
                 return;
             }
-            try {
-                if (rewardedLoader == null) {
-                    rewardedLoader = new RewardedAdLoader(activity);
-                } else {
-                    rewardedLoader.cancelLoading();
-                }
 
-                destroyRewardedAd();
-
-                rewardedLoader.loadAd(
-                    new AdRequest.Builder(adUnitId).build(),
-                    new RewardedAdLoadListener() {
-                        @Override
-                        public void onAdLoaded(@NonNull RewardedAd ad) {
-                            Log.d(TAG, "Rewarded loaded: " + adUnitId);
-                            if (pendingRewardedLoadCall.get() != loadCall) return;
-                            rewardedAd = ad;
-                            notifyAdEvent("rewarded", "loaded", adUnitId, null, null);
-                            settleLoadCall(loadCall, true, null);
-                        }
+            // Прошлая группа могла грузить другие блоки - её запросы тоже
+            // отменяем, иначе их заполнения пришли бы впустую.
+            for (AdBackend.Loader<RewardedAdLoadListener> loader : rewardedLoaders.values()) loader.cancel();
+            // Замена по сроку жизни не опустошает слот: прежнее объявление
+            // можно показать, пока новое не пришло.
+            if (!keepCurrentAd) destroyRewardedAd();
 
-                        @Override
-                        public void onAdFailedToLoad(@NonNull AdRequestError error) {
-                            Log.e(TAG, "Rewarded failed to load: " + error.getDescription());
-                            if (pendingRewardedLoadCall.get() != loadCall) return;
-                            rewardedAd = null;
-                            notifyAdEvent("rewarded", "failed_to_load", adUnitId, errorObject(error), null);
-                            settleLoadCall(loadCall, false, error.getDescription());
-                        }
+            for (int i = 0; i < plan.adUnitIds.size(); i++) {
+                final int index = i;
+                final String adUnitId = plan.adUnitIds.get(i);
+                try {
+                    AdBackend.Loader<RewardedAdLoadListener> loader = rewardedLoaders.get(adUnitId);
+                    if (loader == null) {
+                        loader = backend.rewardedLoader(activity);
+                        rewardedLoaders.put(adUnitId, loader);
                     }
-                );
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading rewarded: " + e.getMessage());
-                settleLoadCall(loadCall, false, e.getMessage());
+
+                    stats.loadStarted("rewarded", adUnitId);
+                    loader.load(
+                        requests.get(index),
+                        adUnitId,
+                        new RewardedAdLoadListener() {
+                            @Override
+                            public void onAdLoaded(@NonNull RewardedAd ad) {
+                                Log.d(TAG, "Rewarded loaded: " + adUnitId);
+                                // Вытесненная загрузка в замеры не идёт; проигравшая
+                                // ступень своей загрузки - идёт, хоть слот уже и решён.
+                                if (load.isCancelled) return;
+                                if (stats.loadFilled(load, index)) loadTimeouts.filled(load, index);
+                                if (!rewarded.isLoading(load)) return;
+                                onRewardedOutcome(load, waterfall.onLoaded(index, ad), null);
+                            }
+
+                            @Override
+                            public void onAdFailedToLoad(@NonNull AdRequestError error) {
+                                Log.e(TAG, "Rewarded failed to load: " + adUnitId + ": " + error.getDescription());
+                                stats.loadFailed(load, index);
+                                if (!rewarded.isLoading(load)) return;
+                                onRewardedOutcome(load, waterfall.onFailed(index), error);
+                            }
+                        }
+                    );
+                } catch (Exception e) {
+                    Log.e(TAG, "Error loading rewarded: " + e.getMessage());
+                    stats.loadFailed(load, index);
+                    onRewardedOutcome(load, waterfall.onFailed(index),
+                        new AdRequestError(0, e.getMessage() == null ? "" : e.getMessage()));
+                }
             }
-        });
+        };
+    }
+
+    /** Отвечает по решению Waterfall: победитель занимает слот, прочие освобождаются. */
+    private void onRewardedOutcome(AdLoad load, Waterfall.Outcome<RewardedAd> outcome,
+                                   @Nullable AdRequestError lastError) {
+        for (RewardedAd loser : outcome.losers) loser.setAdEventListener(null);
+        if (!outcome.isDecided() || !rewarded.isLoading(load)) return;
+        if (outcome.winner >= 0 && outcome.ad != null) {
+            String winnerAdUnitId = load.plan.adUnitIds.get(outcome.winner);
+            // Остальные ступени больше не нужны - их запросы только тратили бы сеть.
+            for (Map.Entry<String, AdBackend.Loader<RewardedAdLoadListener>> e : rewardedLoaders.entrySet()) {
+                if (!e.getKey().equals(winnerAdUnitId)) e.getValue().cancel();
+            }
+            // Ролик встаёт в слот тем же CAS, что закрывает загрузку: сторож
+            // или destroyRewarded() с потока моста не закроют её второй раз.
+            long loadedAt = AdStats.now();
+            AdSlot.State<RewardedAd> before = rewarded.fill(load, winnerAdUnitId, outcome.ad, loadedAt);
+            if (before == null) {
+                outcome.ad.setAdEventListener(null);
+                return;
+            }
+            // Замена по сроку жизни держала прежнее объявление до победы.
+            if (before.ad != null) releaseRewardedAd(before.ad);
+            armRewardedExpiry(outcome.ad, loadedAt);
+            notifyAdEvent("rewarded", "loaded", winnerAdUnitId, null, null);
+            signalReady("rewarded", winnerAdUnitId);
+            completeLoad(load, true, null, winnerAdUnitId);
+            return;
+        }
+        for (AdBackend.Loader<RewardedAdLoadListener> loader : rewardedLoaders.values()) loader.cancel();
+        if (lastError == null) {
+            settleLoadTimeout(rewarded, load, null);
+            return;
+        }
+        notifyAdEvent("rewarded", "failed_to_load", load.adUnitId, errorObject(lastError), null);
+        settleOwnLoad(rewarded, load, false, lastError.getDescription());
     }
 
     @PluginMethod
     public void showRewarded(PluginCall call) {
         if (isGone(call)) return;
-        if (notInitialized(call)) return;
+        if (notInitialized(call, this::showRewarded)) return;
 
-        if (rewardedAd == null) {
+        if (freshRewarded().ad == null) {
             resolveFail(call, "Rewarded ad not loaded");
             return;
         }
 
         final PluginCall showCall = hold(call);
-        settle(pendingRewardedShowCall.getAndSet(showCall), false, "Superseded by a new showRewarded() call");
+        settle(rewarded.startShow(showCall), false, "Superseded by a new showRewarded() call");
 
         AppCompatActivity activity = getActivity();
         if (isActivityGone()) {
             settleRewardedShow(false, null, "Activity is gone");
             return;
         }
-        activity.runOnUiThread(() -> {
-            if (pendingRewardedShowCall.get() != showCall) return;
+        runOnUi(() -> {
+            if (!rewarded.isShowCall(showCall)) return;
 
-            RewardedAd ad = rewardedAd;
-            if (ad == null) {
+            // Срок мог выйти, пока показ ждал UI-потока.
+            freshRewarded();
+            // ready → showing одним переходом: блок и ролик из одного снимка.
+            AdSlot.State<RewardedAd> ready = rewarded.show(showCall);
+            if (ready == null || ready.ad == null) {
                 settleRewardedShow(showCall, false, null, "Rewarded ad not loaded");
                 return;
             }
-            rewardedAd = null;
-            showingRewardedAd = ad;
+            final RewardedAd ad = ready.ad;
+            deadlines.cancel(ad);
+            pauseBannerRefresh(BannerRefreshScheduler.PAUSE_REWARDED);
 
             // Награда принадлежит этому показу. В общем поле её мог бы
             // перезаписать запоздалый onRewarded брошенного ролика - и игрок
             // получил бы награду за непросмотренный.
             final Reward[] reward = { null };
-            final String shownAdUnitId = rewardedAdUnitId;
+            final String shownAdUnitId = ready.adUnitId;
             armRewardedShowWatchdog(showCall, ad, reward);
 
+            final long showStartedAt = AdStats.now();
             ad.setAdEventListener(new RewardedAdEventListener() {
+                // Для длительности показа: до onAdShown - 0.
+                private long shownAt = 0;
+
                 @Override
                 public void onAdShown() {
+                    shownAt = AdStats.now();
+                    stats.shown("rewarded", shownAdUnitId, showStartedAt);
                     notifyAdEvent("rewarded", "shown", shownAdUnitId, null, null);
                 }
 
                 @Override
                 public void onAdFailedToShow(@NonNull AdError adError) {
                     Log.e(TAG, "Rewarded failed to show: " + adError.getDescription());
+                    stats.showFailed("rewarded", shownAdUnitId);
                     notifyAdEvent("rewarded", "failed_to_show", shownAdUnitId,
-                        errorObject(0, adError.getDescription()), null);
+                        Payloads.error(0, adError.getDescription()), null);
                     releaseShowingRewarded(ad);
                     // Ролика не было - попытку сжигать нельзя.
                     settleRewardedShow(showCall, false, null, adError.getDescription());
+                    refillAfterShow("rewarded", shownAdUnitId);
                 }
 
                 @Override
@@ -718,18 +1296,18 @@ public class YandexAdsPlugin extends Plugin {
                     Log.d(TAG, "Rewarded: " + rewardValue.getAmount() + " " + rewardValue.getType());
                     reward[0] = rewardValue;
 
-                    JSObject rewardObj = new JSObject();
-                    rewardObj.put("amount", rewardValue.getAmount());
-                    rewardObj.put("type", rewardValue.getType());
-                    notifyAdEvent("rewarded", "rewarded", shownAdUnitId, null, rewardObj);
+                    notifyAdEvent("rewarded", "rewarded", shownAdUnitId, null,
+                        Payloads.reward(rewardValue.getAmount(), rewardValue.getType()));
                 }
 
                 @Override
                 public void onAdDismissed() {
+                    stats.dismissed("rewarded", shownAdUnitId, shownAt);
                     notifyAdEvent("rewarded", "dismissed", shownAdUnitId, null, null);
                     // Только к закрытию ролика ясно, досмотрел его игрок или нет.
                     settleRewardedShow(showCall, true, reward[0], null);
                     releaseShowingRewarded(ad);
+                    refillAfterShow("rewarded", shownAdUnitId);
                 }
 
                 @Override
@@ -739,14 +1317,17 @@ public class YandexAdsPlugin extends Plugin {
 
                 @Override
                 public void onAdImpression(@Nullable ImpressionData impressionData) {
+                    stats.impression("rewarded", shownAdUnitId, showStartedAt);
                     notifyAdEvent("rewarded", "impression", shownAdUnitId, null, null);
                 }
             });
 
             try {
+                stats.showStarted("rewarded", shownAdUnitId);
                 ad.show(activity);
             } catch (Exception e) {
                 Log.e(TAG, "Error showing rewarded: " + e.getMessage());
+                stats.showFailed("rewarded", shownAdUnitId);
                 releaseShowingRewarded(ad);
                 settleRewardedShow(showCall, false, null, e.getMessage());
             }
@@ -756,230 +1337,1170 @@ public class YandexAdsPlugin extends Plugin {
     @PluginMethod
     public void isRewardedLoaded(PluginCall call) {
         if (isGone(call)) return;
-        JSObject ret = new JSObject();
-        ret.put("loaded", rewardedAd != null);
-        call.resolve(ret);
+        AdSlot.State<RewardedAd> state = freshRewarded();
+        boolean isLoaded = state.ad != null;
+        answer(call, Payloads.loaded(isLoaded, isLoaded ? AdStats.now() - state.loadedAt : 0));
     }
 
     @PluginMethod
     public void destroyRewarded(PluginCall call) {
         if (isGone(call)) return;
         settleRewardedShow(false, null, "Rewarded ad destroyed");
-        settleAndClearRewardedLoad(false, "Rewarded ad destroyed");
+        abortLoad(rewarded.cancelLoad(), "Rewarded ad destroyed");
+        disableRefill(rewardedRefill, "rewarded", null);
         runOnUi(() -> {
-            if (rewardedLoader != null) rewardedLoader.cancelLoading();
+            for (AdBackend.Loader<RewardedAdLoadListener> loader : rewardedLoaders.values()) loader.cancel();
             destroyRewardedAd();
-            releaseShowingRewarded(showingRewardedAd);
+            isRewardedEvicted = false;
+            releaseShowingRewarded(rewarded.get().showing);
             resolveOk(call, null);
         });
     }
 
-    // MARK: - Helpers
+    // MARK: - Events
 
     /**
-     * Позиции - как getGravity() в Defold-расширении: три горизонтали сверху
-     * и снизу плюс центр экрана. "top"/"bottom" - центральные варианты своих
-     * рядов; "top-center"/"bottom-center" принимаем как их синонимы.
+     * Пакетный режим adEvent: enabled (по умолчанию true) и intervalMs - 0
+     * или нет поля - раз в кадр, иначе раз в столько мс (не реже раза в
+     * секунду). В пакетном режиме события приходят массивом в adEvents.
      */
-    private void applyBannerPosition(@NonNull AppCompatActivity activity, @Nullable String position) {
-        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) bannerLayout.getLayoutParams();
-        String pos = position == null ? "bottom" : position.toLowerCase(Locale.ROOT);
-        int gravity;
-        switch (pos) {
-            case "top-left":
-                gravity = Gravity.TOP | Gravity.LEFT;
-                break;
-            case "top":
-            case "top-center":
-                gravity = Gravity.TOP | Gravity.CENTER_HORIZONTAL;
-                break;
-            case "top-right":
-                gravity = Gravity.TOP | Gravity.RIGHT;
-                break;
-            case "bottom-left":
-                gravity = Gravity.BOTTOM | Gravity.LEFT;
-                break;
-            case "bottom-right":
-                gravity = Gravity.BOTTOM | Gravity.RIGHT;
-                break;
-            case "center":
-                gravity = Gravity.CENTER;
-                break;
-            default:
-                gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
-                break;
-        }
-        params.gravity = gravity;
-
-        // Верхний ряд опускаем под статусбар, иначе баннер лёг бы под вырез.
-        int topMargin = 0;
-        if ((gravity & Gravity.TOP) == Gravity.TOP) {
-            int resourceId = activity.getResources().getIdentifier("status_bar_height", "dimen", "android");
-            if (resourceId > 0) topMargin = activity.getResources().getDimensionPixelSize(resourceId);
-        }
-        params.topMargin = topMargin;
-        bannerLayout.setLayoutParams(params);
+    @PluginMethod
+    public void setEventBatching(PluginCall call) {
+        if (isGone(call)) return;
+        boolean enabled = call.getBoolean("enabled", true);
+        Integer intervalValue = call.getInt("intervalMs");
+        long intervalMs = intervalValue != null ? Math.max(0, Math.min(intervalValue, MAX_EVENT_BATCH_INTERVAL_MS)) : 0;
+        eventBatcher.configure(enabled, intervalMs);
+        resolveOk(call, null);
     }
 
+    // MARK: - Preload
+
     /**
-     * Снимает баннер с экрана. Ждущее обещание загрузки НЕ трогает: этот метод
-     * вызывается и в начале новой загрузки, где закрывать только что
-     * зарегистрированный вызов нельзя. Закрытием занимаются те, кто
-     * действительно обрывает загрузку, - destroyBanner() и releaseAll().
+     * Стартовая предзагрузка одним вызовом: секции banner, interstitial и
+     * rewarded - те же опции, что у loadBanner/loadInterstitial/loadRewarded.
+     * Все загрузки стартуют за один проход UI-потока, а ответ - один на всех,
+     * когда ответили все или вышел общий срок timeoutMs. Ход каждой загрузки
+     * виден по обычным событиям adEvent.
      */
-    private void destroyBannerView() {
-        isBannerAdLoaded = false;
-        BannerAdView view = bannerAdView;
-        if (view == null) return;
-        bannerAdView = null;
-        view.setBannerAdEventListener(null);
-        view.destroy();
-        LinearLayout layout = bannerLayout;
-        if (layout != null) layout.removeAllViews();
-    }
+    @PluginMethod
+    public void preloadAll(PluginCall call) {
+        if (isGone(call)) return;
+        if (notInitialized(call, this::preloadAll)) return;
+        if (isOffline(call, "preload", this::preloadAll)) return;
+
+        JSObject banner = call.getObject("banner");
+        JSObject interstitial = call.getObject("interstitial");
+        JSObject rewarded = call.getObject("rewarded");
+        if (banner == null && interstitial == null && rewarded == null) {
+            resolveFail(call, "Nothing to preload");
+            return;
+        }
 
-    // Документация требует снимать слушателя с показанного объявления, иначе
-    // объект и его слушатель остаются в памяти.
-    private void destroyInterstitialAd() {
-        InterstitialAd ad = interstitialAd;
-        if (ad == null) return;
-        interstitialAd = null;
-        ad.setAdEventListener(null);
-    }
+        final PluginCall batchCall = hold(call);
+        PreloadBatch batch = new PreloadBatch(result -> {
+            deadlines.cancel(batchCall);
+            release(batchCall, result);
+        });
+        // Все типы - до первой загрузки: отказ при подготовке отвечает сразу,
+        // и пачка не должна закрыться, пока не заявлены остальные.
+        if (banner != null) batch.expect("banner");
+        if (interstitial != null) batch.expect("interstitial");
+        if (rewarded != null) batch.expect("rewarded");
+
+        List<Runnable> passes = new ArrayList<>();
+        if (banner != null) {
+            BannerSlot.Spec spec = parseBannerSpec(banner);
+            BannerSlot slot = spec != null ? obtainBannerSlot(bannerIdOf(banner)) : null;
+            if (spec == null) {
+                batch.settle("banner", false, "Missing required parameter: adUnitId", null);
+            } else if (slot == null) {
+                batch.settle("banner", false, "Too many banners", null);
+            } else {
+                applyBannerOptions(slot, spec, banner);
+                passes.add(prepareBannerLoad(slot, spec, null, batch));
+            }
+        }
+        if (interstitial != null) {
+            Waterfall.Plan plan = applyInterstitialOptions(interstitial);
+            if (plan == null) batch.settle("interstitial", false, "Missing required parameter: adUnitId", null);
+            else passes.add(prepareInterstitialLoad(plan, null, batch));
+        }
+        if (rewarded != null) {
+            Waterfall.Plan plan = applyRewardedOptions(rewarded);
+            if (plan == null) batch.settle("rewarded", false, "Missing required parameter: adUnitId", null);
+            else passes.add(prepareRewardedLoad(plan, null, batch, false));
+        }
 
-    private void destroyRewardedAd() {
-        RewardedAd ad = rewardedAd;
-        if (ad == null) return;
-        rewardedAd = null;
-        ad.setAdEventListener(null);
+        // Все секции отклонены при подготовке - пачка уже ответила.
+        if (passes.isEmpty()) return;
+        // Срок пачки ставим после сторожей загрузок: при равных сроках они
+        // срабатывают раньше, и загрузка отвечает своим таймаутом, а не pending.
+        Integer timeoutValue = call.getInt("timeoutMs");
+        long timeoutMs = timeoutValue != null && timeoutValue > 0
+            ? Math.min(timeoutValue, LOAD_TIMEOUT_MS) : LOAD_TIMEOUT_MS;
+        deadlines.schedule(batchCall, timeoutMs, batch::expire);
+
+        runLoads(passes.toArray(new Runnable[0]));
     }
 
     /**
-     * Выполняет действие на UI-потоке.
-     *
-     * Методы плагина Capacitor зовёт на своём потоке, а работа с View оттуда
-     * даёт CalledFromWrongThreadException; исключение же, вылетевшее из метода
-     * плагина, Capacitor перебрасывает как RuntimeException и роняет процесс.
-     *
-     * Ветка с mainHandler - страховка на случай, если Bridge однажды начнёт
-     * отдавать null: сегодня getActivity() возвращает одно и то же final-поле и
-     * null не бывает (состояние activity проверяется через isActivityGone).
+     * Запросы ступеней группы - по индексу ступени. Собираются при подготовке
+     * загрузки, на потоке вызова: на UI-поток уходят только загрузчики.
      */
-    private void runOnUi(Runnable action) {
-        AppCompatActivity activity = getActivity();
-        if (activity != null) activity.runOnUiThread(action);
-        else mainHandler.post(action);
+    private static List<AdRequest> buildRequests(Waterfall.Plan plan) {
+        List<AdRequest> requests = new ArrayList<>(plan.adUnitIds.size());
+        for (String adUnitId : plan.adUnitIds) requests.add(new AdRequest.Builder(adUnitId).build());
+        return requests;
     }
 
     /**
-     * Activity непригодна для показа рекламы.
-     *
-     * Проверять getActivity() на null бесполезно: Bridge отдаёт одно и то же
-     * final-поле и после onDestroy, поэтому ссылка всегда есть, а activity за
-     * ней может быть уже уничтожена. Показ на такой activity даёт
-     * BadTokenException, а прикрепление баннера - вью, которую никто не увидит.
+     * Выполняет подготовленные загрузки за один проход UI-потока. null -
+     * загрузку закрыли уже при подготовке.
      */
-    private boolean isActivityGone() {
-        AppCompatActivity activity = getActivity();
-        return activity == null || activity.isDestroyed() || activity.isFinishing();
+    private void runLoads(Runnable... passes) {
+        runOnUi(() -> {
+            for (Runnable pass : passes) {
+                if (pass != null) pass.run();
+            }
+        });
     }
 
-    /** Плагин уже разобран - принимать новую работу нельзя. */
-    private boolean isGone(PluginCall call) {
-        if (!isPluginDestroyed) return false;
-        resolveFail(call, "Plugin destroyed");
-        return true;
-    }
+    // MARK: - Readiness
 
     /**
-     * Освобождает показанное объявление. Поле обнуляем только если на экране всё
-     * ещё оно: запоздалый колбэк брошенного объявления не должен трогать
-     * следующее, которое к этому моменту уже показывается.
+     * Ждёт, пока слот adType (блок adUnitId, если задан) заполнится, вместо
+     * опроса isXLoaded() из JS. Ответ - как у isXLoaded плюс adUnitId: сразу,
+     * если объявление уже есть, иначе в момент заполнения; loaded=false -
+     * вышел срок timeoutMs. Инициализации не требует: ждать можно и до неё.
      */
-    private void releaseShowingInterstitial(@Nullable InterstitialAd ad) {
-        if (ad == null) return;
-        ad.setAdEventListener(null);
-        if (showingInterstitialAd == ad) showingInterstitialAd = null;
-    }
-
-    private void releaseShowingRewarded(@Nullable RewardedAd ad) {
-        if (ad == null) return;
-        ad.setAdEventListener(null);
-        if (showingRewardedAd == ad) showingRewardedAd = null;
-    }
-
+    @PluginMethod
+    public void awaitReady(PluginCall call) {
+        if (isGone(call)) return;
+        String adType = call.getString("adType");
+        if (adType == null) {
+            rejectMissingParameter(call, "adType");
+            return;
+        }
+        if (!"banner".equals(adType) && !"interstitial".equals(adType) && !"rewarded".equals(adType)) {
+            resolveFail(call, "Unknown adType: " + adType);
+            return;
+        }
+        String adUnitId = call.getString("adUnitId");
+        JSObject ready = readyState(adType, adUnitId);
+        if (ready != null) {
+            answer(call, ready);
+            return;
+        }
+
+        Integer timeoutValue = call.getInt("timeoutMs");
+        long timeoutMs = timeoutValue != null && timeoutValue > 0
+            ? Math.min(timeoutValue, MAX_READY_WAIT_MS) : DEFAULT_READY_WAIT_MS;
+        final PluginCall waitCall = hold(call);
+        if (!readyWaiters.add(waitCall, adType, adUnitId)) {
+            releaseNotReady(waitCall, "Too many awaitReady() calls");
+            return;
+        }
+        deadlines.schedule(waitCall, timeoutMs, () -> {
+            if (readyWaiters.remove(waitCall)) releaseNotReady(waitCall, "Timeout");
+        });
+        // Слот мог заполниться между проверкой и постановкой: сигнал тогда
+        // ушёл мимо, и вызов ждал бы своего срока зря.
+        String readyAdUnitId = readyAdUnitId(adType, adUnitId);
+        if (readyAdUnitId != null) signalReady(adType, readyAdUnitId);
+    }
+
+    /** Слот заполнился: отвечаем всем, кого это устраивает, одним проходом. */
+    private void signalReady(String adType, String adUnitId) {
+        for (ReadyWaiters.Waiter waiter : readyWaiters.take(adType, adUnitId)) {
+            deadlines.cancel(waiter.call);
+            JSObject ready = readyState(adType, adUnitId);
+            if (ready != null) release(waiter.call, ready);
+            else releaseNotReady(waiter.call, "Ad already taken");
+        }
+    }
+
+    /** Ответ той же формы, что у isXLoaded: JS проверяет только loaded. */
+    private void releaseNotReady(PluginCall call, String message) {
+        JSObject ret = Payloads.loaded(false, 0);
+        ret.put("message", message);
+        release(call, ret);
+    }
+
+    /** Ответ awaitReady для готового слота; null - объявления нет. */
+    @Nullable
+    private JSObject readyState(String adType, @Nullable String adUnitId) {
+        String readyAdUnitId = readyAdUnitId(adType, adUnitId);
+        if (readyAdUnitId == null) return null;
+        long loadedAt;
+        switch (adType) {
+            case "banner":
+                AdSlot.State<AdBackend.Banner> banner = findLoadedBanner(readyAdUnitId);
+                if (banner == null) return null;
+                loadedAt = banner.loadedAt;
+                break;
+            case "interstitial":
+                AdCache.Entry<InterstitialAd> entry = interstitialCache.peek(readyAdUnitId);
+                if (entry == null) return null;
+                loadedAt = entry.loadedAt;
+                break;
+            default:
+                loadedAt = rewarded.get().loadedAt;
+                break;
+        }
+        JSObject ret = Payloads.loaded(true, AdStats.now() - loadedAt);
+        ret.put("adUnitId", readyAdUnitId);
+        return ret;
+    }
+
+    /** Блок готового объявления слота; null - готового нет или блок не тот. */
+    @Nullable
+    private String readyAdUnitId(String adType, @Nullable String adUnitId) {
+        String readyAdUnitId;
+        switch (adType) {
+            case "banner":
+                AdSlot.State<AdBackend.Banner> banner = findLoadedBanner(adUnitId);
+                readyAdUnitId = banner != null ? banner.adUnitId : null;
+                break;
+            case "interstitial":
+                AdCache.Entry<InterstitialAd> entry = peekInterstitial(adUnitId);
+                readyAdUnitId = entry != null ? entry.adUnitId : null;
+                break;
+            default:
+                AdSlot.State<RewardedAd> state = freshRewarded();
+                readyAdUnitId = state.ad != null ? state.adUnitId : null;
+                break;
+        }
+        if (readyAdUnitId == null) return null;
+        return adUnitId == null || adUnitId.equals(readyAdUnitId) ? readyAdUnitId : null;
+    }
+
+    /** Снимок загруженного баннера с этим блоком; adUnitId == null - любого. */
+    @Nullable
+    private AdSlot.State<AdBackend.Banner> findLoadedBanner(@Nullable String adUnitId) {
+        for (BannerSlot slot : banners.values()) {
+            AdSlot.State<AdBackend.Banner> state = slot.state.get();
+            if (state.ad == null) continue;
+            if (adUnitId == null || adUnitId.equals(state.adUnitId)) return state;
+        }
+        return null;
+    }
+
+    // MARK: - Stats
+
+    /**
+     * Снимок счётчиков по типам и блокам. Не требует инициализации SDK:
+     * смотреть, почему загрузки не идут, нужно как раз тогда.
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        if (isGone(call)) return;
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        ret.put("stats", stats.snapshot());
+        answer(call, ret);
+    }
+
+    @PluginMethod
+    public void resetStats(PluginCall call) {
+        if (isGone(call)) return;
+        stats.reset();
+        resolveOk(call, null);
+    }
+
+    // MARK: - Auto refill
+
+    /**
+     * autoRefill из опций загрузки: true или объект - включить (объект задаёт
+     * бюджет и задержки), false - выключить, нет поля - оставить как было.
+     */
+    private void configureRefill(Map<String, RefillPolicy> policies, String adType,
+                                 String adUnitId, JSObject options) {
+        Object option = options.opt("autoRefill");
+        if (option == null || option == JSONObject.NULL) return;
+        if (Boolean.FALSE.equals(option)) {
+            disableRefill(policies, adType, adUnitId);
+            return;
+        }
+        JSObject params = options.getJSObject("autoRefill");
+        if (params != null && Boolean.FALSE.equals(params.getBoolean("enabled", true))) {
+            disableRefill(policies, adType, adUnitId);
+            return;
+        }
+        int maxRetries = RefillPolicy.DEFAULT_MAX_RETRIES;
+        long baseDelayMs = RefillPolicy.DEFAULT_BASE_DELAY_MS;
+        long maxDelayMs = RefillPolicy.DEFAULT_MAX_DELAY_MS;
+        if (params != null) {
+            maxRetries = params.getInteger("maxRetries", maxRetries);
+            baseDelayMs = params.getInteger("baseDelayMs", (int) baseDelayMs);
+            maxDelayMs = params.getInteger("maxDelayMs", (int) maxDelayMs);
+        }
+        policies.put(adUnitId, new RefillPolicy(maxRetries, baseDelayMs, maxDelayMs));
+    }
+
+    /** adUnitId == null - все блоки этого типа. */
+    private void disableRefill(Map<String, RefillPolicy> policies, String adType, @Nullable String adUnitId) {
+        if (adUnitId != null) {
+            policies.remove(adUnitId);
+            cancelRefillRetry(adType, adUnitId);
+            return;
+        }
+        for (String unit : policies.keySet()) cancelRefillRetry(adType, unit);
+        policies.clear();
+    }
+
+    @Nullable
+    private Map<String, RefillPolicy> refillPolicies(String adType) {
+        switch (adType) {
+            case "interstitial":
+                return interstitialRefill;
+            case "rewarded":
+                return rewardedRefill;
+            default:
+                return null;
+        }
+    }
+
+    /** Исход загрузки: удача обнуляет бюджет, неудача ставит повтор с отсрочкой. */
+    private void onLoadSettled(AdLoad load, boolean success) {
+        Map<String, RefillPolicy> policies = refillPolicies(load.adType);
+        RefillPolicy policy = policies != null ? policies.get(load.adUnitId) : null;
+        if (policy == null) return;
+        if (success) {
+            policy.reset();
+            return;
+        }
+        long delayMs = policy.nextRetryDelayMs();
+        if (delayMs < 0) {
+            Log.w(TAG, load.adType + ": автодозагрузка " + load.adUnitId + " исчерпала попытки");
+            return;
+        }
+        scheduleRefill(load.adType, load.adUnitId, delayMs);
+    }
+
+    /**
+     * Показанное объявление ушло - сразу грузим следующее, без отсрочки: блок
+     * только что доказал, что работает. Закрытие и сбой показа одинаково
+     * освобождают слот.
+     */
+    private void refillAfterShow(String adType, @Nullable String adUnitId) {
+        if (adUnitId == null) return;
+        String primary = refillPrimaryFor(adType, adUnitId);
+        Map<String, RefillPolicy> policies = refillPolicies(adType);
+        RefillPolicy policy = primary != null && policies != null ? policies.get(primary) : null;
+        if (policy == null) return;
+        policy.reset();
+        scheduleRefill(adType, primary, 0);
+    }
+
+    /**
+     * Автодозагрузка включается на группу, а показан блок-победитель: ищем
+     * группу, в которую он входит.
+     */
+    @Nullable
+    private String refillPrimaryFor(String adType, String adUnitId) {
+        if ("rewarded".equals(adType)) {
+            Waterfall.Plan plan = rewardedPlan;
+            return plan != null && plan.adUnitIds.contains(adUnitId) ? plan.primary() : null;
+        }
+        if (interstitialPlans.containsKey(adUnitId)) return adUnitId;
+        for (Waterfall.Plan plan : interstitialPlans.values()) {
+            if (plan.adUnitIds.contains(adUnitId)) return plan.primary();
+        }
+        return null;
+    }
+
+    private void scheduleRefill(String adType, String adUnitId, long delayMs) {
+        if (isPluginDestroyed) return;
+        final String key = adType + ":" + adUnitId;
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if (!pendingRefillRetries.remove(key, this)) return;
+                startRefillLoad(adType, adUnitId);
+            }
+        };
+        Runnable previous = pendingRefillRetries.put(key, task);
+        if (previous != null) mainHandler.removeCallbacks(previous);
+        mainHandler.postDelayed(task, delayMs);
+    }
+
+    private void cancelRefillRetry(String adType, String adUnitId) {
+        Runnable task = pendingRefillRetries.remove(adType + ":" + adUnitId);
+        if (task != null) mainHandler.removeCallbacks(task);
+    }
+
+    /**
+     * Дозагрузка без вызова JS-стороны. Уже идущую загрузку не вытесняем: её
+     * обещание закрылось бы "Superseded", а игра свой load уже прислала.
+     */
+    private void startRefillLoad(String adType, String primary) {
+        if (isPluginDestroyed || isActivityGone()) return;
+        Map<String, RefillPolicy> policies = refillPolicies(adType);
+        if (policies == null || !policies.containsKey(primary)) return;
+        // Под давлением памяти не грузим то, что тут же выбросили бы; после
+        // отбоя reloadEvicted() пройдёт по всем блокам с дозагрузкой.
+        if (isEvictedTier(adType)) return;
+        // Без сети - тем более; с её возвратом onNetworkChanged() тоже.
+        if (network != null && !network.isOnline()) return;
+        if ("interstitial".equals(adType)) {
+            Waterfall.Plan plan = interstitialPlans.get(primary);
+            if (plan == null || interstitialSlot(primary).get().load != null) return;
+            // Кеш группы уже полон - грузить некуда, лишнее вытеснило бы готовое.
+            int ready = 0;
+            for (String adUnitId : plan.adUnitIds) ready += interstitialCache.count(adUnitId);
+            if (ready >= interstitialCacheSize(primary)) return;
+            startInterstitialLoad(plan, null);
+        } else {
+            // Слот rewarded один: повтор старой группы не должен вытеснять
+            // ту, которую игра загрузила после неё.
+            Waterfall.Plan plan = rewardedPlan;
+            if (plan == null || !primary.equals(plan.primary())) return;
+            AdSlot.State<RewardedAd> state = rewarded.get();
+            if (state.load != null || state.ad != null) return;
+            startRewardedLoad(plan, null);
+        }
+    }
+
+    // MARK: - Expiry
+
+    /** ttlMs из опций загрузки; нет поля - прежний срок. */
+    private long parseTtl(JSObject options, long current) {
+        Integer value = options.getInteger("ttlMs");
+        return value != null ? Math.max(MIN_AD_TTL_MS, value) : current;
+    }
+
+    private long interstitialTtl(String adUnitId) {
+        Long ttl = interstitialTtls.get(adUnitId);
+        return ttl != null ? ttl : DEFAULT_AD_TTL_MS;
+    }
+
+    private static long refreshLead(long ttlMs) {
+        return Math.min(AD_REFRESH_LEAD_MS, ttlMs / 4);
+    }
+
+    /**
+     * Незадолго до конца срока - тихая загрузка замены, в сам срок -
+     * объявление убирается из кеша. Срок снимается, когда объявление
+     * изымают для показа или вытесняют, так что сработавший срок всегда
+     * про объявление, которое всё ещё лежит в кеше.
+     *
+     * Сроки looper'а идут по uptimeMillis, а он в глубоком сне стоит: после
+     * ночи с погасшим экраном таймер ещё не сработал, хотя креатив давно
+     * протух. Поэтому таймер - только заблаговременная замена, а сам срок
+     * проверяется там, где объявление берут: peekInterstitial/takeInterstitial.
+     */
+    private void armInterstitialExpiry(String adUnitId, InterstitialAd ad, long loadedAt) {
+        long expiresAt = loadedAt + interstitialTtl(adUnitId);
+        long refreshAt = expiresAt - refreshLead(interstitialTtl(adUnitId));
+        deadlines.schedule(ad, Math.max(0, refreshAt - AdStats.now()), () -> {
+            refreshExpiringInterstitial(adUnitId);
+            deadlines.schedule(ad, Math.max(0, expiresAt - AdStats.now()), () -> expireInterstitial(adUnitId, ad));
+        });
+    }
+
+    private boolean isExpired(AdCache.Entry<InterstitialAd> entry) {
+        return AdStats.now() - entry.loadedAt >= interstitialTtl(entry.adUnitId);
+    }
+
+    /** Убирает протухшее объявление; блок без замены грузится заново. */
+    private void expireInterstitial(String adUnitId, InterstitialAd ad) {
+        if (!interstitialCache.remove(adUnitId, ad)) return;
+        Log.d(TAG, "Interstitial expired: " + adUnitId);
+        notifyAdEvent("interstitial", "expired", adUnitId, null, null);
+        if (!interstitialCache.has(adUnitId)) refreshExpiringInterstitial(adUnitId);
+    }
+
+    /**
+     * Грузит группу, в которую входит блок. Новое заполнение встаёт в
+     * очередь блока за старым, а при лимите cacheSize вытесняет его сразу.
+     */
+    private void refreshExpiringInterstitial(String adUnitId) {
+        if (isPluginDestroyed || isActivityGone() || isEvictedTier("interstitial")) return;
+        for (Waterfall.Plan plan : interstitialPlans.values()) {
+            if (!plan.adUnitIds.contains(adUnitId)) continue;
+            if (interstitialSlot(plan.primary()).get().load != null) return;
+            Log.d(TAG, "Interstitial expiring, reloading: " + plan.primary());
+            startInterstitialLoad(plan, null);
+            return;
+        }
+    }
+
+    private void armRewardedExpiry(RewardedAd ad, long loadedAt) {
+        long expiresAt = loadedAt + rewardedTtlMs;
+        long refreshAt = expiresAt - refreshLead(rewardedTtlMs);
+        deadlines.schedule(ad, Math.max(0, refreshAt - AdStats.now()), () -> {
+            if (rewarded.get().ad != ad) return;
+            refreshExpiringRewarded();
+            deadlines.schedule(ad, Math.max(0, expiresAt - AdStats.now()), () -> expireRewarded(ad));
+        });
+    }
+
+    /** Снимок rewarded, в котором просроченного ролика уже нет: таймер мог проспать срок. */
+    private AdSlot.State<RewardedAd> freshRewarded() {
+        AdSlot.State<RewardedAd> state = rewarded.get();
+        if (state.ad == null || AdStats.now() - state.loadedAt < rewardedTtlMs) return state;
+        expireRewarded(state.ad);
+        return rewarded.get();
+    }
+
+    private void expireRewarded(RewardedAd ad) {
+        AdSlot.State<RewardedAd> expired = rewarded.clear(ad);
+        if (expired == null) return;
+        releaseRewardedAd(ad);
+        Log.d(TAG, "Rewarded expired: " + expired.adUnitId);
+        notifyAdEvent("rewarded", "expired", expired.adUnitId, null, null);
+        refreshExpiringRewarded();
+    }
+
+    private void refreshExpiringRewarded() {
+        Waterfall.Plan plan = rewardedPlan;
+        if (plan == null || isPluginDestroyed || isActivityGone() || isEvictedTier("rewarded")) return;
+        if (rewarded.get().load != null) return;
+        Log.d(TAG, "Rewarded expiring, reloading: " + plan.primary());
+        runLoads(prepareRewardedLoad(plan, null, null, true));
+    }
+
+    // MARK: - Memory pressure
+
+    /** Текущая ступень давления выбрасывает объявления этого типа. */
+    private boolean isEvictedTier(String adType) {
+        int tier = memoryPressure.tier();
+        return "rewarded".equals(adType) ? tier >= MemoryPressure.TIER_ALL : tier >= MemoryPressure.TIER_CACHE;
+    }
+
+    /**
+     * Освобождает всё до ступени tier (см. MemoryPressure) и запоминает, что
+     * вернуть после отбоя. Ждущие вызовы загрузок закрываются отказом.
+     */
+    private void evictForMemory(int tier) {
+        if (isPluginDestroyed) return;
+        Log.w(TAG, "Memory pressure, tier " + tier);
+
+        for (BannerSlot slot : banners.values()) evictBanner(slot, tier);
+
+        if (tier >= MemoryPressure.TIER_CACHE) {
+            for (AdCache.Entry<InterstitialAd> entry : interstitialCache.drain()) {
+                deadlines.cancel(entry.ad);
+                entry.ad.setAdEventListener(null);
+                evictedInterstitialUnits.add(entry.adUnitId);
+                stats.evicted("interstitial", entry.adUnitId);
+            }
+        }
+
+        if (tier >= MemoryPressure.TIER_ALL) {
+            AdSlot.State<RewardedAd> evicted = rewarded.clear();
+            if (evicted != null && evicted.ad != null) {
+                releaseRewardedAd(evicted.ad);
+                isRewardedEvicted = true;
+                if (evicted.adUnitId != null) stats.evicted("rewarded", evicted.adUnitId);
+            }
+        }
+    }
+
+    private void evictBanner(BannerSlot slot, int tier) {
+        boolean isVisible = slot.isVisible;
+        if (tier >= MemoryPressure.TIER_ALL || !isVisible) {
+            AdSlot.State<AdBackend.Banner> state = slot.state.get();
+            if (state.ad == null && slot.backView == null) return;
+            String adUnitId = state.adUnitId;
+            boolean hadAd = state.ad != null;
+            abortLoad(slot.state.cancelLoad(), "Evicted under memory pressure");
+            destroyBannerView(slot);
+            if (slot.spec != null) {
+                slot.isEvicted = true;
+                slot.wasEvictedVisible = isVisible;
+            }
+            if (hadAd && adUnitId != null) stats.evicted("banner", adUnitId);
+        } else if (tier >= MemoryPressure.TIER_CACHE && slot.backView != null) {
+            // Видимый баннер остаётся, незаконченная замена - нет.
+            abortLoad(slot.state.cancelLoad(), "Evicted under memory pressure");
+            destroyBannerBackView(slot);
+        }
+    }
+
+    private void onMemoryRelief() {
+        if (isPluginDestroyed) return;
+        if (isActivityPaused) {
+            isReliefPending = true;
+            return;
+        }
+        reloadEvicted();
+    }
+
+    /**
+     * Грузит заново выброшенное под давлением - если игра за это время не
+     * загрузила его сама - и блоки с автодозагрузкой, пропущенные тогда же.
+     */
+    private void reloadEvicted() {
+        if (isPluginDestroyed || isActivityGone()) return;
+
+        for (BannerSlot slot : banners.values()) {
+            if (!slot.isEvicted) continue;
+            slot.isEvicted = false;
+            BannerSlot.Spec spec = slot.spec;
+            AdSlot.State<AdBackend.Banner> state = slot.state.get();
+            if (spec == null || state.ad != null || state.load != null) continue;
+            // Видимость, которую просила игра, новый креатив унаследует
+            // при смене буферов.
+            if (slot.wasEvictedVisible) {
+                slot.isVisible = true;
+                slot.refresh.resume(BannerRefreshScheduler.PAUSE_HIDDEN);
+            }
+            startBannerLoad(slot, spec, null);
+        }
+
+        for (Waterfall.Plan plan : interstitialPlans.values()) {
+            boolean isEvicted = false;
+            boolean isEmpty = true;
+            for (String adUnitId : plan.adUnitIds) {
+                isEvicted |= evictedInterstitialUnits.contains(adUnitId);
+                isEmpty &= interstitialCache.count(adUnitId) == 0;
+            }
+            if (!isEvicted || !isEmpty || interstitialSlot(plan.primary()).get().load != null) continue;
+            startInterstitialLoad(plan, null);
+        }
+        evictedInterstitialUnits.clear();
+
+        if (isRewardedEvicted) {
+            isRewardedEvicted = false;
+            Waterfall.Plan plan = rewardedPlan;
+            AdSlot.State<RewardedAd> state = rewarded.get();
+            if (plan != null && state.ad == null && state.load == null) {
+                startRewardedLoad(plan, null);
+            }
+        }
+
+        for (String primary : interstitialRefill.keySet()) startRefillLoad("interstitial", primary);
+        for (String primary : rewardedRefill.keySet()) startRefillLoad("rewarded", primary);
+    }
+
+    // MARK: - Process store
+
+    /**
+     * Уходящий плагин отдаёт готовые объявления в AdStore вместе с их
+     * сроком жизни и размером кеша блока. Сроки в DeadlineScheduler этого
+     * экземпляра снимаются: дальше их ведёт хранилище.
+     */
+    private void parkAds() {
+        List<AdStore.Parked<InterstitialAd>> parked = new ArrayList<>();
+        for (AdCache.Entry<InterstitialAd> entry : interstitialCache.drain()) {
+            deadlines.cancel(entry.ad);
+            parked.add(new AdStore.Parked<>(entry.adUnitId, entry.ad, entry.loadedAt,
+                interstitialTtl(entry.adUnitId), interstitialCacheSize(entry.adUnitId)));
+        }
+        if (!parked.isEmpty()) AdStore.get().parkInterstitials(parked, interstitialAdUnitId);
+
+        AdSlot.State<RewardedAd> ready = rewarded.clear();
+        if (ready != null && ready.ad != null) {
+            deadlines.cancel(ready.ad);
+            AdStore.get().parkRewarded(new AdStore.Parked<>(ready.adUnitId, ready.ad, ready.loadedAt, rewardedTtlMs, 1));
+        }
+    }
+
+    /**
+     * Забирает объявления, запаркованные прошлым экземпляром плагина, и
+     * ставит им сроки жизни с того места, где они были. Событий loaded не
+     * шлём: JS новой страницы спросит готовность сам.
+     */
+    private void adoptParkedAds() {
+        AdStore store = AdStore.get();
+        for (AdStore.Parked<InterstitialAd> parked : store.takeInterstitials()) {
+            interstitialCacheSizes.put(parked.adUnitId, parked.maxPerUnit);
+            interstitialTtls.put(parked.adUnitId, parked.ttlMs);
+            interstitialCache.put(parked.adUnitId, parked.ad, parked.maxPerUnit, parked.loadedAt);
+            armInterstitialExpiry(parked.adUnitId, parked.ad, parked.loadedAt);
+        }
+        String lastAdUnitId = store.takeLastInterstitialAdUnitId();
+        if (lastAdUnitId != null) interstitialAdUnitId = lastAdUnitId;
+
+        AdStore.Parked<RewardedAd> parkedRewarded = store.takeRewarded();
+        if (parkedRewarded != null) {
+            rewardedTtlMs = parkedRewarded.ttlMs;
+            RewardedAd replaced = rewarded.put(parkedRewarded.adUnitId, parkedRewarded.ad, parkedRewarded.loadedAt);
+            if (replaced != null) releaseRewardedAd(replaced);
+            armRewardedExpiry(parkedRewarded.ad, parkedRewarded.loadedAt);
+        }
+    }
+
+    // MARK: - Helpers
+
+    /**
+     * Блоки загрузки: adUnitIds - группа ступеней от дорогой к дешёвой (не
+     * больше MAX_WATERFALL_UNITS, повторы отбрасываются), иначе один adUnitId.
+     * strategy - "first" (по умолчанию) или "priority", см. Waterfall.
+     */
+    @Nullable
+    private Waterfall.Plan parsePlan(JSObject options) {
+        List<String> adUnitIds = new ArrayList<>();
+        JSONArray array = options.optJSONArray("adUnitIds");
+        if (array != null) {
+            for (int i = 0; i < array.length() && adUnitIds.size() < MAX_WATERFALL_UNITS; i++) {
+                String adUnitId = array.optString(i, null);
+                if (adUnitId != null && !adUnitId.isEmpty() && !adUnitIds.contains(adUnitId)) {
+                    adUnitIds.add(adUnitId);
+                }
+            }
+        }
+        if (adUnitIds.isEmpty()) {
+            String adUnitId = options.getString("adUnitId");
+            if (adUnitId == null || adUnitId.isEmpty()) return null;
+            adUnitIds.add(adUnitId);
+        }
+        return new Waterfall.Plan(adUnitIds, Waterfall.Strategy.parse(options.getString("strategy")));
+    }
+
+    /**
+     * Позиции - как getGravity() в Defold-расширении: три горизонтали сверху
+     * и снизу плюс центр экрана. "top"/"bottom" - центральные варианты своих
+     * рядов; "top-center"/"bottom-center" принимаем как их синонимы.
+     */
+    private void applyBannerPosition(@NonNull AppCompatActivity activity, BannerSlot slot, @Nullable String position) {
+        FrameLayout layout = slot.layout;
+        if (layout == null) return;
+        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) layout.getLayoutParams();
+        String pos = position == null ? "bottom" : position.toLowerCase(Locale.ROOT);
+        int gravity;
+        switch (pos) {
+            case "top-left":
+                gravity = Gravity.TOP | Gravity.LEFT;
+                break;
+            case "top":
+            case "top-center":
+                gravity = Gravity.TOP | Gravity.CENTER_HORIZONTAL;
+                break;
+            case "top-right":
+                gravity = Gravity.TOP | Gravity.RIGHT;
+                break;
+            case "bottom-left":
+                gravity = Gravity.BOTTOM | Gravity.LEFT;
+                break;
+            case "bottom-right":
+                gravity = Gravity.BOTTOM | Gravity.RIGHT;
+                break;
+            case "center":
+                gravity = Gravity.CENTER;
+                break;
+            default:
+                gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
+                break;
+        }
+        params.gravity = gravity;
+
+        // Верхний ряд опускаем под статусбар, иначе баннер лёг бы под вырез.
+        int topMargin = 0;
+        if ((gravity & Gravity.TOP) == Gravity.TOP) {
+            int resourceId = activity.getResources().getIdentifier("status_bar_height", "dimen", "android");
+            if (resourceId > 0) topMargin = activity.getResources().getDimensionPixelSize(resourceId);
+        }
+        params.topMargin = topMargin;
+        layout.setLayoutParams(params);
+    }
+
+    /**
+     * Контейнер баннера поверх контента activity; позицию задаёт
+     * applyBannerPosition. Заводится первой загрузкой баннера, а не при
+     * регистрации плагина: в сессии без баннеров лишнего узла в иерархии
+     * decor view, который проходит каждая раскладка, нет вовсе.
+     */
+    private FrameLayout createBannerLayout(@NonNull AppCompatActivity activity) {
+        Trace.beginSection(TRACE_BANNER_CONTAINER);
+        try {
+            FrameLayout layout = new FrameLayout(activity);
+            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                FrameLayout.LayoutParams.WRAP_CONTENT
+            );
+            params.gravity = Gravity.CENTER_HORIZONTAL | Gravity.BOTTOM;
+            activity.addContentView(layout, params);
+            return layout;
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Загруженный задний буфер становится передним. Новый креатив получает
+     * видимость, которую просила игра (скрытый сразу снимается с окна), и
+     * только потом старый уходит из контейнера - в одном проходе UI-потока,
+     * так что кадра без баннера нет. removeView, а не removeAllViews: задний
+     * буфер следующей загрузки, если он уже есть, трогать нельзя.
+     *
+     * false - загрузка уже не наша: вью остаётся задним буфером, и его
+     * выбросит та загрузка, что её вытеснила.
+     */
+    private boolean swapBannerBuffers(BannerSlot slot, AdLoad load, @NonNull AdBackend.Banner banner, String adUnitId) {
+        AdSlot.State<AdBackend.Banner> before = slot.state.fill(load, adUnitId, banner, AdStats.now());
+        if (before == null) return false;
+        if (slot.backView == banner) slot.backView = null;
+        if (slot.isVisible) attachBannerView(slot, banner);
+        else suspendBannerView(slot, banner);
+        AdBackend.Banner front = before.ad;
+        if (front != null && front != banner) releaseBannerView(slot, front);
+        return true;
+    }
+
+    /**
+     * Скрытый баннер не просто INVISIBLE, а вне иерархии: INVISIBLE-вью всё
+     * равно меряется и раскладывается, а креатив в её WebView крутит
+     * анимации и таймеры под игровым экраном. Снятая с окна WebView получает
+     * onDetachedFromWindow и перестаёт рисовать. Загруженное объявление
+     * остаётся во вью, так что показ возвращает его без нового запроса.
+     */
+    private void suspendBannerView(BannerSlot slot, @NonNull AdBackend.Banner banner) {
+        View view = banner.view();
+        view.setVisibility(View.INVISIBLE);
+        FrameLayout layout = slot.layout;
+        if (layout != null && view.getParent() == layout) layout.removeView(view);
+    }
+
+    /** Возвращает баннер в контейнер - поверх заднего буфера, если тот грузится. */
+    private void attachBannerView(BannerSlot slot, @NonNull AdBackend.Banner banner) {
+        View view = banner.view();
+        FrameLayout layout = slot.layout;
+        if (layout != null && view.getParent() == null) {
+            layout.addView(view, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                Gravity.CENTER
+            ));
+        }
+        view.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Уничтожает баннер целиком и убирает его из реестра: загрузку закрывает
+     * с message, контейнер снимает с экрана.
+     */
+    private void destroyBannerSlot(BannerSlot slot, @NonNull String message) {
+        banners.remove(slot.id, slot);
+        abortLoad(slot.state.cancelLoad(), message);
+        slot.refresh.stop();
+        slot.spec = null;
+        slot.isEvicted = false;
+        destroyBannerView(slot);
+        FrameLayout layout = slot.layout;
+        slot.layout = null;
+        if (layout != null && layout.getParent() instanceof ViewGroup) {
+            ((ViewGroup) layout.getParent()).removeView(layout);
+        }
+    }
+
+    /**
+     * Снимает с экрана оба буфера. Ждущее обещание загрузки НЕ трогает:
+     * закрытием занимаются те, кто действительно обрывает загрузку, -
+     * destroyBanner() и releaseAll().
+     */
+    private void destroyBannerView(BannerSlot slot) {
+        // Следующий баннер, как и первый, ждёт showBanner.
+        slot.isVisible = false;
+        slot.refresh.pause(BannerRefreshScheduler.PAUSE_HIDDEN);
+        destroyBannerBackView(slot);
+        AdSlot.State<AdBackend.Banner> front = slot.state.clear();
+        if (front == null || front.ad == null) return;
+        releaseBannerView(slot, front.ad);
+    }
+
+    /** Выбрасывает незаконченную загрузку; баннер на экране остаётся. */
+    private void destroyBannerBackView(BannerSlot slot) {
+        AdBackend.Banner banner = slot.backView;
+        if (banner == null) return;
+        slot.backView = null;
+        releaseBannerView(slot, banner);
+    }
+
+    private void releaseBannerView(BannerSlot slot, @NonNull AdBackend.Banner banner) {
+        banner.setListener(null);
+        FrameLayout layout = slot.layout;
+        if (layout != null) layout.removeView(banner.view());
+        banner.destroy();
+    }
+
+    /** Причина паузы обновления - сразу всем баннерам и тем, что заведутся позже. */
+    private void pauseBannerRefresh(int reason) {
+        bannerRefreshPauses |= reason;
+        for (BannerSlot slot : banners.values()) slot.refresh.pause(reason);
+    }
+
+    private void resumeBannerRefresh(int reason) {
+        bannerRefreshPauses &= ~reason;
+        for (BannerSlot slot : banners.values()) slot.refresh.resume(reason);
+    }
+
+    /** Слот загрузки блока; заводится при первой загрузке. */
+    private AdSlot<InterstitialAd> interstitialSlot(String adUnitId) {
+        return interstitialSlots.computeIfAbsent(adUnitId, k -> new AdSlot<>());
+    }
+
+    private int interstitialCacheSize(String adUnitId) {
+        Integer size = interstitialCacheSizes.get(adUnitId);
+        return size != null ? size : DEFAULT_INTERSTITIALS_PER_UNIT;
+    }
+
+    /** Объявление для показа: запрошенного блока, а без него - последнего загруженного. */
+    @Nullable
+    private AdCache.Entry<InterstitialAd> takeInterstitial(@Nullable String requestedAdUnitId) {
+        dropExpiredInterstitials(requestedAdUnitId);
+        AdCache.Entry<InterstitialAd> entry;
+        if (requestedAdUnitId != null) {
+            entry = interstitialCache.take(requestedAdUnitId);
+        } else {
+            entry = null;
+            String lastAdUnitId = interstitialAdUnitId;
+            if (lastAdUnitId != null) entry = interstitialCache.take(lastAdUnitId);
+            if (entry == null) entry = interstitialCache.take(null);
+        }
+        // Из кеша изъято - срок жизни больше не следим.
+        if (entry != null) deadlines.cancel(entry.ad);
+        return entry;
+    }
+
+    /** Возвращает изъятое, но не показанное объявление в кеш - с прежним сроком жизни. */
+    private void restoreInterstitial(AdCache.Entry<InterstitialAd> entry) {
+        interstitialCache.put(entry.adUnitId, entry.ad, interstitialCacheSize(entry.adUnitId), entry.loadedAt);
+        armInterstitialExpiry(entry.adUnitId, entry.ad, entry.loadedAt);
+    }
+
+    /** То же, что взял бы takeInterstitial(), без изъятия. */
+    @Nullable
+    private AdCache.Entry<InterstitialAd> peekInterstitial(@Nullable String requestedAdUnitId) {
+        dropExpiredInterstitials(requestedAdUnitId);
+        return peekCached(requestedAdUnitId);
+    }
+
+    /** Протухшие объявления, которые иначе достались бы показу, - вон из кеша. */
+    private void dropExpiredInterstitials(@Nullable String requestedAdUnitId) {
+        AdCache.Entry<InterstitialAd> entry;
+        while ((entry = peekCached(requestedAdUnitId)) != null && isExpired(entry)) {
+            expireInterstitial(entry.adUnitId, entry.ad);
+        }
+    }
+
+    @Nullable
+    private AdCache.Entry<InterstitialAd> peekCached(@Nullable String requestedAdUnitId) {
+        if (requestedAdUnitId != null) return interstitialCache.peek(requestedAdUnitId);
+        AdCache.Entry<InterstitialAd> entry = null;
+        String lastAdUnitId = interstitialAdUnitId;
+        if (lastAdUnitId != null) entry = interstitialCache.peek(lastAdUnitId);
+        return entry != null ? entry : interstitialCache.peek(null);
+    }
+
+    private void destroyRewardedAd() {
+        AdSlot.State<RewardedAd> ready = rewarded.clear();
+        if (ready != null && ready.ad != null) releaseRewardedAd(ready.ad);
+    }
+
+    // Документация требует снимать слушателя с показанного объявления, иначе
+    // объект и его слушатель остаются в памяти.
+    private void releaseRewardedAd(RewardedAd ad) {
+        deadlines.cancel(ad);
+        ad.setAdEventListener(null);
+    }
+
+    /**
+     * Выполняет действие на UI-потоке.
+     *
+     * Методы плагина Capacitor зовёт на своём потоке, а работа с View оттуда
+     * даёт CalledFromWrongThreadException; исключение же, вылетевшее из метода
+     * плагина, Capacitor перебрасывает как RuntimeException и роняет процесс.
+     *
+     * Ветка с mainHandler - страховка на случай, если Bridge однажды начнёт
+     * отдавать null: сегодня getActivity() возвращает одно и то же final-поле и
+     * null не бывает (состояние activity проверяется через isActivityGone).
+     */
+    private void runOnUi(Runnable action) {
+        Runnable pass = () -> timeMainThread(action);
+        AppCompatActivity activity = getActivity();
+        if (activity != null) activity.runOnUiThread(pass);
+        else mainHandler.post(pass);
+    }
+
+    /** Сколько главного потока занимают проходы плагина - в getStats().mainThread. */
+    private void timeMainThread(Runnable action) {
+        if (mainThreadDepth > 0) {
+            action.run();
+            return;
+        }
+        long startedAt = System.nanoTime();
+        mainThreadDepth++;
+        try {
+            action.run();
+        } finally {
+            mainThreadDepth--;
+            stats.mainThreadPass(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Activity непригодна для показа рекламы.
+     *
+     * Проверять getActivity() на null бесполезно: Bridge отдаёт одно и то же
+     * final-поле и после onDestroy, поэтому ссылка всегда есть, а activity за
+     * ней может быть уже уничтожена. Показ на такой activity даёт
+     * BadTokenException, а прикрепление баннера - вью, которую никто не увидит.
+     */
+    private boolean isActivityGone() {
+        AppCompatActivity activity = getActivity();
+        return activity == null || activity.isDestroyed() || activity.isFinishing();
+    }
+
+    /** Плагин уже разобран - принимать новую работу нельзя. */
+    private boolean isGone(PluginCall call) {
+        if (!isPluginDestroyed) return false;
+        resolveFail(call, "Plugin destroyed");
+        return true;
+    }
+
+    /**
+     * У главного обработчика плагина есть отложенные задачи - сторожа,
+     * повторы, обновление баннеров. Для тестов утечек: каждая такая задача
+     * держит плагин, а через него activity.
+     */
+    @VisibleForTesting
+    boolean hasPendingMainTasks() {
+        // post() ставит сообщение с what == 0.
+        return mainHandler.hasMessages(0);
+    }
+
+    /**
+     * Освобождает показанное объявление. Поле обнуляем только если на экране всё
+     * ещё оно: запоздалый колбэк брошенного объявления не должен трогать
+     * следующее, которое к этому моменту уже показывается.
+     */
+    private void releaseShowingInterstitial(@Nullable InterstitialAd ad) {
+        if (ad == null) return;
+        // Сторож показа больше не нужен, даже если на экране уже следующее.
+        deadlines.cancel(ad);
+        ad.setAdEventListener(null);
+        if (!interstitialShow.dismiss(ad)) return;
+        resumeBannerRefresh(BannerRefreshScheduler.PAUSE_INTERSTITIAL);
+    }
+
+    private void releaseShowingRewarded(@Nullable RewardedAd ad) {
+        if (ad == null) return;
+        deadlines.cancel(ad);
+        ad.setAdEventListener(null);
+        if (!rewarded.dismiss(ad)) return;
+        resumeBannerRefresh(BannerRefreshScheduler.PAUSE_REWARDED);
+    }
+
     /** Закрывает вызов init(), если он всё ещё наш. */
     private void settleOwnInit(PluginCall call, boolean success, @Nullable String message) {
         if (!pendingInitCall.compareAndSet(call, null)) return;
+        deadlines.cancel(call);
         settle(call, success, message);
     }
 
     private void releaseAll() {
-        destroyBannerView();
-        destroyInterstitialAd();
-        destroyRewardedAd();
-        releaseShowingInterstitial(showingInterstitialAd);
-        releaseShowingRewarded(showingRewardedAd);
-
-        if (interstitialLoader != null) {
-            interstitialLoader.cancelLoading();
-            interstitialLoader = null;
-        }
-        if (rewardedLoader != null) {
-            rewardedLoader.cancelLoading();
-            rewardedLoader = null;
+        // Баннеры - вью на контексте этой activity: их не паркуем.
+        for (BannerSlot slot : banners.values()) destroyBannerSlot(slot, "Plugin destroyed");
+        // Готовые interstitial и rewarded не выбрасываем: следующий экземпляр
+        // плагина заберёт их из AdStore.
+        parkAds();
+        releaseShowingInterstitial(interstitialShow.get().showing);
+        releaseShowingRewarded(rewarded.get().showing);
+
+        for (Map<String, AdBackend.Loader<InterstitialAdLoadListener>> loaders : interstitialLoaders.values()) {
+            for (AdBackend.Loader<InterstitialAdLoadListener> loader : loaders.values()) loader.cancel();
         }
+        interstitialLoaders.clear();
+        for (AdBackend.Loader<RewardedAdLoadListener> loader : rewardedLoaders.values()) loader.cancel();
+        rewardedLoaders.clear();
 
         // Ни один колбэк больше не придёт: закрываем всё, что ждало ответа.
-        settle(pendingInitCall.getAndSet(null), false, "Plugin destroyed");
-        settleAndClearBannerLoad(false, "Plugin destroyed");
-        settleAndClearInterstitialLoad(false, "Plugin destroyed");
-        settleAndClearRewardedLoad(false, "Plugin destroyed");
+        PluginCall initCall = pendingInitCall.getAndSet(null);
+        deadlines.cancel(initCall);
+        settle(initCall, false, "Plugin destroyed");
+        for (PreInitQueue.Entry entry : preInitQueue.drain()) {
+            deadlines.cancel(entry.call);
+            settle(entry.call, false, "Plugin destroyed");
+        }
+        for (OfflineQueue.Entry entry : offlineQueue.drain()) {
+            deadlines.cancel(entry.call);
+            settle(entry.call, false, "Plugin destroyed");
+        }
+        for (ReadyWaiters.Waiter waiter : readyWaiters.drain()) {
+            deadlines.cancel(waiter.call);
+            releaseNotReady(waiter.call, "Plugin destroyed");
+        }
+        disableRefill(interstitialRefill, "interstitial", null);
+        disableRefill(rewardedRefill, "rewarded", null);
+        abortInterstitialLoads(null, "Plugin destroyed");
+        abortLoad(rewarded.cancelLoad(), "Plugin destroyed");
         settleInterstitialShow(false, "Plugin destroyed");
         settleRewardedShow(false, null, "Plugin destroyed");
+        // Последние события (failed_to_load после отмен) - до снятия задач,
+        // вслед за ними по очереди outbound.
+        outbound.post(eventBatcher::flush);
     }
 
-    // Отложенный вызов гасим строго один раз: getAndSet сразу снимает ссылку,
-    // поэтому второй поток уже ничего не найдёт.
-    private void settleAndClearBannerLoad(boolean success, @Nullable String message) {
-        settle(pendingBannerLoadCall.getAndSet(null), success, message);
+    /**
+     * adUnitId == null - загрузки всех блоков. Отложенный вызов гасим строго
+     * один раз: cancelLoad сразу снимает загрузку, второй поток уже ничего не найдёт.
+     */
+    private void abortInterstitialLoads(@Nullable String adUnitId, @NonNull String message) {
+        for (Map.Entry<String, AdSlot<InterstitialAd>> e : interstitialSlots.entrySet()) {
+            if (adUnitId != null && !adUnitId.equals(e.getKey())) continue;
+            abortLoad(e.getValue().cancelLoad(), message);
+        }
     }
 
-    private void settleAndClearInterstitialLoad(boolean success, @Nullable String message) {
-        settle(pendingInterstitialLoadCall.getAndSet(null), success, message);
+    private void settleInterstitialShow(boolean success, @Nullable String message) {
+        settle(interstitialShow.cancelShow(), success, message);
     }
 
-    private void settleAndClearRewardedLoad(boolean success, @Nullable String message) {
-        settle(pendingRewardedLoadCall.getAndSet(null), success, message);
+    /**
+     * Отвечает конкретному вызову, только если слот показа всё ещё держит
+     * именно его. Колбэк обязан отвечать захваченному вызову, а не текущему:
+     * между запросом и ответом вызов мог смениться - тогда наш либо погашен,
+     * либо вытеснен, и чужое обещание не трогаем.
+     */
+    private void settleInterstitialShow(PluginCall call, boolean success, @Nullable String message) {
+        if (interstitialShow.settleShow(call)) settle(call, success, message);
     }
 
-    private void settleInterstitialShow(boolean success, @Nullable String message) {
-        settle(pendingInterstitialShowCall.getAndSet(null), success, message);
+    /**
+     * Завершает загрузку, если слот всё ещё держит именно её: иначе её уже
+     * погасили как вытесненную, и второй ответ был бы лишним. Это исход самой
+     * загрузки (колбэк SDK, сторож, сбой), поэтому от него зависит и
+     * автодозагрузка; вытеснение и уничтожение идут мимо - через abortLoad.
+     */
+    private void settleOwnLoad(AdSlot<?> slot, AdLoad load, boolean success, @Nullable String message) {
+        settleOwnLoad(slot, load, success, message, null);
+    }
+
+    /** adUnitId - блок, чьё объявление досталось загрузке (важно для групп). */
+    private void settleOwnLoad(AdSlot<?> slot, AdLoad load, boolean success,
+                               @Nullable String message, @Nullable String adUnitId) {
+        if (!slot.finishLoad(load)) return;
+        completeLoad(load, success, message, adUnitId);
     }
 
     /**
-     * Отвечает конкретному вызову и снимает его из поля, только если поле всё
-     * ещё указывает именно на него. Колбэк обязан отвечать захваченному вызову,
-     * а не текущему полю: между запросом и ответом поле могло смениться.
+     * Ответ загрузки, уже снятой со слота: снять её мог только один поток -
+     * через finishLoad или fill, - так что отвечаем ровно раз.
      */
-    private void settleOwnCall(AtomicReference<PluginCall> holder, @Nullable PluginCall call,
-                               boolean success, @Nullable String message) {
-        if (call == null) return;
-        // CAS не прошёл - поле уже указывает на другой вызов, значит наш
-        // либо погашен, либо вытеснен. Чужое обещание не трогаем.
-        if (!holder.compareAndSet(call, null)) return;
-        settle(call, success, message);
+    private void completeLoad(AdLoad load, boolean success, @Nullable String message, @Nullable String adUnitId) {
+        deadlines.cancel(load);
+        PluginCall call = load.call;
+        if (call != null) {
+            outbound.post(() -> {
+                JSObject ret = Payloads.result(success, message);
+                if (adUnitId != null) ret.put("adUnitId", adUnitId);
+                releaseNow(call, ret);
+            });
+        }
+        if (load.listener != null) load.listener.onSettled(load, success, message, adUnitId);
+        onLoadSettled(load, success);
     }
 
-    private void settleLoadCall(@Nullable PluginCall call, boolean success, @Nullable String message) {
-        if (call == null) return;
-        // Отвечаем только если поле всё ещё держит именно этот вызов: иначе его
-        // уже погасили как вытесненный, и второй ответ был бы лишним.
-        boolean isOwner = pendingBannerLoadCall.compareAndSet(call, null)
-            || pendingInterstitialLoadCall.compareAndSet(call, null)
-            || pendingRewardedLoadCall.compareAndSet(call, null);
-        if (!isOwner) return;
-        settle(call, success, message);
+    /** Загрузку вытеснили или уничтожили: её колбэки больше ничего не трогают. */
+    private void abortLoad(@Nullable AdLoad load, @NonNull String message) {
+        if (load == null) return;
+        load.isCancelled = true;
+        deadlines.cancel(load);
+        settle(load.call, false, message);
+        if (load.listener != null) load.listener.onSettled(load, false, message, null);
     }
 
     /**
@@ -1000,27 +2521,20 @@ public class YandexAdsPlugin extends Plugin {
                                     @Nullable Reward reward, @Nullable String message) {
         PluginCall call;
         if (expected == null) {
-            call = pendingRewardedShowCall.getAndSet(null);
+            call = rewarded.cancelShow();
         } else {
-            call = pendingRewardedShowCall.compareAndSet(expected, null) ? expected : null;
+            call = rewarded.settleShow(expected) ? expected : null;
         }
         if (call == null) return;
 
-        JSObject ret = new JSObject();
-        ret.put("success", shown);
-        if (message != null) ret.put("message", message);
-
-        if (shown) {
-            ret.put("rewarded", reward != null);
-            if (reward != null) {
-                JSObject rewardObj = new JSObject();
-                rewardObj.put("amount", reward.getAmount());
-                rewardObj.put("type", reward.getType());
-                ret.put("reward", rewardObj);
+        outbound.post(() -> {
+            JSObject ret = Payloads.result(shown, message);
+            if (shown) {
+                ret.put("rewarded", reward != null);
+                if (reward != null) ret.put("reward", Payloads.reward(reward.getAmount(), reward.getType()));
             }
-        }
-
-        release(call, ret);
+            releaseNow(call, ret);
+        });
     }
 
     /**
@@ -1028,54 +2542,87 @@ public class YandexAdsPlugin extends Plugin {
      * пришёл. Отвечает только своему вызову: к этому моменту мог начаться
      * следующий показ.
      */
-    /** Через LOAD_TIMEOUT_MS закрывает обещание загрузки, если колбэка не было. */
-    private void armLoadWatchdog(AtomicReference<PluginCall> holder, PluginCall call, String label) {
+    /**
+     * Закрывает обещание загрузки, если колбэка не было за срок её блоков
+     * (LoadTimeouts, не дольше LOAD_TIMEOUT_MS). onDeadline - своя развязка
+     * (группа ещё может выбрать победителя из уже пришедшего); без неё
+     * загрузка просто закрывается по таймауту. bannerId - для события
+     * timeout баннера.
+     */
+    private void armLoadWatchdog(AdSlot<?> slot, AdLoad load, @Nullable String bannerId,
+                                 @Nullable Runnable onDeadline) {
         // Плагин мог быть разобран, пока метод шёл по очереди моста: тогда
         // задачи уже сняты, и эта пережила бы уборку, удерживая activity.
         if (isPluginDestroyed) {
-            settleOwnCall(holder, call, false, "Plugin destroyed");
+            settleOwnLoad(slot, load, false, "Plugin destroyed");
             return;
         }
-        mainHandler.postDelayed(() -> {
-            if (holder.get() != call) return;
-            Log.w(TAG, label + ": не дождались колбэка загрузки");
-            settleOwnCall(holder, call, false, "Load timeout");
-        }, LOAD_TIMEOUT_MS);
+        load.timeoutMs = loadTimeouts.timeoutMs(load.plan.adUnitIds);
+        deadlines.schedule(load, load.timeoutMs, () -> {
+            if (!slot.isLoading(load)) return;
+            // До AdStats: тот отмечает ступени отвеченными, а окну нужны
+            // как раз те, что не ответили.
+            loadTimeouts.timedOut(load);
+            stats.loadTimedOut(load);
+            if (onDeadline != null) {
+                onDeadline.run();
+                return;
+            }
+            settleLoadTimeout(slot, load, bannerId);
+        });
+        // Ответ мог прийти с UI-потока раньше, чем срок встал: тогда снять
+        // его было ещё нечем.
+        if (!slot.isLoading(load)) deadlines.cancel(load);
+    }
+
+    /**
+     * Срок загрузки вышел, а решения нет: отдельное событие timeout - игра
+     * по нему переходит на другой блок, не путая это с отказом сети, - и
+     * отказ вызову.
+     */
+    private void settleLoadTimeout(AdSlot<?> slot, AdLoad load, @Nullable String bannerId) {
+        if (!slot.finishLoad(load)) return;
+        Log.w(TAG, load.adType + ": не дождались колбэка загрузки за " + load.timeoutMs + " мс");
+        long timeoutMs = load.timeoutMs;
+        outbound.post(() -> dispatchAdEvent(Payloads.timeout(load.adType, load.adUnitId, timeoutMs, bannerId), false));
+        completeLoad(load, false, "Load timeout", null);
     }
 
     /** Без сети колбэк инициализации может не прийти вовсе - не держим вызов вечно. */
     private void armInitWatchdog(PluginCall call) {
-        mainHandler.postDelayed(() -> {
+        deadlines.schedule(call, INIT_TIMEOUT_MS, () -> {
             if (!pendingInitCall.compareAndSet(call, null)) return;
             Log.w(TAG, "SDK init timed out");
-            notifyAdEvent("init", "failed_to_load", null, errorObject(0, "Initialization timeout"), null);
+            notifyAdEvent("init", "failed_to_load", null, Payloads.error(0, "Initialization timeout"), null);
             settle(call, false, "Initialization timeout");
-        }, INIT_TIMEOUT_MS);
+        });
     }
 
     private void armInterstitialShowWatchdog(PluginCall call, InterstitialAd ad) {
-        mainHandler.postDelayed(() -> {
+        // Ключ - объявление, а не вызов: обещание закрывается уже в onAdShown,
+        // а сторож нужен, пока объявление не освобождено.
+        deadlines.schedule(ad, SHOW_TIMEOUT_MS, () -> {
             // Объявление освобождаем в любом случае: обещание показа interstitial
             // закрывается уже в onAdShown, и проверка "вызов ещё мой" здесь
             // всегда была бы ложной - объявление со слушателем утекало бы.
             releaseShowingInterstitial(ad);
-            if (pendingInterstitialShowCall.get() != call) return;
+            if (!interstitialShow.isShowCall(call)) return;
             Log.w(TAG, "interstitial: не дождались колбэка показа");
-            settleOwnCall(pendingInterstitialShowCall, call, false, "Show timeout");
-        }, SHOW_TIMEOUT_MS);
+            settleInterstitialShow(call, false, "Show timeout");
+        });
     }
 
     private void armRewardedShowWatchdog(PluginCall call, RewardedAd ad, Reward[] reward) {
-        mainHandler.postDelayed(() -> {
+        deadlines.schedule(ad, SHOW_TIMEOUT_MS, () -> {
             releaseShowingRewarded(ad);
-            if (pendingRewardedShowCall.get() != call) return;
+            if (!rewarded.isShowCall(call)) return;
             Log.w(TAG, "rewarded: не дождались колбэка показа");
             // Награда могла прийти до того, как ролик потерялся: тогда показ
             // состоялся, и отвечать отказом значило бы отобрать заработанное.
             // Без награды success=false - ролика по сути не было, попытку
             // сжигать нельзя.
             settleRewardedShow(call, reward[0] != null, reward[0], "Show timeout");
-        }, SHOW_TIMEOUT_MS);
+        });
     }
 
     /** Удерживает вызов до прихода нативного колбэка. */
@@ -1086,63 +2633,210 @@ public class YandexAdsPlugin extends Plugin {
 
     private void settle(@Nullable PluginCall call, boolean success, @Nullable String message) {
         if (call == null) return;
-        JSObject ret = new JSObject();
-        ret.put("success", success);
-        if (message != null) ret.put("message", message);
-        release(call, ret);
+        outbound.post(() -> releaseNow(call, Payloads.result(success, message)));
+    }
+
+    /** Ответ удержанному вызову: готовый JSObject, собирать нечего. */
+    private void release(@NonNull PluginCall call, @NonNull JSObject ret) {
+        outbound.post(() -> releaseNow(call, ret));
     }
 
     /**
      * Снимаем удержание до ответа: тогда мост пришлёт save=false, JS-сторона
-     * освободит колбэк, а сам вызов освободится автоматически.
+     * освободит колбэк, а сам вызов освободится автоматически. Только на
+     * потоке outbound - ответ собирают уже там, второй раз в очередь не ставим.
+     *
+     * Очередь outbound держит порядок лишь того, что отдано в мост сразу; в
+     * пакетном режиме "loaded" ждёт в буфере eventBatcher, и ответ на loadX
+     * обогнал бы его. Поэтому перед ответом пакет отдаётся - на этом же потоке.
      */
-    private void release(@NonNull PluginCall call, @NonNull JSObject ret) {
+    private void releaseNow(@NonNull PluginCall call, @NonNull JSObject ret) {
+        eventBatcher.flush();
         call.setKeepAlive(false);
         call.resolve(ret);
     }
 
     private void notifyAdEvent(String adType, String event, @Nullable String adUnitId,
                                @Nullable JSObject error, @Nullable JSObject reward) {
-        JSObject eventData = new JSObject();
-        eventData.put("adType", adType);
-        eventData.put("event", event);
+        notifyAdEvent(adType, event, adUnitId, error, reward, null);
+    }
+
+    /** События баннера несут bannerId: баннеров одновременно может быть несколько. */
+    private void notifyBannerEvent(BannerSlot slot, String event, @Nullable String adUnitId,
+                                   @Nullable JSObject error) {
+        notifyAdEvent("banner", event, adUnitId, error, null, slot.id);
+    }
 
-        if (adUnitId != null) eventData.put("adUnitId", adUnitId);
-        if (error != null) eventData.put("error", error);
-        if (reward != null) eventData.put("reward", reward);
+    private void notifyAdEvent(String adType, String event, @Nullable String adUnitId,
+                               @Nullable JSObject error, @Nullable JSObject reward,
+                               @Nullable String bannerId) {
+        // Награду игра ждёт, чтобы выдать её сразу, - её пакет не держит.
+        outbound.post(() -> dispatchAdEvent(Payloads.event(adType, event, adUnitId, error, reward, bannerId),
+            "rewarded".equals(event)));
+    }
 
+    /** Только поток outbound: пакет или сразу в adEvent. */
+    private void dispatchAdEvent(JSObject eventData, boolean isUrgent) {
+        if (eventBatcher.offer(eventData, isUrgent)) return;
         notifyListeners("adEvent", eventData);
     }
 
     private JSObject errorObject(@NonNull AdRequestError error) {
-        return errorObject(error.getCode(), error.getDescription());
+        return Payloads.error(error.getCode(), error.getDescription());
     }
 
-    private JSObject errorObject(int code, @Nullable String message) {
-        JSObject errorObj = new JSObject();
-        errorObj.put("code", code);
-        errorObj.put("message", message == null ? "" : message);
-        return errorObj;
+    /**
+     * До готовности SDK вызов не отклоняется, а ждёт в очереди и выполняется
+     * заново, как только инициализация закончится. Отказ - только если
+     * очередь полна или SDK не успел за PRE_INIT_WAIT_MS.
+     */
+    private boolean notInitialized(PluginCall call, PreInitQueue.Method method) {
+        if (isInitialized) return false;
+        hold(call);
+        if (!preInitQueue.offer(call, method)) {
+            settle(call, false, "SDK not initialized. Call init() first.");
+            return true;
+        }
+        deadlines.schedule(call, PRE_INIT_WAIT_MS, () -> {
+            if (!preInitQueue.remove(call)) return;
+            Log.w(TAG, call.getMethodName() + ": SDK так и не инициализировался");
+            settle(call, false, "SDK not initialized. Call init() first.");
+        });
+        // Колбэк инициализации мог разобрать очередь между проверкой флага и
+        // постановкой - тогда этот вызов ждал бы своего срока зря.
+        if (isInitialized) drainPreInitQueue();
+        return true;
     }
 
-    private boolean notInitialized(PluginCall call) {
-        if (isInitialized) return false;
-        resolveFail(call, "SDK not initialized. Call init() first.");
+    /**
+     * Без проверенной сети загрузка в SDK не уходит: там она только ждала бы
+     * сторожа. offlineLoads "fail" - сразу отказ "Offline", "park" (по
+     * умолчанию) - вызов ждёт сети до LOAD_TIMEOUT_MS, вытесняя прежний
+     * вызов того же слота. adType - тип метода, "preload" - preloadAll().
+     */
+    private boolean isOffline(PluginCall call, String adType, PreInitQueue.Method method) {
+        if (network == null || network.isOnline()) return false;
+        String slot = offlineSlot(adType, call.getData());
+        // Без adUnitId отказ даст сам метод - ждать сети ему незачем.
+        if (slot == null) return false;
+        if (isOfflineFailFast) {
+            resolveFail(call, "Offline");
+            return true;
+        }
+        hold(call);
+        PluginCall superseded = offlineQueue.removeSlot(slot);
+        if (superseded != null) {
+            deadlines.cancel(superseded);
+            settle(superseded, false, "Superseded by a new " + call.getMethodName() + "() call");
+        }
+        if (!offlineQueue.offer(slot, offlinePriority(adType), call, method)) {
+            settle(call, false, "Offline");
+            return true;
+        }
+        deadlines.schedule(call, LOAD_TIMEOUT_MS, () -> {
+            if (!offlineQueue.remove(call)) return;
+            Log.w(TAG, call.getMethodName() + ": сеть так и не появилась");
+            settle(call, false, "Offline");
+        });
+        // Сеть могла вернуться между проверкой и постановкой - тогда вызов
+        // ждал бы своего срока зря.
+        if (network.isOnline()) runOnUi(this::replayOfflineLoads);
         return true;
     }
 
+    /** Слот, который загрузка займёт: вызовы одного слота вытесняют друг друга. */
+    @Nullable
+    private String offlineSlot(String adType, JSObject options) {
+        switch (adType) {
+            case "rewarded":
+                return "rewarded";
+            case "interstitial":
+                Waterfall.Plan plan = parsePlan(options);
+                return plan != null ? "interstitial:" + plan.primary() : null;
+            case "banner":
+                return "banner:" + bannerIdOf(options);
+            default:
+                return adType;
+        }
+    }
+
+    private static int offlinePriority(String adType) {
+        switch (adType) {
+            case "rewarded":
+                return OfflineQueue.PRIORITY_REWARDED;
+            case "interstitial":
+                return OfflineQueue.PRIORITY_INTERSTITIAL;
+            case "banner":
+                return OfflineQueue.PRIORITY_BANNER;
+            default:
+                return OfflineQueue.PRIORITY_PRELOAD;
+        }
+    }
+
+    /**
+     * Сеть пропала или вернулась; главный поток. Без сети стоит и
+     * обновление баннеров - оно тоже ушло бы в SDK впустую.
+     */
+    private void onNetworkChanged(boolean isOnline) {
+        if (isPluginDestroyed) return;
+        if (!isOnline) {
+            pauseBannerRefresh(BannerRefreshScheduler.PAUSE_OFFLINE);
+            return;
+        }
+        resumeBannerRefresh(BannerRefreshScheduler.PAUSE_OFFLINE);
+        replayOfflineLoads();
+        for (String primary : interstitialRefill.keySet()) startRefillLoad("interstitial", primary);
+        for (String primary : rewardedRefill.keySet()) startRefillLoad("rewarded", primary);
+    }
+
+    /** Отложенные без сети загрузки - по приоритету, через очередь моста. */
+    private void replayOfflineLoads() {
+        for (OfflineQueue.Entry entry : offlineQueue.drain()) {
+            deadlines.cancel(entry.call);
+            getBridge().execute(() -> {
+                entry.call.setKeepAlive(false);
+                entry.method.invoke(entry.call);
+            });
+        }
+    }
+
+    /**
+     * Выполняет отложенные вызовы по порядку прихода. Через очередь моста, а
+     * не прямо здесь: методы плагина рассчитаны на его поток, а колбэк
+     * инициализации приходит на UI-поток.
+     */
+    private void drainPreInitQueue() {
+        for (PreInitQueue.Entry entry : preInitQueue.drain()) {
+            deadlines.cancel(entry.call);
+            getBridge().execute(() -> {
+                // Удержание было только на время ожидания; метод сам удержит
+                // вызов снова, если ответ у него отложенный.
+                entry.call.setKeepAlive(false);
+                entry.method.invoke(entry.call);
+            });
+        }
+    }
+
+    /**
+     * Ответ на опрос состояния (isXLoaded, getStats, готовый awaitReady).
+     * Снимок снят на потоке моста, а события о тех же переходах - "loaded",
+     * "expired" - уже стоят в outbound или ждут в буфере eventBatcher. Ответ
+     * напрямую обогнал бы их: JS увидел бы loaded=true раньше события
+     * "loaded". Поэтому - через outbound и после отдачи пакета, как releaseNow.
+     */
+    private void answer(@NonNull PluginCall call, @NonNull JSObject ret) {
+        outbound.post(() -> {
+            eventBatcher.flush();
+            call.resolve(ret);
+        });
+    }
+
     private void resolveOk(PluginCall call, @Nullable String message) {
-        JSObject ret = new JSObject();
-        ret.put("success", true);
-        if (message != null) ret.put("message", message);
-        call.resolve(ret);
+        outbound.post(() -> call.resolve(Payloads.result(true, message)));
     }
 
     private void resolveFail(PluginCall call, @Nullable String message) {
-        JSObject ret = new JSObject();
-        ret.put("success", false);
-        if (message != null) ret.put("message", message);
-        call.resolve(ret);
+        outbound.post(() -> call.resolve(Payloads.result(false, message)));
     }
 
     private void rejectMissingParameter(PluginCall call, String paramName) {
@@ -0,0 +1,132 @@
+package com.osova.yandex.ads;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.yandex.mobile.ads.banner.BannerAdEventListener;
+import com.yandex.mobile.ads.banner.BannerAdSize;
+import com.yandex.mobile.ads.banner.BannerAdView;
+import com.yandex.mobile.ads.common.AdRequest;
+import com.yandex.mobile.ads.common.YandexAds;
+import com.yandex.mobile.ads.interstitial.InterstitialAdLoadListener;
+import com.yandex.mobile.ads.interstitial.InterstitialAdLoader;
+import com.yandex.mobile.ads.rewarded.RewardedAdLoadListener;
+import com.yandex.mobile.ads.rewarded.RewardedAdLoader;
+
+/** AdBackend поверх Yandex Mobile Ads SDK 8 - то, с чем плагин работает в приложении. */
+final class YandexBackend implements AdBackend {
+
+    @Override
+    public void initialize(@NonNull Context context, @NonNull Runnable onInitialized) {
+        // Начиная с SDK 8 библиотека поднимается сама при старте
+        // приложения; этот вызов лишь дожидается конца инициализации.
+        YandexAds.initialize(context, onInitialized::run);
+    }
+
+    @Nullable
+    @Override
+    public String libraryVersion() {
+        return YandexAds.getLibraryVersion();
+    }
+
+    @Override
+    public void setUserConsent(boolean value) {
+        YandexAds.setUserConsent(value);
+    }
+
+    @Override
+    public void setAgeRestricted(boolean value) {
+        YandexAds.setAgeRestricted(value);
+    }
+
+    @Override
+    public void setLocationTracking(boolean value) {
+        YandexAds.setLocationTracking(value);
+    }
+
+    @Override
+    public void enableLogging(boolean value) {
+        YandexAds.enableLogging(value);
+    }
+
+    @NonNull
+    @Override
+    public Loader<InterstitialAdLoadListener> interstitialLoader(@NonNull Context context) {
+        InterstitialAdLoader loader = new InterstitialAdLoader(context);
+        return new Loader<InterstitialAdLoadListener>() {
+            @Override
+            public void load(@NonNull AdRequest request, @NonNull String adUnitId,
+                             @NonNull InterstitialAdLoadListener listener) {
+                // В SDK 8 слушатель передаётся прямо в loadAd, а блок - часть запроса.
+                loader.loadAd(request, listener);
+            }
+
+            @Override
+            public void cancel() {
+                loader.cancelLoading();
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public Loader<RewardedAdLoadListener> rewardedLoader(@NonNull Context context) {
+        RewardedAdLoader loader = new RewardedAdLoader(context);
+        return new Loader<RewardedAdLoadListener>() {
+            @Override
+            public void load(@NonNull AdRequest request, @NonNull String adUnitId,
+                             @NonNull RewardedAdLoadListener listener) {
+                loader.loadAd(request, listener);
+            }
+
+            @Override
+            public void cancel() {
+                loader.cancelLoading();
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public Banner banner(@NonNull Context context, int width, @Nullable Integer height) {
+        BannerAdView view = new BannerAdView(context);
+        // Семантика размеров - как у Defold-расширения: width и height
+        // задают inline-баннер до этих размеров (не fixed - эталон
+        // использовал inlineSize, креатив может быть ниже), только
+        // width - sticky этой ширины, без размера - стандартный
+        // 320x50 (в SDK 8 методы переименованы и требуют контекст).
+        BannerAdSize adSize;
+        if (width > 0 && height != null && height > 0)
+            adSize = BannerAdSize.inline(context, width, height);
+        else if (width > 0)
+            adSize = BannerAdSize.sticky(context, width);
+        else
+            adSize = BannerAdSize.inline(context, 320, 50);
+        view.setAdSize(adSize);
+        return new Banner() {
+            @NonNull
+            @Override
+            public View view() {
+                return view;
+            }
+
+            @Override
+            public void setListener(@Nullable BannerAdEventListener listener) {
+                view.setBannerAdEventListener(listener);
+            }
+
+            @Override
+            public void load(@NonNull AdRequest request, @NonNull String adUnitId) {
+                view.loadAd(request);
+            }
+
+            @Override
+            public void destroy() {
+                view.destroy();
+            }
+        };
+    }
+}
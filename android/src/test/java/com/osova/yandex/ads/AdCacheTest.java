@@ -0,0 +1,85 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Вытеснение в AdCache: очередь блока режется по maxPerUnit с головы, весь
+ * кеш - по maxTotal с наименее востребованного блока.
+ */
+public class AdCacheTest {
+
+    private final List<String> released = new ArrayList<>();
+    private final AdCache<String> cache = new AdCache<>(3, released::add);
+
+    @Test
+    public void unitOverflowReleasesItsOldestAd() {
+        cache.put("A", "a1", 2, 1);
+        cache.put("A", "a2", 2, 2);
+        cache.put("A", "a3", 2, 3);
+        assertEquals(Arrays.asList("a1"), released);
+        assertEquals(2, cache.count("A"));
+        assertEquals("a2", cache.take("A").ad);
+    }
+
+    @Test
+    public void totalCapEvictsLeastRecentlyUsedUnit() {
+        cache.put("A", "a1", 2, 1);
+        cache.put("B", "b1", 2, 2);
+        // A снова тронут - наименее востребованным стал B.
+        cache.put("A", "a2", 2, 3);
+        cache.put("C", "c1", 2, 4);
+        assertEquals(Arrays.asList("b1"), released);
+        assertFalse(cache.has("B"));
+        assertEquals(2, cache.count("A"));
+        assertEquals(1, cache.count("C"));
+    }
+
+    @Test
+    public void evictionSpillsOverToNextUnit() {
+        cache.put("A", "a1", 3, 1);
+        cache.put("A", "a2", 3, 2);
+        cache.put("B", "b1", 3, 3);
+        cache.put("C", "c1", 3, 4);
+        cache.put("C", "c2", 3, 5);
+        // Два лишних: оба из A, затем B - только если A кончился.
+        assertEquals(Arrays.asList("a1", "a2"), released);
+        cache.put("D", "d1", 3, 6);
+        cache.put("D", "d2", 3, 7);
+        cache.put("D", "d3", 3, 8);
+        assertEquals(Arrays.asList("a1", "a2", "b1", "c1", "c2"), released);
+        assertEquals(3, cache.count("D"));
+    }
+
+    @Test
+    public void pollingDoesNotRescueUnitFromEviction() {
+        cache.put("A", "a1", 1, 1);
+        cache.put("B", "b1", 1, 2);
+        cache.put("C", "c1", 1, 3);
+        assertEquals("a1", cache.peek("A").ad);
+        assertTrue(cache.has("A"));
+        assertEquals(1, cache.count("A"));
+        cache.put("D", "d1", 1, 4);
+        assertEquals(Arrays.asList("a1"), released);
+    }
+
+    @Test
+    public void takeWithoutUnitServesMostRecentUnit() {
+        cache.put("A", "a1", 2, 1);
+        cache.put("B", "b1", 2, 2);
+        AdCache.Entry<String> entry = cache.take(null);
+        assertEquals("B", entry.adUnitId);
+        assertEquals(2, entry.loadedAt);
+        assertEquals("a1", cache.take(null).ad);
+        assertNull(cache.take(null));
+        assertTrue(released.isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DeadlineScheduler на главном looper'е Robolectric: в очереди одно
+ * сообщение - на ближайший срок, снятый срок не срабатывает и не оставляет
+ * сообщения.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class DeadlineSchedulerTest {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final DeadlineScheduler deadlines = new DeadlineScheduler(handler);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    public void firesInDueOrderWithOneMessageForEarliest() {
+        long start = SystemClock.uptimeMillis();
+        deadlines.schedule(new Object(), 300, () -> fired.add("late"));
+        deadlines.schedule(new Object(), 100, () -> fired.add("early"));
+        deadlines.schedule(new Object(), 200, () -> fired.add("middle"));
+        assertEquals(start + 100, nextMessageAt());
+        assertEquals(nextMessageAt(), lastMessageAt());
+
+        advance(100);
+        assertEquals(Collections.singletonList("early"), fired);
+        assertEquals(start + 200, nextMessageAt());
+
+        advance(200);
+        assertEquals(Arrays.asList("early", "middle", "late"), fired);
+        assertFalse(handler.hasMessages(0));
+    }
+
+    @Test
+    public void cancelledDeadlineNeverFiresAndLeavesNoMessage() {
+        Object load = new Object();
+        deadlines.schedule(load, 100, () -> fired.add("load"));
+        // Ответ пришёл раньше срока.
+        deadlines.cancel(load);
+        assertFalse(handler.hasMessages(0));
+
+        advance(1000);
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    public void cancellingEarliestRepostsForNext() {
+        long start = SystemClock.uptimeMillis();
+        Object early = new Object();
+        deadlines.schedule(early, 100, () -> fired.add("early"));
+        deadlines.schedule(new Object(), 500, () -> fired.add("late"));
+        deadlines.cancel(early);
+        assertEquals(start + 500, nextMessageAt());
+        assertEquals(nextMessageAt(), lastMessageAt());
+
+        advance(500);
+        assertEquals(Collections.singletonList("late"), fired);
+    }
+
+    @Test
+    public void rescheduleReplacesKeysDeadline() {
+        Object call = new Object();
+        deadlines.schedule(call, 100, () -> fired.add("first"));
+        deadlines.schedule(call, 300, () -> fired.add("second"));
+        advance(200);
+        assertTrue(fired.isEmpty());
+        advance(100);
+        assertEquals(Collections.singletonList("second"), fired);
+    }
+
+    @Test
+    public void keysCompareByReference() {
+        String key = new String("call");
+        deadlines.schedule(key, 100, () -> fired.add("original"));
+        deadlines.cancel(new String("call"));
+        advance(100);
+        assertEquals(Collections.singletonList("original"), fired);
+    }
+
+    @Test
+    public void sameMillisecondFiresInScheduleOrder() {
+        deadlines.schedule(new Object(), 100, () -> fired.add("a"));
+        deadlines.schedule(new Object(), 100, () -> fired.add("b"));
+        deadlines.schedule(new Object(), 100, () -> fired.add("c"));
+        advance(100);
+        assertEquals(Arrays.asList("a", "b", "c"), fired);
+    }
+
+    @Test
+    public void actionMayScheduleAndCancel() {
+        Object other = new Object();
+        deadlines.schedule(other, 150, () -> fired.add("other"));
+        deadlines.schedule(new Object(), 100, () -> {
+            fired.add("watchdog");
+            deadlines.cancel(other);
+            deadlines.schedule(new Object(), 100, () -> fired.add("retry"));
+        });
+        advance(100);
+        assertEquals(Collections.singletonList("watchdog"), fired);
+        advance(100);
+        assertEquals(Arrays.asList("watchdog", "retry"), fired);
+        assertFalse(handler.hasMessages(0));
+    }
+
+    @Test
+    public void clearDropsEverythingWithoutRunning() {
+        deadlines.schedule(new Object(), 100, () -> fired.add("a"));
+        deadlines.schedule(new Object(), 200, () -> fired.add("b"));
+        deadlines.clear();
+        assertFalse(handler.hasMessages(0));
+        advance(1000);
+        assertTrue(fired.isEmpty());
+    }
+
+    private static void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    private static long nextMessageAt() {
+        return shadowOf(Looper.getMainLooper()).getNextScheduledTaskTime().toMillis();
+    }
+
+    private static long lastMessageAt() {
+        return shadowOf(Looper.getMainLooper()).getLastScheduledTaskTime().toMillis();
+    }
+}
@@ -0,0 +1,141 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * EventBatcher: срочное событие уходит сразу и вместе со всем, что накопилось
+ * до него, а кадр и таймер только ставят разбор буфера на flusher.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class EventBatcherTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+    // Задачи для потока outbound: тест выполняет их сам, когда нужно.
+    private final List<Runnable> flushes = new ArrayList<>();
+    private final EventBatcher batcher = new EventBatcher(new Handler(Looper.getMainLooper()), flushes::add,
+        events -> batches.add(names(events)));
+
+    @Test
+    public void disabledBatcherLeavesEventsToCaller() {
+        assertFalse(batcher.offer(event("loaded"), false));
+        assertFalse(batcher.offer(event("rewarded"), true));
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void urgentEventFlushesBufferInOrder() {
+        batcher.configure(true, 1000);
+        assertTrue(batcher.offer(event("shown"), false));
+        assertTrue(batcher.offer(event("impression"), false));
+        assertTrue(batches.isEmpty());
+
+        assertTrue(batcher.offer(event("rewarded"), true));
+        assertEquals(Collections.singletonList(Arrays.asList("shown", "impression", "rewarded")), batches);
+
+        batcher.offer(event("dismissed"), false);
+        advance(1000);
+        runFlushes();
+        assertEquals(Arrays.asList("dismissed"), batches.get(1));
+    }
+
+    @Test
+    public void urgentEventAloneIsDeliveredAlone() {
+        batcher.configure(true, 1000);
+        batcher.offer(event("rewarded"), true);
+        assertEquals(Collections.singletonList(Collections.singletonList("rewarded")), batches);
+    }
+
+    @Test
+    public void intervalTickOnlySchedulesFlushOnFlusher() {
+        batcher.configure(true, 100);
+        batcher.offer(event("loaded"), false);
+        advance(100);
+        // Пакет снимается не на главном потоке, а в очереди flusher.
+        assertTrue(batches.isEmpty());
+        assertEquals(1, flushes.size());
+
+        runFlushes();
+        assertEquals(Collections.singletonList(Collections.singletonList("loaded")), batches);
+    }
+
+    @Test
+    public void frameTickDeliversBatch() {
+        batcher.configure(true, 0);
+        batcher.offer(event("loaded"), false);
+        batcher.offer(event("impression"), false);
+        advance(100);
+        runFlushes();
+        assertEquals(Collections.singletonList(Arrays.asList("loaded", "impression")), batches);
+    }
+
+    @Test
+    public void explicitFlushDeliversOnceAndSkipsEmptyBuffer() {
+        batcher.configure(true, 1000);
+        batcher.offer(event("loaded"), false);
+        batcher.flush();
+        batcher.flush();
+        assertEquals(Collections.singletonList(Collections.singletonList("loaded")), batches);
+
+        // Таймер той пачки потом не отдаёт пустой массив.
+        advance(1000);
+        runFlushes();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void disablingFlushesAndStopsBatching() {
+        batcher.configure(true, 1000);
+        batcher.offer(event("loaded"), false);
+        batcher.configure(false, 0);
+        runFlushes();
+        assertEquals(Collections.singletonList(Collections.singletonList("loaded")), batches);
+        assertFalse(batcher.offer(event("shown"), false));
+    }
+
+    private void runFlushes() {
+        List<Runnable> tasks = new ArrayList<>(flushes);
+        flushes.clear();
+        for (Runnable task : tasks) task.run();
+    }
+
+    private static void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    private static JSObject event(String name) {
+        JSObject event = new JSObject();
+        event.put("event", name);
+        return event;
+    }
+
+    private static List<String> names(JSArray events) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            names.add(event != null ? event.optString("event") : null);
+        }
+        return names;
+    }
+}
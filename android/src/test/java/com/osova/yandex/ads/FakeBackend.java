@@ -0,0 +1,463 @@
+package com.osova.yandex.ads;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.yandex.mobile.ads.banner.BannerAdEventListener;
+import com.yandex.mobile.ads.common.AdError;
+import com.yandex.mobile.ads.common.AdRequest;
+import com.yandex.mobile.ads.common.AdRequestError;
+import com.yandex.mobile.ads.interstitial.InterstitialAd;
+import com.yandex.mobile.ads.interstitial.InterstitialAdEventListener;
+import com.yandex.mobile.ads.interstitial.InterstitialAdLoadListener;
+import com.yandex.mobile.ads.rewarded.Reward;
+import com.yandex.mobile.ads.rewarded.RewardedAd;
+import com.yandex.mobile.ads.rewarded.RewardedAdEventListener;
+import com.yandex.mobile.ads.rewarded.RewardedAdLoadListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AdBackend без сети и SDK: ответы на загрузку назначает сценарий.
+ *
+ * Каждая загрузка получает Response - заполнение, отказ, потерянный колбэк
+ * или поздний, пришедший уже после сторожа. Ответы можно поставить в очередь
+ * на блок (respond), остальные разыгрываются по долям отказов и потерь с
+ * фиксированным зерном - прогон повторяем. Колбэки приходят на главный
+ * looper через fillLatencyMs: тест двигает часы Robolectric и видит гонки
+ * колбэков со сторожами так же, как на устройстве.
+ *
+ * Как и SDK, cancel() отзывает ещё не пришедший колбэк, а поздний - нет:
+ * он уже "в очереди" и приходит всё равно.
+ *
+ * Объявления - моки интерфейсов SDK: показ тоже по сценарию (ShowBehavior).
+ * Все методы - с главного потока, как у настоящего SDK.
+ */
+final class FakeBackend implements AdBackend {
+
+    /** Что случится с одной загрузкой. */
+    static final class Response {
+        enum Kind { FILL, FAIL, DROP, LATE }
+
+        final Kind kind;
+        final long delayMs;
+
+        private Response(Kind kind, long delayMs) {
+            this.kind = kind;
+            this.delayMs = delayMs;
+        }
+
+        static Response fill(long delayMs) {
+            return new Response(Kind.FILL, delayMs);
+        }
+
+        static Response fail(long delayMs) {
+            return new Response(Kind.FAIL, delayMs);
+        }
+
+        /** Колбэк не придёт никогда - загрузку закроет только сторож. */
+        static Response drop() {
+            return new Response(Kind.DROP, 0);
+        }
+
+        /** Заполнение через delayMs, которое cancel() уже не отзывает. */
+        static Response late(long delayMs) {
+            return new Response(Kind.LATE, delayMs);
+        }
+    }
+
+    /** Что делает показанное объявление. */
+    enum ShowBehavior {
+        /** shown, impression, награда, dismissed - одной чередой. */
+        COMPLETE,
+        /** shown и impression; закрывает тест через dismissShowing(). */
+        HOLD,
+        /** onAdFailedToShow. */
+        FAIL,
+        /** show() принят, колбэков нет - показ закроет сторож. */
+        SILENT
+    }
+
+    static final int ERROR_NO_FILL = 4;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, ArrayDeque<Response>> scripted = new HashMap<>();
+    private Random random = new Random(1);
+
+    private long fillLatencyMs = 0;
+    private double failureRate = 0;
+    private double dropRate = 0;
+    private double lateRate = 0;
+    private long lateDelayMs = 0;
+    private long initLatencyMs = 0;
+    private boolean isInitDropped = false;
+    private ShowBehavior showBehavior = ShowBehavior.COMPLETE;
+
+    // Счётчики - для проверок утечек и для пропускной способности.
+    final AtomicInteger initCalls = new AtomicInteger();
+    final AtomicInteger loads = new AtomicInteger();
+    final AtomicInteger fills = new AtomicInteger();
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicInteger cancels = new AtomicInteger();
+    final AtomicInteger shows = new AtomicInteger();
+    final AtomicInteger bannersCreated = new AtomicInteger();
+    final AtomicInteger bannersDestroyed = new AtomicInteger();
+
+    @Nullable
+    private Runnable dismissShowing;
+    // Слушатели на выданных объявлениях: слушатель держит плагин, и
+    // оставленный на объявлении - утечка плагина вместе с activity.
+    private final List<Object[]> adListeners = new ArrayList<>();
+
+    // MARK: - Сценарий
+
+    FakeBackend seed(long seed) {
+        random = new Random(seed);
+        return this;
+    }
+
+    FakeBackend fillLatency(long ms) {
+        fillLatencyMs = ms;
+        return this;
+    }
+
+    FakeBackend failureRate(double rate) {
+        failureRate = rate;
+        return this;
+    }
+
+    FakeBackend dropRate(double rate) {
+        dropRate = rate;
+        return this;
+    }
+
+    /** Доля загрузок, чьё заполнение приходит через delayMs и мимо cancel(). */
+    FakeBackend lateCallbacks(double rate, long delayMs) {
+        lateRate = rate;
+        lateDelayMs = delayMs;
+        return this;
+    }
+
+    FakeBackend initLatency(long ms) {
+        initLatencyMs = ms;
+        return this;
+    }
+
+    /** Колбэк инициализации не придёт - init() закроет сторож. */
+    FakeBackend dropInit() {
+        isInitDropped = true;
+        return this;
+    }
+
+    FakeBackend showBehavior(@NonNull ShowBehavior behavior) {
+        showBehavior = behavior;
+        return this;
+    }
+
+    /** Следующие загрузки блока получат эти ответы по порядку. */
+    FakeBackend respond(@NonNull String adUnitId, @NonNull Response... responses) {
+        ArrayDeque<Response> queue = scripted.get(adUnitId);
+        if (queue == null) scripted.put(adUnitId, queue = new ArrayDeque<>());
+        for (Response response : responses) queue.add(response);
+        return this;
+    }
+
+    /** Сколько выданных объявлений всё ещё со слушателем. */
+    int adsWithListener() {
+        int count = 0;
+        for (Object[] listener : adListeners) if (listener[0] != null) count++;
+        return count;
+    }
+
+    /** Закрывает объявление, показанное с ShowBehavior.HOLD. */
+    void dismissShowing() {
+        Runnable dismiss = dismissShowing;
+        dismissShowing = null;
+        if (dismiss != null) dismiss.run();
+    }
+
+    private Response next(String adUnitId) {
+        ArrayDeque<Response> queue = scripted.get(adUnitId);
+        if (queue != null && !queue.isEmpty()) return queue.poll();
+        double roll = random.nextDouble();
+        if (roll < dropRate) return Response.drop();
+        roll -= dropRate;
+        if (roll < lateRate) return Response.late(lateDelayMs);
+        roll -= lateRate;
+        if (roll < failureRate) return Response.fail(fillLatencyMs);
+        return Response.fill(fillLatencyMs);
+    }
+
+    // MARK: - AdBackend
+
+    @Override
+    public void initialize(@NonNull Context context, @NonNull Runnable onInitialized) {
+        initCalls.incrementAndGet();
+        if (isInitDropped) return;
+        handler.postDelayed(onInitialized, initLatencyMs);
+    }
+
+    @Nullable
+    @Override
+    public String libraryVersion() {
+        return "fake";
+    }
+
+    @Override
+    public void setUserConsent(boolean value) {
+    }
+
+    @Override
+    public void setAgeRestricted(boolean value) {
+    }
+
+    @Override
+    public void setLocationTracking(boolean value) {
+    }
+
+    @Override
+    public void enableLogging(boolean value) {
+    }
+
+    @NonNull
+    @Override
+    public Loader<InterstitialAdLoadListener> interstitialLoader(@NonNull Context context) {
+        return new FakeLoader<InterstitialAdLoadListener>() {
+            @Override
+            void deliver(@NonNull InterstitialAdLoadListener listener, @Nullable AdRequestError error) {
+                if (error != null) listener.onAdFailedToLoad(error);
+                else listener.onAdLoaded(interstitialAd());
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public Loader<RewardedAdLoadListener> rewardedLoader(@NonNull Context context) {
+        return new FakeLoader<RewardedAdLoadListener>() {
+            @Override
+            void deliver(@NonNull RewardedAdLoadListener listener, @Nullable AdRequestError error) {
+                if (error != null) listener.onAdFailedToLoad(error);
+                else listener.onAdLoaded(rewardedAd());
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public Banner banner(@NonNull Context context, int width, @Nullable Integer height) {
+        bannersCreated.incrementAndGet();
+        return new FakeBanner(new View(context));
+    }
+
+    // MARK: - Загрузка
+
+    /** Один запрос за раз, как InterstitialAdLoader и RewardedAdLoader. */
+    private abstract class FakeLoader<L> implements Loader<L> {
+        @Nullable
+        private Runnable pending;
+
+        abstract void deliver(@NonNull L listener, @Nullable AdRequestError error);
+
+        @Override
+        public void load(@NonNull AdRequest request, @NonNull String adUnitId, @NonNull L listener) {
+            cancelPending();
+            pending = schedule(adUnitId, error -> deliver(listener, error));
+        }
+
+        @Override
+        public void cancel() {
+            cancels.incrementAndGet();
+            cancelPending();
+        }
+
+        private void cancelPending() {
+            if (pending != null) handler.removeCallbacks(pending);
+            pending = null;
+        }
+    }
+
+    private final class FakeBanner implements Banner {
+        private final View view;
+        @Nullable
+        private BannerAdEventListener listener;
+        @Nullable
+        private Runnable pending;
+        private boolean isDestroyed = false;
+
+        FakeBanner(View view) {
+            this.view = view;
+        }
+
+        @NonNull
+        @Override
+        public View view() {
+            return view;
+        }
+
+        @Override
+        public void setListener(@Nullable BannerAdEventListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void load(@NonNull AdRequest request, @NonNull String adUnitId) {
+            pending = schedule(adUnitId, error -> {
+                BannerAdEventListener current = listener;
+                if (current == null || isDestroyed) return;
+                if (error != null) {
+                    current.onAdFailedToLoad(error);
+                    return;
+                }
+                current.onAdLoaded();
+                current.onImpression(null);
+            });
+        }
+
+        @Override
+        public void destroy() {
+            if (isDestroyed) return;
+            isDestroyed = true;
+            bannersDestroyed.incrementAndGet();
+            if (pending != null) handler.removeCallbacks(pending);
+        }
+    }
+
+    private interface Delivery {
+        void deliver(@Nullable AdRequestError error);
+    }
+
+    /**
+     * Разыгрывает ответ и ставит его колбэк. Возвращает то, что может отозвать
+     * cancel(); null - отзывать нечего (потерянный или поздний колбэк).
+     */
+    @Nullable
+    private Runnable schedule(String adUnitId, Delivery delivery) {
+        loads.incrementAndGet();
+        Response response = next(adUnitId);
+        if (response.kind == Response.Kind.DROP) return null;
+        boolean isFail = response.kind == Response.Kind.FAIL;
+        Runnable task = () -> {
+            if (isFail) {
+                failures.incrementAndGet();
+                delivery.deliver(new AdRequestError(ERROR_NO_FILL, "No fill"));
+            } else {
+                fills.incrementAndGet();
+                delivery.deliver(null);
+            }
+        };
+        handler.postDelayed(task, response.delayMs);
+        // Позднему колбэку cancel() уже не указ.
+        return response.kind == Response.Kind.LATE ? null : task;
+    }
+
+    // MARK: - Показ
+
+    private InterstitialAd interstitialAd() {
+        InterstitialAd ad = mock(InterstitialAd.class);
+        InterstitialAdEventListener[] listener = { null };
+        adListeners.add(listener);
+        doAnswer(invocation -> {
+            listener[0] = invocation.getArgument(0);
+            return null;
+        }).when(ad).setAdEventListener(any());
+        doAnswer(invocation -> {
+            shows.incrementAndGet();
+            play(() -> listener[0], l -> l.onAdShown(), l -> l.onAdImpression(null),
+                l -> l.onAdDismissed(), (l, error) -> l.onAdFailedToShow(error), null);
+            return null;
+        }).when(ad).show(any(Activity.class));
+        return ad;
+    }
+
+    private RewardedAd rewardedAd() {
+        RewardedAd ad = mock(RewardedAd.class);
+        RewardedAdEventListener[] listener = { null };
+        adListeners.add(listener);
+        doAnswer(invocation -> {
+            listener[0] = invocation.getArgument(0);
+            return null;
+        }).when(ad).setAdEventListener(any());
+        Reward reward = mock(Reward.class);
+        when(reward.getAmount()).thenReturn(1);
+        when(reward.getType()).thenReturn("coins");
+        doAnswer(invocation -> {
+            shows.incrementAndGet();
+            play(() -> listener[0], l -> l.onAdShown(), l -> l.onAdImpression(null),
+                l -> l.onAdDismissed(), (l, error) -> l.onAdFailedToShow(error), l -> l.onRewarded(reward));
+            return null;
+        }).when(ad).show(any(Activity.class));
+        return ad;
+    }
+
+    private interface ListenerSource<L> {
+        @Nullable
+        L get();
+    }
+
+    private interface Callback<L> {
+        void call(@NonNull L listener);
+    }
+
+    private interface FailCallback<L> {
+        void call(@NonNull L listener, @NonNull AdError error);
+    }
+
+    /**
+     * Колбэки показа - следующим проходом looper'а, как у SDK, и тому
+     * слушателю, что стоит на объявлении в момент колбэка: снятый плагином
+     * слушатель больше ничего не получает.
+     */
+    private <L> void play(ListenerSource<L> source, Callback<L> shown, Callback<L> impression,
+                          Callback<L> dismissed, FailCallback<L> failed, @Nullable Callback<L> rewarded) {
+        List<Callback<L>> steps = new ArrayList<>();
+        switch (showBehavior) {
+            case SILENT:
+                return;
+            case FAIL:
+                AdError error = mock(AdError.class);
+                when(error.getDescription()).thenReturn("Fake show failure");
+                steps.add(l -> failed.call(l, error));
+                break;
+            case HOLD:
+                steps.add(shown);
+                steps.add(impression);
+                dismissShowing = () -> {
+                    if (rewarded != null) deliver(source, rewarded);
+                    deliver(source, dismissed);
+                };
+                break;
+            default:
+                steps.add(shown);
+                steps.add(impression);
+                if (rewarded != null) steps.add(rewarded);
+                steps.add(dismissed);
+                break;
+        }
+        handler.post(() -> {
+            for (Callback<L> step : steps) deliver(source, step);
+        });
+    }
+
+    private static <L> void deliver(ListenerSource<L> source, Callback<L> step) {
+        L listener = source.get();
+        if (listener != null) step.call(listener);
+    }
+}
@@ -0,0 +1,290 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Bundle;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.MessageHandler;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginResult;
+
+import org.json.JSONException;
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Плагин на Robolectric с FakeBackend вместо SDK: мост - мок, ответы и
+ * события пишутся сюда.
+ *
+ * Тест идёт на главном потоке Robolectric, поэтому метод плагина, его
+ * runOnUi и колбэки подделки выполняются на одном потоке, а главный looper
+ * стоит, пока его не подвинуть: advance() - часы вперёд вместе со сторожами,
+ * idle() - только то, что уже пора. Ответы уходят через outbound с его
+ * собственного потока - их ждёт await().
+ */
+final class PluginHarness {
+
+    /** Activity с темой AppCompat - без неё AppCompatActivity не создаётся. */
+    static final class TestActivity extends AppCompatActivity {
+        @Override
+        protected void onCreate(Bundle savedInstanceState) {
+            setTheme(androidx.appcompat.R.style.Theme_AppCompat_Light_NoActionBar);
+            super.onCreate(savedInstanceState);
+        }
+    }
+
+    /** Плагин, который пишет события вместо отправки в WebView. */
+    static final class RecordingPlugin extends YandexAdsPlugin {
+        final List<JSObject> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void notifyListeners(String eventName, JSObject data) {
+            events.add(data);
+        }
+    }
+
+    /** Сеть, которую тест включает и выключает сам; по умолчанию она есть. */
+    static final class FakeNetwork implements NetworkSource {
+        private volatile boolean isOnline = true;
+        private volatile Listener listener;
+
+        @Override
+        public boolean isOnline() {
+            return isOnline;
+        }
+
+        @Override
+        public void start(@NonNull Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void stop() {
+            listener = null;
+        }
+
+        /** Как у ConnectivitySource: слушатель - только на смену; тест и есть главный поток. */
+        void setOnline(boolean online) {
+            if (isOnline == online) return;
+            isOnline = online;
+            Listener current = listener;
+            if (current != null) current.onNetworkChanged(online);
+        }
+    }
+
+    private static final long AWAIT_TIMEOUT_MS = 5000;
+
+    final FakeBackend backend;
+    final FakeNetwork network = new FakeNetwork();
+    final RecordingPlugin plugin = new RecordingPlugin();
+    final ActivityController<TestActivity> activityController;
+    final AppCompatActivity activity;
+
+    // stubOnly: мок не копит вызовы - за тысячи циклов soak-теста это была
+    // бы своя утечка, а заодно ссылки на все PluginCall.
+    private final MessageHandler messageHandler = mock(MessageHandler.class, withSettings().stubOnly());
+    private final Map<PluginCall, List<JSObject>> responses = new ConcurrentHashMap<>();
+    // Все вызовы, отданные плагину, - кроме пробных из settle().
+    private final List<PluginCall> calls = new ArrayList<>();
+    private final AtomicInteger callIds = new AtomicInteger();
+
+    PluginHarness(FakeBackend backend) {
+        this.backend = backend;
+        activityController = Robolectric.buildActivity(TestActivity.class).setup();
+        activity = activityController.get();
+
+        Bridge bridge = mock(Bridge.class, withSettings().stubOnly());
+        when(bridge.getActivity()).thenReturn(activity);
+        when(bridge.getContext()).thenReturn(activity);
+        // Очередь вызовов после init - прямо здесь: поток моста в тесте один.
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(bridge).execute(any(Runnable.class));
+
+        doAnswer(invocation -> {
+            PluginCall call = invocation.getArgument(0);
+            PluginResult result = invocation.getArgument(1);
+            responses.computeIfAbsent(call, c -> new CopyOnWriteArrayList<>()).add(parse(result));
+            return null;
+        }).when(messageHandler).sendResponseMessage(any(), any(), any());
+
+        plugin.backend = backend;
+        plugin.network = network;
+        plugin.setBridge(bridge);
+        plugin.load();
+    }
+
+    // MARK: - Вызовы
+
+    PluginCall call(String method, JSObject options) {
+        PluginCall call = newCall(method, options);
+        calls.add(call);
+        return call;
+    }
+
+    private PluginCall newCall(String method, JSObject options) {
+        return new PluginCall(messageHandler, "YandexAds", String.valueOf(callIds.incrementAndGet()), method, options);
+    }
+
+    PluginCall call(String method) {
+        return call(method, new JSObject());
+    }
+
+    static JSObject unit(String adUnitId) {
+        JSObject options = new JSObject();
+        options.put("adUnitId", adUnitId);
+        return options;
+    }
+
+    /** init() и готовность подделки; возвращает ответ. */
+    JSObject init() {
+        PluginCall call = call("init");
+        plugin.init(call);
+        return await(call);
+    }
+
+    // MARK: - Время
+
+    /** Выполняет то, что уже пора, не двигая часы. */
+    void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /** Двигает часы главного looper'а: срабатывают колбэки подделки и сторожа. */
+    void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    // MARK: - Ответы и события
+
+    /** Ждёт первого ответа на call: он приходит с потока outbound. */
+    JSObject await(PluginCall call) {
+        long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            idle();
+            List<JSObject> received = responses.get(call);
+            if (received != null && !received.isEmpty()) return received.get(0);
+            sleep();
+        }
+        fail("No response to " + call.getMethodName());
+        return null;
+    }
+
+    /** Все ответы на call к этому моменту - после того, как outbound их отдал. */
+    List<JSObject> responses(PluginCall call) {
+        settle();
+        List<JSObject> received = responses.get(call);
+        return received != null ? new ArrayList<>(received) : new ArrayList<>();
+    }
+
+    /** Ждёт события event рекламы adType. */
+    JSObject awaitEvent(String adType, String event) {
+        long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            idle();
+            for (JSObject data : plugin.events) {
+                if (adType.equals(data.getString("adType")) && event.equals(data.getString("event"))) return data;
+            }
+            sleep();
+        }
+        fail("No " + adType + " " + event + " event");
+        return null;
+    }
+
+    int eventCount(String adType, String event) {
+        settle();
+        int count = 0;
+        for (JSObject data : plugin.events) {
+            if (adType.equals(data.getString("adType")) && event.equals(data.getString("event"))) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Даёт outbound доразослать поставленное. Очередь у него одна, поэтому
+     * пробный ответ, поставленный последним, приходит после всех прочих.
+     */
+    void settle() {
+        idle();
+        // setEventBatching отвечает через outbound; выключение заодно отдаёт накопленный
+        // пакет, так что после settle() пакетный режим выключен.
+        JSObject options = new JSObject();
+        options.put("enabled", false);
+        PluginCall probe = newCall("setEventBatching", options);
+        plugin.setEventBatching(probe);
+        await(probe);
+        responses.remove(probe);
+    }
+
+    /**
+     * Вызовы, которые получили не ровно один ответ или всё ещё удержаны.
+     * После handleOnDestroy таких быть не должно: удержанный вызов без
+     * ответа - висящее обещание в JS и ссылка моста на него.
+     */
+    List<String> unsettledCalls() {
+        settle();
+        List<String> unsettled = new ArrayList<>();
+        for (PluginCall call : calls) {
+            List<JSObject> received = responses.get(call);
+            int count = received != null ? received.size() : 0;
+            if (count != 1 || call.isKeepAlive()) {
+                unsettled.add(call.getMethodName() + " #" + call.getCallbackId() + ": " + count + " responses"
+                    + (call.isKeepAlive() ? ", kept alive" : ""));
+            }
+        }
+        return unsettled;
+    }
+
+    void destroy() {
+        plugin.handleOnDestroy();
+        idle();
+        // Плагин паркует готовые объявления для следующего экземпляра -
+        // следующему тесту они не нужны.
+        AdStore.get().takeInterstitials();
+        AdStore.get().takeRewarded();
+        AdStore.get().takeLastInterstitialAdUnitId();
+    }
+
+    /** Activity вслед за плагином - как при закрытии приложения. */
+    void destroyActivity() {
+        activityController.pause().stop().destroy();
+        idle();
+    }
+
+    private static JSObject parse(PluginResult result) {
+        try {
+            return new JSObject(result.toString());
+        } catch (JSONException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог PreloadBatch: одна секция на тип, общий success - только если все
+ * типы загрузились, не успевшие к сроку - pending, и ответ ровно один.
+ * Robolectric - ради org.json внутри JSObject.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class PreloadBatchTest {
+
+    private final List<JSObject> answers = new ArrayList<>();
+    private final PreloadBatch batch = new PreloadBatch(answers::add);
+
+    @Test
+    public void answersWhenEveryTypeSettles() {
+        batch.expect("banner");
+        batch.expect("rewarded");
+        batch.settle("banner", true, null, "R-M-3-1");
+        assertTrue(answers.isEmpty());
+
+        // Победитель группы важнее главного блока загрузки.
+        batch.onSettled(new AdLoad("rewarded", "R-M-2-1", null, batch), true, null, "R-M-2-2");
+        JSObject result = single();
+        assertTrue(result.getBool("success"));
+        assertEquals("R-M-3-1", result.getJSObject("banner").getString("adUnitId"));
+        assertEquals("R-M-2-2", result.getJSObject("rewarded").getString("adUnitId"));
+    }
+
+    @Test
+    public void oneFailureFailsAggregate() {
+        batch.expect("interstitial");
+        batch.expect("rewarded");
+        batch.onSettled(new AdLoad("interstitial", "R-M-1-1", null, batch), false, "No fill", null);
+        batch.settle("rewarded", true, null, "R-M-2-1");
+
+        JSObject result = single();
+        assertFalse(result.getBool("success"));
+        JSObject interstitial = result.getJSObject("interstitial");
+        assertFalse(interstitial.getBool("success"));
+        assertEquals("No fill", interstitial.getString("message"));
+        assertEquals("R-M-1-1", interstitial.getString("adUnitId"));
+        assertTrue(result.getJSObject("rewarded").getBool("success"));
+    }
+
+    @Test
+    public void expiryMarksUnsettledTypesPending() {
+        batch.expect("interstitial");
+        batch.expect("rewarded");
+        batch.settle("interstitial", true, null, "R-M-1-1");
+        batch.expire();
+
+        JSObject result = single();
+        assertFalse(result.getBool("success"));
+        assertFalse(result.getJSObject("interstitial").has("pending"));
+        JSObject rewarded = result.getJSObject("rewarded");
+        assertFalse(rewarded.getBool("success"));
+        assertTrue(rewarded.getBool("pending"));
+        assertEquals("Still loading", rewarded.getString("message"));
+    }
+
+    @Test
+    public void expiryAfterEverythingSettledChangesNothing() {
+        batch.expect("banner");
+        batch.settle("banner", true, null, "R-M-3-1");
+        batch.expire();
+        assertTrue(single().getBool("success"));
+    }
+
+    @Test
+    public void lateAndRepeatedResultsAreIgnored() {
+        batch.expect("banner");
+        batch.expect("rewarded");
+        batch.settle("banner", true, null, "R-M-3-1");
+        // Второй итог того же типа и тип, которого в пачке нет, - мимо.
+        batch.settle("banner", false, "Late", null);
+        batch.settle("interstitial", false, "Unexpected", null);
+        batch.expire();
+        batch.settle("rewarded", true, null, "R-M-2-1");
+        batch.expire();
+
+        JSObject result = single();
+        assertTrue(result.getJSObject("banner").getBool("success"));
+        assertFalse(result.has("interstitial"));
+        assertTrue(result.getJSObject("rewarded").getBool("pending"));
+    }
+
+    private JSObject single() {
+        assertEquals(1, answers.size());
+        return answers.get(0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Расписание RefillPolicy: экспоненциальная задержка со случайной половиной
+ * и бюджет неудач подряд. Случайность проверяется границами на многих прогонах.
+ */
+public class RefillPolicyTest {
+
+    private static final int RUNS = 1000;
+    private static final long BASE_MS = 2000;
+    private static final long MAX_MS = 60 * 1000;
+
+    @Test
+    public void delayDoublesWithinJitterBounds() {
+        for (int run = 0; run < RUNS; run++) {
+            RefillPolicy policy = new RefillPolicy(6, BASE_MS, MAX_MS);
+            for (int failure = 0; failure < 6; failure++) {
+                long full = Math.min(MAX_MS, BASE_MS << failure);
+                assertWithin(policy.nextRetryDelayMs(), full / 2, full);
+            }
+        }
+    }
+
+    @Test
+    public void jitterSpreadsRetriesOfOneStep() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long delay = new RefillPolicy(1, BASE_MS, MAX_MS).nextRetryDelayMs();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        // Блоки, упавшие разом, не должны и повторяться разом.
+        assertTrue("Jitter range " + min + ".." + max, max - min > BASE_MS / 4);
+    }
+
+    @Test
+    public void delayStaysCappedWithoutOverflow() {
+        RefillPolicy policy = new RefillPolicy(100, BASE_MS, MAX_MS);
+        // 2000 << 5 уже больше минуты: дальше задержка упирается в потолок,
+        // а сдвиг на 64 и больше без ограничения дал бы ноль или мусор.
+        for (int failure = 0; failure < 5; failure++) policy.nextRetryDelayMs();
+        for (int failure = 5; failure < 100; failure++) {
+            assertWithin(policy.nextRetryDelayMs(), MAX_MS / 2, MAX_MS);
+        }
+    }
+
+    @Test
+    public void budgetRunsOutAndResetRestoresIt() {
+        RefillPolicy policy = new RefillPolicy(3, BASE_MS, MAX_MS);
+        for (int failure = 0; failure < 3; failure++) assertTrue(policy.nextRetryDelayMs() >= 0);
+        assertEquals(-1, policy.nextRetryDelayMs());
+        assertEquals(-1, policy.nextRetryDelayMs());
+
+        policy.reset();
+        // После сброса - снова с базовой задержки.
+        assertWithin(policy.nextRetryDelayMs(), BASE_MS / 2, BASE_MS);
+    }
+
+    @Test
+    public void zeroRetriesNeverRetries() {
+        assertEquals(-1, new RefillPolicy(0, BASE_MS, MAX_MS).nextRetryDelayMs());
+        assertEquals(-1, new RefillPolicy(-1, BASE_MS, MAX_MS).nextRetryDelayMs());
+    }
+
+    @Test
+    public void maxBelowBaseIsRaisedToBase() {
+        RefillPolicy policy = new RefillPolicy(3, BASE_MS, BASE_MS / 2);
+        for (int failure = 0; failure < 3; failure++) {
+            assertWithin(policy.nextRetryDelayMs(), BASE_MS / 2, BASE_MS);
+        }
+    }
+
+    private static void assertWithin(long delay, long min, long max) {
+        assertTrue("Delay " + delay + " outside " + min + ".." + max, delay >= min && delay <= max);
+    }
+}
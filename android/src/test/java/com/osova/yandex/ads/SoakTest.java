@@ -0,0 +1,249 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Долгий прогон на утечки: десятки тысяч случайных loadX/showX/destroyX
+ * вперемешку с колбэками подделки, паузами activity, пропажей сети и
+ * handleOnDestroy в случайный момент. После каждого плагина проверяется, что всё вернулось
+ * к нулю: вызовы закрыты ровно один раз, задач на mainHandler нет, баннеры
+ * и слушатели объявлений отпущены, поток outbound завершён. В конце -
+ * что плагины собираются сборщиком и куча не растёт.
+ *
+ * Объём: -Dyandexads.soak.ops (по умолчанию 20000), зерно - -Dyandexads.soak.seed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SoakTest {
+
+    private static final int OPS = Integer.getInteger("yandexads.soak.ops", 20000);
+    private static final long SEED = Long.getLong("yandexads.soak.seed", 42L);
+    // Средняя длина жизни одного плагина в операциях.
+    private static final int SESSION_OPS = 400;
+    // Дольше любого сторожа (показ - пять минут) и любого запоздалого колбэка.
+    private static final long DRAIN_MS = 10 * 60 * 1000;
+    // Рост кучи, который ещё списываем на JIT, кеши Robolectric и шум GC.
+    private static final long HEAP_TOLERANCE_BYTES = 16L * 1024 * 1024;
+    private static final String OUTBOUND_THREAD = "YandexAds-outbound";
+
+    private static final String[] INTERSTITIAL_UNITS = { "R-M-1-1", "R-M-1-2", "R-M-1-3" };
+    private static final String[] REWARDED_UNITS = { "R-M-2-1", "R-M-2-2" };
+    private static final String[] BANNER_IDS = { "default", "top", "menu" };
+
+    private final Random random = new Random(SEED);
+    private final List<WeakReference<YandexAdsPlugin>> plugins = new ArrayList<>();
+
+    @Test
+    public void randomSessionsReturnToBaseline() {
+        int baselineThreads = liveOutboundThreads();
+        // Первый плагин греет классы и кеши Robolectric - от него и меряем.
+        int done = session(baselineThreads);
+        long baselineHeap = usedHeapAfterGc();
+
+        long allocatedBefore = allocatedBytes();
+        int measuredOps = 0;
+        while (done < OPS) {
+            int ops = session(baselineThreads);
+            done += ops;
+            measuredOps += ops;
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        awaitCollected();
+        long growth = usedHeapAfterGc() - baselineHeap;
+        System.out.println("Soak: " + done + " ops in " + plugins.size() + " plugins, heap growth "
+            + growth / 1024 + " KiB"
+            + (allocated > 0 && measuredOps > 0 ? ", " + allocated / measuredOps + " B/op allocated" : ""));
+        assertTrue("Heap grew by " + growth + " bytes", growth < HEAP_TOLERANCE_BYTES);
+    }
+
+    /** Один плагин от load() до handleOnDestroy; возвращает число операций. */
+    private int session(int baselineThreads) {
+        FakeBackend backend = new FakeBackend()
+            .seed(random.nextLong())
+            .fillLatency(random.nextInt(2000))
+            .failureRate(0.2)
+            .dropRate(0.05)
+            .lateCallbacks(0.05, 90 * 1000)
+            .showBehavior(FakeBackend.ShowBehavior.values()[random.nextInt(FakeBackend.ShowBehavior.values().length)]);
+        PluginHarness h = new PluginHarness(backend);
+        plugins.add(new WeakReference<>(h.plugin));
+        assertTrue(h.init().getBool("success"));
+
+        int ops = 1 + random.nextInt(2 * SESSION_OPS);
+        for (int i = 0; i < ops; i++) step(h);
+
+        h.destroy();
+        // Запоздалые колбэки подделки и снятые сторожа - после уборки.
+        h.advance(DRAIN_MS);
+        h.destroyActivity();
+
+        List<String> unsettled = h.unsettledCalls();
+        assertTrue("Unsettled calls: " + unsettled, unsettled.isEmpty());
+        assertFalse("mainHandler still has tasks", h.plugin.hasPendingMainTasks());
+        assertEquals("Banner views leaked", backend.bannersCreated.get(), backend.bannersDestroyed.get());
+        assertEquals("Ads still hold a listener", 0, backend.adsWithListener());
+        awaitOutboundThreads(baselineThreads);
+        return ops;
+    }
+
+    private void step(PluginHarness h) {
+        YandexAdsPlugin plugin = h.plugin;
+        switch (random.nextInt(17)) {
+            case 0:
+            case 1:
+                plugin.loadInterstitial(h.call("loadInterstitial", interstitialOptions()));
+                break;
+            case 2:
+                plugin.loadRewarded(h.call("loadRewarded", PluginHarness.unit(pick(REWARDED_UNITS))));
+                break;
+            case 3:
+                plugin.loadBanner(h.call("loadBanner", bannerOptions(true)));
+                break;
+            case 4:
+                plugin.showInterstitial(h.call("showInterstitial", interstitialOptions()));
+                break;
+            case 5:
+                plugin.showRewarded(h.call("showRewarded"));
+                break;
+            case 6:
+                if (random.nextBoolean()) {
+                    plugin.showBanner(h.call("showBanner", bannerOptions(false)));
+                } else {
+                    plugin.hideBanner(h.call("hideBanner", bannerOptions(false)));
+                }
+                break;
+            case 7:
+                plugin.isInterstitialLoaded(h.call("isInterstitialLoaded", interstitialOptions()));
+                plugin.isRewardedLoaded(h.call("isRewardedLoaded"));
+                plugin.isBannerLoaded(h.call("isBannerLoaded", bannerOptions(false)));
+                break;
+            case 8:
+                plugin.destroyInterstitial(h.call("destroyInterstitial", interstitialOptions()));
+                break;
+            case 9:
+                plugin.destroyRewarded(h.call("destroyRewarded"));
+                break;
+            case 10:
+                plugin.destroyBanner(h.call("destroyBanner", bannerOptions(false)));
+                break;
+            case 11:
+                // Игра ушла в фон и вернулась.
+                plugin.handleOnPause();
+                h.advance(random.nextInt(5000));
+                plugin.handleOnResume();
+                break;
+            case 12:
+                h.backend.dismissShowing();
+                break;
+            case 13:
+                h.idle();
+                break;
+            case 14:
+                // Метро: сеть пропадает и возвращается посреди загрузок.
+                h.network.setOnline(random.nextInt(3) != 0);
+                break;
+            default:
+                // Загрузки, показы и сторожа - до минуты с лишним вперёд.
+                h.advance(random.nextInt(70 * 1000));
+                break;
+        }
+    }
+
+    private JSObject interstitialOptions() {
+        // Иногда без adUnitId - последний загруженный блок.
+        return random.nextInt(4) == 0 ? new JSObject() : PluginHarness.unit(pick(INTERSTITIAL_UNITS));
+    }
+
+    private JSObject bannerOptions(boolean withUnit) {
+        JSObject options = withUnit ? PluginHarness.unit("R-M-3-" + random.nextInt(2)) : new JSObject();
+        options.put("bannerId", pick(BANNER_IDS));
+        return options;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // MARK: - Замеры
+
+    /** Поток outbound завершается после shutdown() - не сразу, но должен. */
+    private static void awaitOutboundThreads(int baseline) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (liveOutboundThreads() > baseline) {
+            if (System.currentTimeMillis() > deadline) fail("Outbound threads left: " + liveOutboundThreads());
+            pause(10);
+        }
+    }
+
+    private static int liveOutboundThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (OUTBOUND_THREAD.equals(thread.getName()) && thread.isAlive()) count++;
+        }
+        return count;
+    }
+
+    /** Все отработавшие плагины должны уйти: их держали бы SDK, Application или статика. */
+    private void awaitCollected() {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            System.gc();
+            if (retainedPlugins() == 0) return;
+            pause(50);
+        }
+        fail(retainedPlugins() + " of " + plugins.size() + " plugins retained after destroy");
+    }
+
+    private int retainedPlugins() {
+        int count = 0;
+        for (WeakReference<YandexAdsPlugin> ref : plugins) if (ref.get() != null) count++;
+        return count;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            pause(20);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Выделено текущим потоком - тестовым, он же главный: методы плагина,
+     * колбэки подделки и сторожа. Сборка ответов на outbound сюда не входит.
+     * -1 - JVM не умеет считать.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return -1;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void pause(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
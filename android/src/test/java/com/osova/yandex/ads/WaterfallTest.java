@@ -0,0 +1,99 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Выбор победителя группы: FIRST берёт первое заполнение, PRIORITY
+ * придерживает дешёвые ступени до ответа дорогих, срок группы берёт лучшее
+ * из пришедшего.
+ */
+public class WaterfallTest {
+
+    @Test
+    public void firstTakesEarliestFillAndLaterFillsLose() {
+        Waterfall<String> waterfall = new Waterfall<>(3, Waterfall.Strategy.FIRST);
+        Waterfall.Outcome<String> outcome = waterfall.onLoaded(2, "cheap");
+        assertEquals(2, outcome.winner);
+        assertEquals("cheap", outcome.ad);
+        assertTrue(outcome.losers.isEmpty());
+
+        Waterfall.Outcome<String> late = waterfall.onLoaded(0, "top");
+        assertFalse(late.isDecided());
+        assertEquals(Collections.singletonList("top"), late.losers);
+    }
+
+    @Test
+    public void firstIsExhaustedOnlyWhenEveryUnitFails() {
+        Waterfall<String> waterfall = new Waterfall<>(2, Waterfall.Strategy.FIRST);
+        assertFalse(waterfall.onFailed(0).isDecided());
+        Waterfall.Outcome<String> outcome = waterfall.onFailed(1);
+        assertTrue(outcome.exhausted);
+        assertEquals(-1, outcome.winner);
+    }
+
+    @Test
+    public void priorityHoldsCheaperFillUntilHigherTierAnswers() {
+        Waterfall<String> waterfall = new Waterfall<>(3, Waterfall.Strategy.PRIORITY);
+        assertFalse(waterfall.onLoaded(2, "cheap").isDecided());
+        assertFalse(waterfall.onLoaded(1, "middle").isDecided());
+
+        Waterfall.Outcome<String> outcome = waterfall.onLoaded(0, "top");
+        assertEquals(0, outcome.winner);
+        assertEquals("top", outcome.ad);
+        assertEquals(Arrays.asList("middle", "cheap"), outcome.losers);
+    }
+
+    @Test
+    public void priorityFallsToHeldFillWhenHigherTiersFail() {
+        Waterfall<String> waterfall = new Waterfall<>(3, Waterfall.Strategy.PRIORITY);
+        assertFalse(waterfall.onLoaded(2, "cheap").isDecided());
+        assertFalse(waterfall.onFailed(0).isDecided());
+
+        Waterfall.Outcome<String> outcome = waterfall.onFailed(1);
+        assertEquals(2, outcome.winner);
+        assertEquals("cheap", outcome.ad);
+        assertTrue(outcome.losers.isEmpty());
+    }
+
+    @Test
+    public void priorityDeadlineTakesBestArrivedFill() {
+        Waterfall<String> waterfall = new Waterfall<>(3, Waterfall.Strategy.PRIORITY);
+        waterfall.onLoaded(2, "cheap");
+        waterfall.onLoaded(1, "middle");
+        // Верхняя ступень молчит - срок решает без неё.
+        Waterfall.Outcome<String> outcome = waterfall.onDeadline();
+        assertEquals(1, outcome.winner);
+        assertEquals("middle", outcome.ad);
+        assertEquals(Collections.singletonList("cheap"), outcome.losers);
+
+        Waterfall.Outcome<String> late = waterfall.onLoaded(0, "top");
+        assertFalse(late.isDecided());
+        assertEquals(Collections.singletonList("top"), late.losers);
+    }
+
+    @Test
+    public void deadlineWithoutFillsIsExhaustedOnce() {
+        Waterfall<String> waterfall = new Waterfall<>(2, Waterfall.Strategy.PRIORITY);
+        Waterfall.Outcome<String> outcome = waterfall.onDeadline();
+        assertTrue(outcome.exhausted);
+        assertNull(outcome.ad);
+        assertFalse(waterfall.onDeadline().isDecided());
+        assertFalse(waterfall.onFailed(0).isDecided());
+    }
+
+    @Test
+    public void strategyParsesPriorityOnly() {
+        assertEquals(Waterfall.Strategy.PRIORITY, Waterfall.Strategy.parse("PRIORITY"));
+        assertEquals(Waterfall.Strategy.FIRST, Waterfall.Strategy.parse("first"));
+        assertEquals(Waterfall.Strategy.FIRST, Waterfall.Strategy.parse("cheapest"));
+        assertEquals(Waterfall.Strategy.FIRST, Waterfall.Strategy.parse(null));
+    }
+}
@@ -0,0 +1,382 @@
+package com.osova.yandex.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowPausedSystemClock;
+
+import java.time.Duration;
+
+/**
+ * Конечный автомат плагина на FakeBackend: ответы, сторожа и гонки
+ * колбэков - без SDK, сети и устройства.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class YandexAdsPluginTest {
+
+    private static final String UNIT = "R-M-1-1";
+    private static final long LOAD_TIMEOUT_MS = 60 * 1000;
+    private static final long SHOW_TIMEOUT_MS = 5 * 60 * 1000;
+
+    private PluginHarness harness;
+
+    private PluginHarness start(FakeBackend backend) {
+        harness = new PluginHarness(backend);
+        JSObject init = harness.init();
+        assertTrue(init.getBool("success"));
+        return harness;
+    }
+
+    private static JSObject group(String... adUnitIds) {
+        JSONArray array = new JSONArray();
+        for (String adUnitId : adUnitIds) array.put(adUnitId);
+        JSObject options = new JSObject();
+        options.put("adUnitIds", array);
+        return options;
+    }
+
+    @After
+    public void tearDown() {
+        if (harness != null) harness.destroy();
+    }
+
+    @Test
+    public void initSettlesByWatchdogWhenSdkNeverAnswers() {
+        harness = new PluginHarness(new FakeBackend().dropInit());
+        PluginCall call = harness.call("init");
+        harness.plugin.init(call);
+        harness.advance(10 * 1000);
+        JSObject result = harness.await(call);
+        assertFalse(result.getBool("success"));
+        assertEquals(1, harness.responses(call).size());
+    }
+
+    @Test
+    public void callsBeforeInitRunOnceSdkIsUp() {
+        harness = new PluginHarness(new FakeBackend().initLatency(500));
+        PluginCall load = harness.call("loadInterstitial", PluginHarness.unit(UNIT));
+        harness.plugin.loadInterstitial(load);
+        harness.plugin.init(harness.call("init"));
+        harness.advance(500);
+        assertTrue(harness.await(load).getBool("success"));
+    }
+
+    @Test
+    public void interstitialLoadsAndShows() {
+        PluginHarness h = start(new FakeBackend().fillLatency(200));
+        PluginCall load = h.call("loadInterstitial", PluginHarness.unit(UNIT));
+        h.plugin.loadInterstitial(load);
+        h.advance(200);
+        assertTrue(h.await(load).getBool("success"));
+        h.awaitEvent("interstitial", "loaded");
+
+        PluginCall show = h.call("showInterstitial", PluginHarness.unit(UNIT));
+        h.plugin.showInterstitial(show);
+        h.idle();
+        assertTrue(h.await(show).getBool("success"));
+        h.awaitEvent("interstitial", "dismissed");
+        assertEquals(1, h.backend.shows.get());
+    }
+
+    @Test
+    public void failedLoadReportsError() {
+        PluginHarness h = start(new FakeBackend().respond(UNIT, FakeBackend.Response.fail(100)));
+        PluginCall load = h.call("loadInterstitial", PluginHarness.unit(UNIT));
+        h.plugin.loadInterstitial(load);
+        h.advance(100);
+        assertFalse(h.await(load).getBool("success"));
+        JSObject event = h.awaitEvent("interstitial", "failed_to_load");
+        assertEquals(FakeBackend.ERROR_NO_FILL, event.getJSObject("error").getInteger("code").intValue());
+    }
+
+    @Test
+    public void droppedCallbackSettlesByWatchdog() {
+        PluginHarness h = start(new FakeBackend().respond(UNIT, FakeBackend.Response.drop()));
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        h.advance(LOAD_TIMEOUT_MS - 1);
+        assertTrue(h.responses(load).isEmpty());
+        h.advance(1);
+        JSObject result = h.await(load);
+        assertFalse(result.getBool("success"));
+        assertEquals("Load timeout", result.getString("message"));
+    }
+
+    @Test
+    public void lateCallbackAfterWatchdogDoesNotSettleTwice() {
+        PluginHarness h = start(new FakeBackend().respond(UNIT, FakeBackend.Response.late(LOAD_TIMEOUT_MS + 5000)));
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        h.advance(LOAD_TIMEOUT_MS);
+        assertFalse(h.await(load).getBool("success"));
+        h.advance(5000);
+        assertEquals(1, h.backend.fills.get());
+        assertEquals(1, h.responses(load).size());
+    }
+
+    @Test
+    public void loadTimeoutFollowsObservedLatency() {
+        PluginHarness h = start(new FakeBackend().fillLatency(100));
+        for (int i = 0; i < 20; i++) {
+            PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+            h.plugin.loadRewarded(load);
+            h.advance(100);
+            assertTrue(h.await(load).getBool("success"));
+        }
+
+        // Блок отвечает за 100 мс - срок упирается в нижнюю границу, а не в минуту.
+        h.backend.respond(UNIT, FakeBackend.Response.drop());
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        h.advance(LoadTimeouts.DEFAULT_MIN_MS - 1);
+        assertTrue(h.responses(load).isEmpty());
+        h.advance(1);
+        assertEquals("Load timeout", h.await(load).getString("message"));
+        JSObject event = h.awaitEvent("rewarded", "timeout");
+        assertEquals(LoadTimeouts.DEFAULT_MIN_MS, event.getInteger("timeoutMs").longValue());
+    }
+
+    @Test
+    public void offlineLoadsWaitForNetworkAndReplayRewardedFirst() {
+        PluginHarness h = start(new FakeBackend());
+        h.network.setOnline(false);
+        PluginCall interstitial = h.call("loadInterstitial", PluginHarness.unit(UNIT));
+        PluginCall rewarded = h.call("loadRewarded", PluginHarness.unit("R-M-1-2"));
+        h.plugin.loadInterstitial(interstitial);
+        h.plugin.loadRewarded(rewarded);
+        h.idle();
+        assertEquals(0, h.backend.loads.get());
+        assertTrue(h.responses(interstitial).isEmpty());
+
+        h.network.setOnline(true);
+        h.idle();
+        assertTrue(h.await(rewarded).getBool("success"));
+        assertTrue(h.await(interstitial).getBool("success"));
+        h.settle();
+        int rewardedAt = -1;
+        int interstitialAt = -1;
+        for (int i = 0; i < h.plugin.events.size(); i++) {
+            JSObject event = h.plugin.events.get(i);
+            if (!"loaded".equals(event.getString("event"))) continue;
+            if ("rewarded".equals(event.getString("adType"))) rewardedAt = i;
+            if ("interstitial".equals(event.getString("adType"))) interstitialAt = i;
+        }
+        assertTrue(rewardedAt >= 0 && rewardedAt < interstitialAt);
+    }
+
+    @Test
+    public void offlineLoadFailsFastWhenAsked() {
+        PluginHarness h = start(new FakeBackend());
+        JSObject options = new JSObject();
+        options.put("offlineLoads", "fail");
+        h.plugin.init(h.call("init", options));
+        h.network.setOnline(false);
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        JSObject result = h.await(load);
+        assertFalse(result.getBool("success"));
+        assertEquals("Offline", result.getString("message"));
+        assertEquals(0, h.backend.loads.get());
+    }
+
+    @Test
+    public void groupsSharingUnitDoNotCancelEachOther() {
+        PluginHarness h = start(new FakeBackend()
+            .respond("R-M-1-1", FakeBackend.Response.fail(100))
+            .respond("R-M-1-2", FakeBackend.Response.fill(500), FakeBackend.Response.fill(500))
+            .respond("R-M-1-3", FakeBackend.Response.fail(100)));
+        PluginCall first = h.call("loadInterstitial", group("R-M-1-1", "R-M-1-2"));
+        PluginCall second = h.call("loadInterstitial", group("R-M-1-3", "R-M-1-2"));
+        h.plugin.loadInterstitial(first);
+        h.plugin.loadInterstitial(second);
+        h.advance(500);
+
+        // Обе группы дождались своего R-M-1-2, а не сторожа.
+        JSObject firstResult = h.await(first);
+        assertTrue(firstResult.getBool("success"));
+        assertEquals("R-M-1-2", firstResult.getString("adUnitId"));
+        assertTrue(h.await(second).getBool("success"));
+        assertEquals(0, h.backend.cancels.get());
+        assertEquals(2, h.backend.fills.get());
+    }
+
+    @Test
+    public void supersededLoadIsClosed() {
+        PluginHarness h = start(new FakeBackend().fillLatency(1000));
+        PluginCall first = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        PluginCall second = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(first);
+        h.plugin.loadRewarded(second);
+        JSObject superseded = h.await(first);
+        assertFalse(superseded.getBool("success"));
+        h.advance(1000);
+        assertTrue(h.await(second).getBool("success"));
+        assertEquals(1, h.responses(first).size());
+        assertEquals(1, h.eventCount("rewarded", "loaded"));
+    }
+
+    @Test
+    public void adsPastTtlAfterDeepSleepAreNotServed() {
+        PluginHarness h = start(new FakeBackend().fillLatency(100));
+        JSObject options = PluginHarness.unit(UNIT);
+        options.put("ttlMs", 60 * 1000);
+        PluginCall load = h.call("loadInterstitial", options);
+        h.plugin.loadInterstitial(load);
+        JSObject rewardedOptions = PluginHarness.unit("R-M-2-1");
+        rewardedOptions.put("ttlMs", 60 * 1000);
+        PluginCall loadRewarded = h.call("loadRewarded", rewardedOptions);
+        h.plugin.loadRewarded(loadRewarded);
+        h.advance(100);
+        assertTrue(h.await(load).getBool("success"));
+        assertTrue(h.await(loadRewarded).getBool("success"));
+        int loads = h.backend.loads.get();
+
+        // Экран погас: elapsedRealtime ушёл на две минуты, а uptimeMillis и
+        // с ним сроки looper'а стоят - таймер срока так и не сработал.
+        ShadowPausedSystemClock.simulateDeepSleep(Duration.ofMinutes(2));
+
+        PluginCall poll = h.call("isInterstitialLoaded", PluginHarness.unit(UNIT));
+        h.plugin.isInterstitialLoaded(poll);
+        assertFalse(h.await(poll).getBool("loaded"));
+        h.awaitEvent("interstitial", "expired");
+
+        PluginCall show = h.call("showRewarded");
+        h.plugin.showRewarded(show);
+        JSObject result = h.await(show);
+        assertFalse(result.getBool("success"));
+        assertEquals("Rewarded ad not loaded", result.getString("message"));
+        h.awaitEvent("rewarded", "expired");
+        // Замена грузится сразу, не дожидаясь таймера.
+        h.idle();
+        assertEquals(loads + 2, h.backend.loads.get());
+        assertEquals(0, h.backend.shows.get());
+    }
+
+    @Test
+    public void statsCallsAfterDestroyAreRejected() {
+        PluginHarness h = start(new FakeBackend());
+        h.destroy();
+        PluginCall get = h.call("getStats");
+        h.plugin.getStats(get);
+        JSObject result = h.await(get);
+        assertFalse(result.getBool("success"));
+        assertEquals("Plugin destroyed", result.getString("message"));
+
+        PluginCall reset = h.call("resetStats");
+        h.plugin.resetStats(reset);
+        assertFalse(h.await(reset).getBool("success"));
+    }
+
+    @Test
+    public void rewardedShowReportsReward() {
+        PluginHarness h = start(new FakeBackend());
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        h.idle();
+        assertTrue(h.await(load).getBool("success"));
+
+        PluginCall show = h.call("showRewarded");
+        h.plugin.showRewarded(show);
+        h.idle();
+        JSObject result = h.await(show);
+        assertTrue(result.getBool("success"));
+        assertTrue(result.getBool("rewarded"));
+        assertEquals(1, result.getJSObject("reward").getInteger("amount").intValue());
+    }
+
+    @Test
+    public void silentShowSettlesByWatchdog() {
+        PluginHarness h = start(new FakeBackend().showBehavior(FakeBackend.ShowBehavior.SILENT));
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        h.idle();
+        h.await(load);
+
+        PluginCall show = h.call("showRewarded");
+        h.plugin.showRewarded(show);
+        h.advance(SHOW_TIMEOUT_MS);
+        JSObject result = h.await(show);
+        assertFalse(result.getBool("success"));
+        assertEquals(1, h.responses(show).size());
+    }
+
+    @Test
+    public void batchedLoadedEventPrecedesLoadResult() {
+        PluginHarness h = start(new FakeBackend().fillLatency(200));
+        // Раз в секунду: ни кадр, ни таймер пакет раньше ответа не отдадут.
+        JSObject batching = new JSObject();
+        batching.put("intervalMs", 1000);
+        PluginCall enable = h.call("setEventBatching", batching);
+        h.plugin.setEventBatching(enable);
+        assertTrue(h.await(enable).getBool("success"));
+
+        PluginCall load = h.call("loadRewarded", PluginHarness.unit(UNIT));
+        h.plugin.loadRewarded(load);
+        h.advance(200);
+        assertTrue(h.await(load).getBool("success"));
+        // Ответ пришёл - значит, пакет с "loaded" ушёл до него.
+        assertTrue(batchedEvent(h, "rewarded", "loaded"));
+    }
+
+    @Test
+    public void batchedLoadedEventPrecedesPollAnswer() {
+        PluginHarness h = start(new FakeBackend().fillLatency(200));
+        JSObject batching = new JSObject();
+        batching.put("intervalMs", 1000);
+        PluginCall enable = h.call("setEventBatching", batching);
+        h.plugin.setEventBatching(enable);
+        assertTrue(h.await(enable).getBool("success"));
+
+        PluginCall load = h.call("loadInterstitial", PluginHarness.unit(UNIT));
+        h.plugin.loadInterstitial(load);
+        h.advance(200);
+        // Опрос сразу после заполнения, ответа на загрузку не дожидаясь.
+        PluginCall poll = h.call("isInterstitialLoaded", PluginHarness.unit(UNIT));
+        h.plugin.isInterstitialLoaded(poll);
+        assertTrue(h.await(poll).getBool("loaded"));
+        assertTrue(batchedEvent(h, "interstitial", "loaded"));
+    }
+
+    private static boolean batchedEvent(PluginHarness h, String adType, String event) {
+        for (JSObject data : h.plugin.events) {
+            JSONArray events = data.optJSONArray("events");
+            for (int i = 0; events != null && i < events.length(); i++) {
+                JSONObject item = events.optJSONObject(i);
+                if (item != null && adType.equals(item.optString("adType")) && event.equals(item.optString("event"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void destroyedBannerReleasesBothBuffers() {
+        PluginHarness h = start(new FakeBackend().fillLatency(100));
+        PluginCall load = h.call("loadBanner", PluginHarness.unit(UNIT));
+        h.plugin.loadBanner(load);
+        h.advance(100);
+        assertTrue(h.await(load).getBool("success"));
+
+        // Вторая загрузка идёт задним буфером, пока первый баннер на экране.
+        h.plugin.loadBanner(h.call("loadBanner", PluginHarness.unit(UNIT)));
+        h.idle();
+        PluginCall destroy = h.call("destroyBanner");
+        h.plugin.destroyBanner(destroy);
+        assertTrue(h.await(destroy).getBool("success"));
+        assertEquals(2, h.backend.bannersCreated.get());
+        assertEquals(2, h.backend.bannersDestroyed.get());
+    }
+}
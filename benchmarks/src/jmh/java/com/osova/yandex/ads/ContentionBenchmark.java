@@ -0,0 +1,125 @@
+package com.osova.yandex.ads;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+
+/**
+ * Гонки за один слот, как в приложении: поток моста Capacitor начинает
+ * загрузки и показы, UI-поток приносит колбэки SDK, сторож закрывает
+ * по сроку. Каждая группа - один слот и по потоку на роль; JMH меряет
+ * пропускную способность каждой роли под чужими CAS.
+ *
+ * Ответы здесь собираются, но не отправляются: проигравший CAS не должен
+ * строить ничего, и рост аллокаций на операцию это покажет.
+ */
+@State(Scope.Group)
+public class ContentionBenchmark {
+
+    private static final String UNIT = "R-M-1-1";
+
+    private final AdSlot<Object> slot = new AdSlot<>();
+    private Waterfall.Plan plan;
+
+    @Setup
+    public void setUp() {
+        plan = new Waterfall.Plan(Collections.singletonList(UNIT), Waterfall.Strategy.FIRST);
+    }
+
+    // MARK: - Загрузка: loadX против onAdLoaded и сторожа
+
+    /** Поток моста: новый loadX вытесняет идущую загрузку. */
+    @Benchmark
+    @Group("load")
+    @GroupThreads(1)
+    public JSObject loadBridge() {
+        PluginCall call = new PluginCall();
+        call.setKeepAlive(true);
+        AdLoad previous = slot.startLoad(new AdLoad("rewarded", plan, call, null));
+        if (previous == null) return null;
+        previous.isCancelled = true;
+        return Payloads.result(false, "Superseded by a new loadRewarded() call");
+    }
+
+    /** UI-поток: onAdLoaded ставит объявление, если загрузка ещё его. */
+    @Benchmark
+    @Group("load")
+    @GroupThreads(1)
+    public JSObject loadCallback() {
+        AdLoad load = slot.get().load;
+        if (load == null) return null;
+        if (slot.fill(load, UNIT, new Object(), AdStats.now()) == null) return null;
+        JSObject ret = Payloads.result(true, null);
+        ret.put("adUnitId", UNIT);
+        return ret;
+    }
+
+    /** Сторож: срок вышел - загрузка закрывается отказом. */
+    @Benchmark
+    @Group("load")
+    @GroupThreads(1)
+    public JSObject loadWatchdog() {
+        AdLoad load = slot.get().load;
+        if (load == null || !slot.finishLoad(load)) return null;
+        return Payloads.result(false, "Load timeout");
+    }
+
+    // MARK: - Показ: showX против onAdShown/onAdDismissed
+
+    /** Поток моста: showX занимает показ, вытесняя прошлый вызов. */
+    @Benchmark
+    @Group("show")
+    @GroupThreads(1)
+    public JSObject showBridge() {
+        PluginCall call = new PluginCall();
+        call.setKeepAlive(true);
+        PluginCall previous = slot.startShow(call);
+        if (previous == null) return null;
+        return Payloads.result(false, "Superseded by a new showRewarded() call");
+    }
+
+    /** UI-поток: раннабл показа, onAdShown и onAdDismissed подряд. */
+    @Benchmark
+    @Group("show")
+    @GroupThreads(1)
+    public JSObject showCallback() {
+        slot.put(UNIT, new Object(), AdStats.now());
+        PluginCall call = slot.get().showCall;
+        if (call == null) return null;
+        AdSlot.State<Object> ready = slot.show(call);
+        if (ready == null) return null;
+        JSObject ret = slot.settleShow(call) ? Payloads.result(true, null) : null;
+        slot.dismiss(ready.ad);
+        return ret;
+    }
+
+    // MARK: - Опрос: isXLoaded на потоке моста против загрузок на UI
+
+    /** Поток моста: isRewardedLoaded из игрового цикла. */
+    @Benchmark
+    @Group("poll")
+    @GroupThreads(2)
+    public JSObject pollBridge() {
+        AdSlot.State<Object> state = slot.get();
+        boolean isLoaded = state.ad != null;
+        return Payloads.loaded(isLoaded, isLoaded ? AdStats.now() - state.loadedAt : 0);
+    }
+
+    /** UI-поток: объявление приходит и уходит по сроку жизни. */
+    @Benchmark
+    @Group("poll")
+    @GroupThreads(1)
+    public Object pollCallback() {
+        Object ad = new Object();
+        slot.put(UNIT, ad, AdStats.now());
+        return slot.clear(ad);
+    }
+}
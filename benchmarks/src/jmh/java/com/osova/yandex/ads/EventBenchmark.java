@@ -0,0 +1,81 @@
+package com.osova.yandex.ads;
+
+import com.getcapacitor.JSObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+
+/**
+ * Сборка событий adEvent и учёт AdStats - то, что выполняется на каждый
+ * колбэк SDK. Отправку в WebView не мерим: она вне плагина.
+ */
+@State(Scope.Thread)
+public class EventBenchmark {
+
+    private static final String UNIT = "R-M-1-1";
+
+    private AdStats stats;
+    private AdLoad load;
+
+    @Setup
+    public void setUp() {
+        stats = new AdStats();
+        Waterfall.Plan plan = new Waterfall.Plan(Collections.singletonList(UNIT), Waterfall.Strategy.FIRST);
+        load = new AdLoad("interstitial", plan, null, null);
+    }
+
+    @Benchmark
+    public JSObject loadedEvent() {
+        return Payloads.event("interstitial", "loaded", UNIT, null, null, null);
+    }
+
+    @Benchmark
+    public JSObject failedEvent() {
+        return Payloads.event("interstitial", "failed_to_load", UNIT, Payloads.error(4, "No fill"), null, null);
+    }
+
+    @Benchmark
+    public JSObject rewardEvent() {
+        return Payloads.event("rewarded", "rewarded", UNIT, null, Payloads.reward(1, "coins"), null);
+    }
+
+    @Benchmark
+    public JSObject bannerEvent() {
+        return Payloads.event("banner", "impression", UNIT, null, null, "default");
+    }
+
+    /** Ответ любого вызова без сообщения - самый частый. */
+    @Benchmark
+    public JSObject result() {
+        return Payloads.result(true, null);
+    }
+
+    /** Учёт одной загрузки с заполнением. */
+    @Benchmark
+    public AdStats loadStats() {
+        stats.loadStarted("interstitial", UNIT);
+        stats.loadFilled(load, 0);
+        return stats;
+    }
+
+    /** Учёт показа: начало, shown, impression, dismissed. */
+    @Benchmark
+    public AdStats showStats() {
+        long startedAt = AdStats.now();
+        stats.showStarted("interstitial", UNIT);
+        stats.shown("interstitial", UNIT, startedAt);
+        stats.impression("interstitial", UNIT, startedAt);
+        stats.dismissed("interstitial", UNIT, startedAt);
+        return stats;
+    }
+
+    /** getStats(): снимок всех счётчиков. */
+    @Benchmark
+    public JSObject statsSnapshot() {
+        return stats.snapshot();
+    }
+}
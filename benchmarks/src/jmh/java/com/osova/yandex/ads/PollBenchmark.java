@@ -0,0 +1,54 @@
+package com.osova.yandex.ads;
+
+import com.getcapacitor.JSObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * isXLoaded из игрового цикла: игры опрашивают готовность каждый кадр, и
+ * ответ строится заново на каждый опрос.
+ */
+@State(Scope.Thread)
+public class PollBenchmark {
+
+    /** Сколько блоков interstitial греет игра - кеш ищет по ним. */
+    @Param({ "1", "6" })
+    public int units;
+
+    private AdCache<Object> cache;
+    private final AdSlot<Object> rewarded = new AdSlot<>();
+    private String polledUnit;
+
+    @Setup
+    public void setUp() {
+        cache = new AdCache<>(6, ad -> {
+        });
+        for (int i = 0; i < units; i++) cache.put("R-M-1-" + i, new Object(), 1, AdStats.now());
+        polledUnit = "R-M-1-0";
+        rewarded.put(polledUnit, new Object(), AdStats.now());
+    }
+
+    @Benchmark
+    public JSObject isInterstitialLoaded() {
+        AdCache.Entry<Object> entry = cache.peek(polledUnit);
+        return Payloads.loaded(entry != null, entry != null ? AdStats.now() - entry.loadedAt : 0);
+    }
+
+    /** Без adUnitId - последний загруженный блок. */
+    @Benchmark
+    public JSObject isInterstitialLoadedAnyUnit() {
+        AdCache.Entry<Object> entry = cache.peek(null);
+        return Payloads.loaded(entry != null, entry != null ? AdStats.now() - entry.loadedAt : 0);
+    }
+
+    @Benchmark
+    public JSObject isRewardedLoaded() {
+        AdSlot.State<Object> state = rewarded.get();
+        boolean isLoaded = state.ad != null;
+        return Payloads.loaded(isLoaded, isLoaded ? AdStats.now() - state.loadedAt : 0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.osova.yandex.ads;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Закрытие вызова на одном потоке - то, что плагин делает на каждый
+ * loadX/showX: удержание, переход слота, ответ. Без гонок: это нижняя
+ * граница, от которой меряется ContentionBenchmark.
+ */
+@State(Scope.Thread)
+public class SettleBenchmark {
+
+    private static final String UNIT = "R-M-1-1";
+
+    private final AdSlot<Object> slot = new AdSlot<>();
+    private final Object ad = new Object();
+    private Waterfall.Plan plan;
+    private Waterfall.Plan group;
+
+    @Setup
+    public void setUp() {
+        plan = new Waterfall.Plan(Arrays.asList(UNIT), Waterfall.Strategy.FIRST);
+        group = new Waterfall.Plan(Arrays.asList(UNIT, "R-M-1-2", "R-M-1-3"), Waterfall.Strategy.FIRST);
+    }
+
+    /** loadRewarded с заполнением: hold, startLoad, fill, ответ с adUnitId. */
+    @Benchmark
+    public PluginCall loadFilled() {
+        PluginCall call = hold(new PluginCall());
+        AdLoad load = new AdLoad("rewarded", plan, call, null);
+        slot.startLoad(load);
+        AdSlot.State<Object> before = slot.fill(load, UNIT, ad, AdStats.now());
+        if (before == null) return call;
+        JSObject ret = Payloads.result(true, null);
+        ret.put("adUnitId", UNIT);
+        release(call, ret);
+        return call;
+    }
+
+    /** Отказ или сторож: finishLoad и ответ с сообщением. */
+    @Benchmark
+    public PluginCall loadFailed() {
+        PluginCall call = hold(new PluginCall());
+        AdLoad load = new AdLoad("rewarded", plan, call, null);
+        slot.startLoad(load);
+        if (slot.finishLoad(load)) release(call, Payloads.result(false, "No fill"));
+        return call;
+    }
+
+    /** Группа из трёх блоков: ответы ступеней и решение Waterfall. */
+    @Benchmark
+    public PluginCall waterfallFilled() {
+        PluginCall call = hold(new PluginCall());
+        AdLoad load = new AdLoad("interstitial", group, call, null);
+        Waterfall<Object> waterfall = new Waterfall<>(group.adUnitIds.size(), group.strategy);
+        slot.startLoad(load);
+        load.markAnswered(1);
+        waterfall.onFailed(1);
+        load.markAnswered(0);
+        Waterfall.Outcome<Object> outcome = waterfall.onLoaded(0, ad);
+        if (outcome.isDecided() && slot.fill(load, UNIT, ad, AdStats.now()) != null) {
+            release(call, Payloads.result(true, null));
+        }
+        return call;
+    }
+
+    /** Новый loadX поверх идущего: вытесненный закрывается отказом. */
+    @Benchmark
+    public AdLoad supersede() {
+        AdLoad first = new AdLoad("rewarded", plan, hold(new PluginCall()), null);
+        slot.startLoad(first);
+        AdLoad second = new AdLoad("rewarded", plan, hold(new PluginCall()), null);
+        AdLoad previous = slot.startLoad(second);
+        if (previous != null) {
+            previous.isCancelled = true;
+            release(previous.call, Payloads.result(false, "Superseded by a new loadRewarded() call"));
+        }
+        slot.finishLoad(second);
+        return second;
+    }
+
+    /** showRewarded: занять показ, ready → showing, ответ, dismiss. */
+    @Benchmark
+    public PluginCall showAndDismiss() {
+        PluginCall call = hold(new PluginCall());
+        slot.put(UNIT, ad, AdStats.now());
+        slot.startShow(call);
+        AdSlot.State<Object> ready = slot.show(call);
+        if (ready == null) return call;
+        if (slot.settleShow(call)) {
+            JSObject ret = Payloads.result(true, null);
+            ret.put("rewarded", true);
+            ret.put("reward", Payloads.reward(1, "coins"));
+            release(call, ret);
+        }
+        slot.dismiss(ready.ad);
+        return call;
+    }
+
+    // Как hold/release в плагине, без outbound: поток здесь один.
+
+    private static PluginCall hold(PluginCall call) {
+        call.setKeepAlive(true);
+        return call;
+    }
+
+    private static void release(PluginCall call, JSObject ret) {
+        call.setKeepAlive(false);
+        call.resolve(ret);
+    }
+}
@@ -0,0 +1,12 @@
+package android.os;
+
+/** Заглушка для JVM: AdStats меряет время по elapsedRealtime. */
+public final class SystemClock {
+
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1_000_000;
+    }
+}
@@ -0,0 +1,49 @@
+package com.getcapacitor;
+
+import org.json.JSONObject;
+
+/**
+ * Заглушка JSObject для JVM: как и в Capacitor, тонкая обёртка над
+ * JSONObject, put возвращает JSObject. Аллокации те же - HashMap записей.
+ */
+public class JSObject extends JSONObject {
+
+    public JSObject() {
+        super();
+    }
+
+    @Override
+    public JSObject put(String key, boolean value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, int value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, long value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, double value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, Object value) {
+        super.put(key, value);
+        return this;
+    }
+
+    public JSObject put(String key, String value) {
+        super.put(key, value);
+        return this;
+    }
+}
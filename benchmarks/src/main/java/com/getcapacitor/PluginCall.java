@@ -0,0 +1,28 @@
+package com.getcapacitor;
+
+/**
+ * Заглушка PluginCall: удержание и ответ без моста. Ответ только
+ * запоминается - сериализацию в WebView бенчмарки не мерят, она одна на
+ * любой путь к ней.
+ */
+public class PluginCall {
+
+    private volatile boolean isKeepAlive = false;
+    private volatile JSObject response;
+
+    public void setKeepAlive(Boolean keepAlive) {
+        isKeepAlive = keepAlive;
+    }
+
+    public boolean isKeepAlive() {
+        return isKeepAlive;
+    }
+
+    public void resolve(JSObject data) {
+        response = data;
+    }
+
+    public JSObject response() {
+        return response;
+    }
+}
@@ -22,6 +22,10 @@ export enum AdEventType {
   CLICKED = 'clicked',
   IMPRESSION = 'impression',
   REWARDED = 'rewarded',
+  /** A preloaded ad reached its `ttlMs` and was dropped (Android). */
+  EXPIRED = 'expired',
+  /** A load got no answer within its unit's deadline (Android). */
+  TIMEOUT = 'timeout',
 }
 
 /**
@@ -64,6 +68,8 @@ export interface AdEvent {
   adType: AdType;
   event: AdEventType;
   adUnitId?: string;
+  /** Banner events: which banner, see `BannerIdOptions`. */
+  bannerId?: string;
 }
 
 /**
@@ -131,6 +137,23 @@ export interface AdRewardedEvent extends AdEvent {
   reward: RewardData;
 }
 
+/**
+ * Preloaded ad expired event
+ */
+export interface AdExpiredEvent extends AdEvent {
+  event: AdEventType.EXPIRED;
+}
+
+/**
+ * Load timeout event. The load call resolves with `message: 'Load timeout'`
+ * at the same time.
+ */
+export interface AdTimeoutEvent extends AdEvent {
+  event: AdEventType.TIMEOUT;
+  /** The deadline the load was given, ms. */
+  timeoutMs: number;
+}
+
 /**
  * Union type for all ad events
  */
@@ -142,7 +165,28 @@ export type YandexAdEvent =
   | AdDismissedEvent
   | AdClickedEvent
   | AdImpressionEvent
-  | AdRewardedEvent;
+  | AdRewardedEvent
+  | AdExpiredEvent
+  | AdTimeoutEvent;
+
+/**
+ * Events delivered together in batched mode, in the order they happened.
+ */
+export interface YandexAdEventBatch {
+  events: YandexAdEvent[];
+}
+
+/**
+ * Options for `setEventBatching()`.
+ */
+export interface EventBatchingOptions {
+  /** Default true. `false` flushes what is buffered and returns to `adEvent`. */
+  enabled?: boolean;
+  /**
+   * Flush interval, ms (max 1000). Omitted or 0 - once per display frame.
+   */
+  intervalMs?: number;
+}
 
 /**
  * Init options
@@ -156,6 +200,42 @@ export interface InitOptions {
   locationTracking?: boolean;
   /** Verbose SDK logging. Debug builds only. */
   enableLogging?: boolean;
+  /**
+   * Android: `'immediate'` (default) starts the SDK right away; `'idle'`
+   * waits until the main thread goes idle after the first frames, so SDK and
+   * mediation adapter startup do not compete with the app's cold start. The
+   * wait is capped at 5 s and counts toward the init timeout.
+   */
+  initMode?: 'immediate' | 'idle';
+  /** Android, `initMode: 'idle'`: minimum delay before waiting for idle, ms (max 5000). */
+  idleDelayMs?: number;
+  /** Android: how long a load may go unanswered, see `LoadTimeoutOptions`. */
+  loadTimeout?: LoadTimeoutOptions;
+  /**
+   * Android: what a load does while the device has no validated network.
+   * `'park'` (default) waits for the network for up to 60 s and then runs;
+   * pending loads run rewarded first, then interstitial, preloadAll and
+   * banners. A newer load for the same slot replaces a pending one. `'fail'`
+   * resolves at once with `message: 'Offline'`.
+   */
+  offlineLoads?: 'park' | 'fail';
+}
+
+/**
+ * Load deadlines (Android). Each unit's deadline is the p99 of its last 100
+ * load latencies times `margin`, clamped to `[minMs, maxMs]`. Until a unit
+ * has 20 samples its deadline is `maxMs`. A load that misses its deadline
+ * emits a `timeout` event.
+ */
+export interface LoadTimeoutOptions {
+  /** Default true. `false` - every load gets `maxMs`. */
+  adaptive?: boolean;
+  /** Lower bound, ms (default 5000, min 1000). */
+  minMs?: number;
+  /** Upper bound, ms (default and max 60000). */
+  maxMs?: number;
+  /** Multiplier over p99 (default 1.5, min 1). */
+  margin?: number;
 }
 
 /**
@@ -163,6 +243,28 @@ export interface InitOptions {
  */
 export interface AdLoadedResult {
   loaded: boolean;
+  /** Android: how long ago the ad that would be shown was loaded, ms. */
+  ageMs?: number;
+}
+
+/**
+ * Options for `awaitReady()`.
+ */
+export interface AwaitReadyOptions {
+  adType: AdType.BANNER | AdType.INTERSTITIAL | AdType.REWARDED;
+  /** Wait for this unit only. Omitted - any unit of the type. */
+  adUnitId?: string;
+  /** How long to wait, ms (default 60000, max 300000). */
+  timeoutMs?: number;
+}
+
+/**
+ * Result of `awaitReady()`. `loaded: false` means the wait timed out.
+ */
+export interface AwaitReadyResult extends AdLoadedResult {
+  /** Unit whose ad is ready. */
+  adUnitId?: string;
+  message?: string;
 }
 
 /**
@@ -172,16 +274,33 @@ export interface AdLoadedResult {
  * width и height заданы - фиксированный размер, только width - sticky этой
  * ширины, размер не задан (или width 0) - стандартный баннер 320x50.
  */
-export interface LoadBannerOptions {
+export interface LoadBannerOptions extends BannerIdOptions {
   adUnitId: string;
   size?: BannerSize;
   position?: BannerPosition;
+  /**
+   * Android: reload the banner natively every N ms (minimum 15000), using the
+   * same unit and size. The timer pauses while the banner is hidden, the
+   * activity is paused or a full-screen ad is showing, and resumes with the
+   * remaining time. `0` turns refresh off; omitted keeps the current setting.
+   * `destroyBanner()` always turns it off.
+   */
+  refreshIntervalMs?: number;
+}
+
+/**
+ * Which banner a call is about (Android). Several banners can live at once,
+ * each with its own position, visibility, load and refresh; omitted -
+ * `'default'`, the single banner of earlier versions. At most 3 banners.
+ */
+export interface BannerIdOptions {
+  bannerId?: string;
 }
 
 /**
  * Options for showing a loaded banner ad.
  */
-export interface ShowBannerOptions {
+export interface ShowBannerOptions extends BannerIdOptions {
   /**
    * Позицию можно менять при каждом показе, в том числе у уже видимого
    * баннера, - как show_banner(pos) в Defold-расширении.
@@ -189,18 +308,101 @@ export interface ShowBannerOptions {
   position?: BannerPosition;
 }
 
+/**
+ * Native auto refill of a full-screen ad unit (Android).
+ *
+ * Once enabled, the plugin loads the next ad itself right after the shown one
+ * is dismissed or fails to show, and retries failed loads with exponential
+ * backoff and jitter. Loads started this way report through `adEvent` only.
+ * The setting sticks to the ad unit until disabled with `autoRefill: false`
+ * or the ad type is destroyed.
+ */
+export interface AutoRefillOptions {
+  /** Default `true`; `false` turns refill off for the unit. */
+  enabled?: boolean;
+  /** Failed loads in a row before the plugin gives up (default 5). */
+  maxRetries?: number;
+  /** Delay before the first retry, ms (default 2000). Doubles every retry. */
+  baseDelayMs?: number;
+  /** Upper bound for the retry delay, ms (default 60000). */
+  maxDelayMs?: number;
+}
+
+/**
+ * How a group load picks its ad (see `adUnitIds`).
+ *
+ * - `first` - the first unit to fill wins, the promise resolves at once.
+ * - `priority` - units are floor-price tiers, most expensive first: the
+ *   highest tier that fills wins, so a cheaper fill waits until every tier
+ *   above it has failed. When the load deadline passes, the best fill that
+ *   has arrived wins.
+ */
+export type WaterfallStrategy = 'first' | 'priority';
+
 /**
  * Options for loading interstitial ads
  */
 export interface LoadInterstitialOptions {
-  adUnitId: string;
+  /** Ad unit to load. Required unless `adUnitIds` is given. */
+  adUnitId?: string;
+  /**
+   * Android: several units of the same placement (up to 5), loaded
+   * concurrently under one deadline; the promise resolves once with the
+   * winning unit in `AdResult.adUnitId`. Interstitial fills of the other
+   * units are not thrown away but kept in their units' cache. The first unit
+   * is the group's key for `autoRefill`.
+   */
+  adUnitIds?: string[];
+  /** How a group load picks its ad, default `first`. */
+  strategy?: WaterfallStrategy;
+  /**
+   * How many ready ads to keep for this ad unit (Android, 1-3, default 1).
+   * Each load adds one ad; the oldest one of the unit is released once the
+   * limit is reached. Ads of other units are kept, up to 6 in total, and the
+   * least recently used unit gives way first.
+   */
+  cacheSize?: number;
+  /** Keep the unit filled natively, see `AutoRefillOptions`. */
+  autoRefill?: boolean | AutoRefillOptions;
+  /** Ad lifetime, see `LoadRewardedOptions.ttlMs`. Applies to every unit of the call. */
+  ttlMs?: number;
+}
+
+/**
+ * Selects the interstitial ad unit for show / status / destroy.
+ */
+export interface InterstitialUnitOptions {
+  /**
+   * Ad unit to use. Omitted - the unit of the last `loadInterstitial()`, and
+   * for show, any ready unit if that one is empty.
+   */
+  adUnitId?: string;
 }
 
 /**
  * Options for loading rewarded ads
  */
 export interface LoadRewardedOptions {
-  adUnitId: string;
+  /** Ad unit to load. Required unless `adUnitIds` is given. */
+  adUnitId?: string;
+  /**
+   * Android: several units of the same placement (up to 5), loaded
+   * concurrently under one deadline; the promise resolves once with the
+   * winning unit in `AdResult.adUnitId`. The other requests are cancelled and
+   * late fills released - there is a single rewarded slot.
+   */
+  adUnitIds?: string[];
+  /** How a group load picks its ad, default `first`. */
+  strategy?: WaterfallStrategy;
+  /** Keep the unit filled natively, see `AutoRefillOptions`. */
+  autoRefill?: boolean | AutoRefillOptions;
+  /**
+   * Android: how long a preloaded ad stays showable, ms (default 1 hour,
+   * minimum 60000). Shortly before the limit the plugin reloads the slot
+   * quietly and keeps the current ad until the new one arrives; at the limit
+   * a still-unshown ad is dropped with an `expired` event.
+   */
+  ttlMs?: number;
 }
 
 /**
@@ -209,6 +411,104 @@ export interface LoadRewardedOptions {
 export interface AdResult {
   success: boolean;
   message?: string;
+  /** Successful loads: the unit whose ad was loaded (the winner of a group). */
+  adUnitId?: string;
+}
+
+/**
+ * Options for `preloadAll()`: each section takes the same options as the
+ * matching load method; omitted sections are not loaded.
+ */
+export interface PreloadAllOptions {
+  banner?: LoadBannerOptions;
+  interstitial?: LoadInterstitialOptions;
+  rewarded?: LoadRewardedOptions;
+  /** Shared deadline for the aggregated result, ms (default and max 60000). */
+  timeoutMs?: number;
+}
+
+/**
+ * Outcome of one `preloadAll()` section.
+ */
+export interface PreloadEntryResult extends AdResult {
+  /**
+   * The load had not finished by `timeoutMs`. It keeps going; its outcome
+   * arrives as a `loaded` / `failed_to_load` ad event.
+   */
+  pending?: boolean;
+}
+
+/**
+ * Aggregated `preloadAll()` result: `success` is true only if every
+ * requested section loaded.
+ */
+export interface PreloadAllResult extends AdResult {
+  banner?: PreloadEntryResult;
+  interstitial?: PreloadEntryResult;
+  rewarded?: PreloadEntryResult;
+}
+
+/**
+ * Latency histogram summary, in ms. Percentiles are bucket upper bounds
+ * (an estimate from above); only `count` is present while it is 0.
+ */
+export interface LatencyStats {
+  count: number;
+  avg?: number;
+  p50?: number;
+  p90?: number;
+  max?: number;
+}
+
+/**
+ * Counters of one ad unit since the last `resetStats()`.
+ */
+export interface AdUnitStats {
+  /** Load requests sent for this unit (each unit of a group counts). */
+  loads: number;
+  fills: number;
+  failures: number;
+  /** Loads with no answer before the load deadline. */
+  timeouts: number;
+  fillRate: number;
+  timeoutRate: number;
+  shows: number;
+  showFailures: number;
+  impressions: number;
+  /** Loaded ads released on a low-memory signal before they were shown. */
+  evictions: number;
+  /** Load request -> loaded. */
+  loadMs: LatencyStats;
+  /** show() -> shown. */
+  showMs: LatencyStats;
+  /** show() -> impression. */
+  impressionMs: LatencyStats;
+  /** Shown -> dismissed: how long the ad stayed on screen. */
+  displayMs: LatencyStats;
+}
+
+/**
+ * Main-thread time spent by the plugin's own passes (loads, shows, banner
+ * layout). Replies and events are built off the main thread.
+ */
+export interface MainThreadStats {
+  passes: number;
+  totalMs: number;
+  maxMs: number;
+}
+
+/**
+ * Native counters per ad type and ad unit (Android).
+ */
+export interface AdStatsResult extends AdResult {
+  stats?: {
+    /** Time covered by the counters. */
+    periodMs: number;
+    banner: Record<string, AdUnitStats>;
+    interstitial: Record<string, AdUnitStats>;
+    rewarded: Record<string, AdUnitStats>;
+    mainThread: MainThreadStats;
+  };
 }
 
 /**
@@ -249,18 +549,19 @@ export interface YandexAdsPlugin {
    * Hide the banner ad
    * @returns Promise that resolves when banner is hidden
    */
-  hideBanner(): Promise<AdResult>;
+  hideBanner(options?: BannerIdOptions): Promise<AdResult>;
 
   /**
    * Whether a banner ad is loaded (its content arrived) and can be shown.
    */
-  isBannerLoaded(): Promise<AdLoadedResult>;
+  isBannerLoaded(options?: BannerIdOptions): Promise<AdLoadedResult>;
 
   /**
-   * Destroy the banner ad and free resources
+   * Destroy the banner ad and free resources. Without `bannerId` every
+   * banner is destroyed.
    * @returns Promise that resolves when banner is destroyed
    */
-  destroyBanner(): Promise<AdResult>;
+  destroyBanner(options?: BannerIdOptions): Promise<AdResult>;
 
   /**
    * Load an interstitial ad
@@ -274,18 +575,24 @@ export interface YandexAdsPlugin {
    * Resolves once the ad is actually on screen (`success: true`) or could not
    * be shown (`success: false`). Use the `dismissed` event to learn when the
    * user closed it.
+   * @param options - Ad unit to take a ready ad from
    */
-  showInterstitial(): Promise<AdResult>;
+  showInterstitial(options?: InterstitialUnitOptions): Promise<AdResult>;
 
   /**
    * Whether an interstitial ad is loaded and ready to show.
+   * @param options - Ad unit to check; omitted - any unit
    */
-  isInterstitialLoaded(): Promise<AdLoadedResult>;
+  isInterstitialLoaded(
+    options?: InterstitialUnitOptions,
+  ): Promise<AdLoadedResult>;
 
   /**
-   * Release the loaded interstitial ad without showing it.
+   * Release loaded interstitial ads without showing them.
+   * @param options - Ad unit to release; omitted - all units and the ad on
+   * screen
    */
-  destroyInterstitial(): Promise<AdResult>;
+  destroyInterstitial(options?: InterstitialUnitOptions): Promise<AdResult>;
 
   /**
    * Load a rewarded ad
@@ -314,6 +621,33 @@ export interface YandexAdsPlugin {
    */
   destroyRewarded(): Promise<AdResult>;
 
+  /**
+   * Android: wait until a slot has an ad ready, instead of polling
+   * `isXLoaded()`. Resolves at once if it is already ready, otherwise the
+   * moment it fills or when `timeoutMs` passes. Any number of waiters are
+   * resolved by the same fill; SDK init is not required.
+   */
+  awaitReady(options: AwaitReadyOptions): Promise<AwaitReadyResult>;
+
+  /**
+   * Android: start banner, interstitial and rewarded loads in one bridge call
+   * and one UI-thread pass. Resolves once, when every requested load has
+   * settled or `timeoutMs` has passed; per-type progress is reported through
+   * the usual `adEvent` events.
+   */
+  preloadAll(options: PreloadAllOptions): Promise<PreloadAllResult>;
+
+  /**
+   * Android: load/show counters and latencies per ad unit, collected
+   * natively since start or the last `resetStats()`.
+   */
+  getStats(): Promise<AdStatsResult>;
+
+  /**
+   * Android: start a new stats period.
+   */
+  resetStats(): Promise<AdResult>;
+
   /**
    * Add a listener for ad events
    * This provides detailed callbacks for all ad lifecycle events
@@ -329,6 +663,22 @@ export interface YandexAdsPlugin {
     // обещание, и web-заглушка такой сигнатуре уже не соответствовала.
   ): Promise<PluginListenerHandle>;
 
+  /**
+   * Android, batched mode only: ad events buffered since the last flush.
+   * While batching is on, events go here instead of `adEvent`.
+   */
+  addListener(
+    eventName: 'adEvents',
+    listenerFunc: (batch: YandexAdEventBatch) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Android: deliver ad events in batches through `adEvents` instead of one
+   * bridge message per event. A `rewarded` event flushes the batch at once,
+   * so the reward is never delayed.
+   */
+  setEventBatching(options?: EventBatchingOptions): Promise<AdResult>;
+
   /**
    * Remove all listeners
    */
@@ -3,11 +3,19 @@ import { WebPlugin } from '@capacitor/core';
 import type {
   YandexAdsPlugin,
   InitOptions,
+  InterstitialUnitOptions,
   AdLoadedResult,
   AdResult,
+  AdStatsResult,
+  AwaitReadyOptions,
+  AwaitReadyResult,
+  BannerIdOptions,
+  EventBatchingOptions,
   LoadBannerOptions,
   LoadInterstitialOptions,
   LoadRewardedOptions,
+  PreloadAllOptions,
+  PreloadAllResult,
   RewardedAdResult,
   ShowBannerOptions,
 } from './definitions';
@@ -30,16 +38,16 @@ export class YandexAdsWeb extends WebPlugin implements YandexAdsPlugin {
     return { success: false, message: 'Not available on web' };
   }
 
-  async hideBanner(): Promise<AdResult> {
+  async hideBanner(_options?: BannerIdOptions): Promise<AdResult> {
     console.warn('YandexAds: hideBanner() is not available on web platform');
     return { success: false, message: 'Not available on web' };
   }
 
-  async isBannerLoaded(): Promise<AdLoadedResult> {
+  async isBannerLoaded(_options?: BannerIdOptions): Promise<AdLoadedResult> {
     return { loaded: false };
   }
 
-  async destroyBanner(): Promise<AdResult> {
+  async destroyBanner(_options?: BannerIdOptions): Promise<AdResult> {
     console.warn('YandexAds: destroyBanner() is not available on web platform');
     return { success: false, message: 'Not available on web' };
   }
@@ -51,7 +59,9 @@ export class YandexAdsWeb extends WebPlugin implements YandexAdsPlugin {
     return { success: false, message: 'Not available on web' };
   }
 
-  async showInterstitial(): Promise<AdResult> {
+  async showInterstitial(
+    _options?: InterstitialUnitOptions,
+  ): Promise<AdResult> {
     console.warn(
       'YandexAds: showInterstitial() is not available on web platform',
     );
@@ -68,7 +78,9 @@ export class YandexAdsWeb extends WebPlugin implements YandexAdsPlugin {
     return { success: false, message: 'Not available on web' };
   }
 
-  async isInterstitialLoaded(): Promise<AdLoadedResult> {
+  async isInterstitialLoaded(
+    _options?: InterstitialUnitOptions,
+  ): Promise<AdLoadedResult> {
     return { loaded: false };
   }
 
@@ -76,11 +88,34 @@ export class YandexAdsWeb extends WebPlugin implements YandexAdsPlugin {
     return { loaded: false };
   }
 
-  async destroyInterstitial(): Promise<AdResult> {
+  async destroyInterstitial(
+    _options?: InterstitialUnitOptions,
+  ): Promise<AdResult> {
     return { success: false, message: 'Not available on web' };
   }
 
   async destroyRewarded(): Promise<AdResult> {
     return { success: false, message: 'Not available on web' };
   }
+
+  async awaitReady(_options: AwaitReadyOptions): Promise<AwaitReadyResult> {
+    return { loaded: false, message: 'Not available on web' };
+  }
+
+  async preloadAll(_options: PreloadAllOptions): Promise<PreloadAllResult> {
+    console.warn('YandexAds: preloadAll() is not available on web platform');
+    return { success: false, message: 'Not available on web' };
+  }
+
+  async setEventBatching(_options?: EventBatchingOptions): Promise<AdResult> {
+    return { success: false, message: 'Not available on web' };
+  }
+
+  async getStats(): Promise<AdStatsResult> {
+    return { success: false, message: 'Not available on web' };
+  }
+
+  async resetStats(): Promise<AdResult> {
+    return { success: false, message: 'Not available on web' };
+  }
 }